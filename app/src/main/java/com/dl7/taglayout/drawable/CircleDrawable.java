@@ -1,8 +1,5 @@
 package com.dl7.taglayout.drawable;
 
-import android.animation.ObjectAnimator;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.ColorFilter;
@@ -12,17 +9,28 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
-import android.util.Property;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import com.dl7.tag.drawable.TagAnimationClock;
 
 /**
  * Created by long on 2016/7/2.
  * 圆圈Drawable
+ * 动画由 TagAnimationClock 统一驱动
  */
-public class CircleDrawable extends Drawable implements Animatable {
+public class CircleDrawable extends Drawable implements Animatable, TagAnimationClock.FrameCallback {
+
+    // 一次扩散的时长
+    private static final int DURATION = 1200;
+    private static final Interpolator sInterpolator = new AccelerateDecelerateInterpolator();
 
     private Paint mPaint;
-    // 动画控制
-    private ValueAnimator mValueAnimator;
+    // 动画开始的时间，-1 表示等待第一帧
+    private long mStartTime = -1;
+    private boolean mIsRunning;
+    // 最大半径
+    private int mMaxRadius;
     // 扩散半径
     private int mRadius;
     // 绘制的矩形框
@@ -30,18 +38,6 @@ public class CircleDrawable extends Drawable implements Animatable {
     // 动画启动延迟时间
     private int mStartDelay;
 
-    // 自定义一个扩散半径属性
-    Property<CircleDrawable, Integer> mRadiusProperty = new Property<CircleDrawable, Integer>(Integer.class, "radius") {
-        @Override
-        public void set(CircleDrawable object, Integer value) {
-            object.setRadius(value);
-        }
-
-        @Override
-        public Integer get(CircleDrawable object) {
-            return object.getRadius();
-        }
-    };
     public int getRadius() {
         return mRadius;
     }
@@ -82,45 +78,42 @@ public class CircleDrawable extends Drawable implements Animatable {
     @Override
     protected void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
-        mRect.set(_clipSquare(bounds));
-        if (isRunning()) {
-            stop();
-        }
+        _clipSquare(bounds, mRect);
         // 计算最大半径
-        int maxRadius = (int) ((mRect.right - mRect.left) / 2);
-        // 控制扩散半径的属性变化
-        PropertyValuesHolder radiusHolder = PropertyValuesHolder.ofInt(mRadiusProperty, 0, maxRadius);
-        // 控制透明度的属性变化
-        PropertyValuesHolder alphaHolder = PropertyValuesHolder.ofInt("alpha", 255, 0);
-        mValueAnimator = ObjectAnimator.ofPropertyValuesHolder(this, radiusHolder, alphaHolder);
-        mValueAnimator.setStartDelay(mStartDelay);
-        mValueAnimator.setDuration(1200);
-        mValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                // 监听属性动画并进行重绘
-                invalidateSelf();
-            }
-        });
-        // 设置动画无限循环
-        mValueAnimator.setRepeatMode(ValueAnimator.RESTART);
-        mValueAnimator.setRepeatCount(ValueAnimator.INFINITE);
+        mMaxRadius = (int) ((mRect.right - mRect.left) / 2);
+        // 大小变化时动画继续执行
         start();
     }
 
+    @Override
+    public void onAnimationFrame(long frameTimeMillis) {
+        if (mStartTime < 0) {
+            mStartTime = frameTimeMillis;
+        }
+        long playTime = frameTimeMillis - mStartTime - mStartDelay;
+        if (playTime < 0) {
+            return;
+        }
+        // 半径从0扩散到最大，透明度从255变为0，无限循环
+        float fraction = sInterpolator.getInterpolation((float) (playTime % DURATION) / DURATION);
+        mRadius = (int) (mMaxRadius * fraction);
+        mPaint.setAlpha((int) (255 * (1 - fraction)));
+        invalidateSelf();
+    }
+
     /**
      * 裁剪Rect为正方形
      * @param rect
-     * @return
+     * @param outRect 保存结果
      */
-    private Rect _clipSquare(Rect rect) {
+    private void _clipSquare(Rect rect, RectF outRect) {
         int w = rect.width();
         int h = rect.height();
         int min = Math.min(w, h);
         int cx = rect.centerX();
         int cy = rect.centerY();
         int r = min / 2;
-        return new Rect(
+        outRect.set(
                 cx - r,
                 cy - r,
                 cx + r,
@@ -132,17 +125,26 @@ public class CircleDrawable extends Drawable implements Animatable {
 
     @Override
     public void start() {
-        mValueAnimator.start();
+        if (mIsRunning) {
+            return;
+        }
+        mIsRunning = true;
+        mStartTime = -1;
+        TagAnimationClock.getInstance().addCallback(this);
     }
 
     @Override
     public void stop() {
-        mValueAnimator.end();
+        if (!mIsRunning) {
+            return;
+        }
+        mIsRunning = false;
+        TagAnimationClock.getInstance().removeCallback(this);
     }
 
     @Override
     public boolean isRunning() {
-        return mValueAnimator != null && mValueAnimator.isRunning();
+        return mIsRunning;
     }
 
     public void setAnimatorDelay(int startDelay) {
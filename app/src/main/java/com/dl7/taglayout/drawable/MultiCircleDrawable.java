@@ -7,6 +7,8 @@ import android.graphics.Rect;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 
+import com.dl7.tag.drawable.TagAnimationClock;
+
 /**
  * Created by long on 2016/7/2.
  * 复数Circle的Drawable，需要实现Drawable.Callback接口
@@ -17,6 +19,8 @@ public class MultiCircleDrawable extends Drawable implements Animatable, Drawabl
     private static final int EACH_CIRCLE_SPACE = 200;
     // CircleDrawable数组
     private CircleDrawable[] mCircleDrawables;
+    // 上一次重绘时时钟的帧数，同一帧内子Drawable的重绘只通知一次
+    private long mLastInvalidateFrame = -1;
 
 
     public MultiCircleDrawable() {
@@ -96,7 +100,11 @@ public class MultiCircleDrawable extends Drawable implements Animatable, Drawabl
     @Override
     public void invalidateDrawable(Drawable who) {
         // 需要重绘，子Drawable发生重绘会调用这个方法通知父Drawable，如果有设置Callback回调监听的话
-        invalidateSelf();
+        long frame = TagAnimationClock.getInstance().getFrameCount();
+        if (frame != mLastInvalidateFrame) {
+            mLastInvalidateFrame = frame;
+            invalidateSelf();
+        }
     }
 
     @Override
@@ -0,0 +1,162 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * TagAdapter 局部更新测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagAdapterTest {
+
+    private TagLayout mTagLayout;
+    private ListAdapter mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        mTagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+        mAdapter = new ListAdapter(new ArrayList<>(Arrays.asList("a", "b", "c")));
+        mTagLayout.setAdapter(mAdapter);
+    }
+
+    @Test
+    public void rangeInsertAndRemoveKeepOtherViews() throws Exception {
+        TagView first = (TagView) mTagLayout.getChildAt(0);
+        mAdapter.mData.addAll(1, Arrays.asList("x", "y"));
+        mAdapter.notifyItemRangeInserted(1, 2);
+
+        assertEquals(5, mTagLayout.getChildCount());
+        assertSame(first, mTagLayout.getChildAt(0));
+        assertEquals("y", ((TagView) mTagLayout.getChildAt(2)).getText());
+
+        mAdapter.mData.subList(0, 2).clear();
+        mAdapter.notifyItemRangeRemoved(0, 2);
+        assertEquals(3, mTagLayout.getChildCount());
+        assertEquals("y", ((TagView) mTagLayout.getChildAt(0)).getText());
+    }
+
+    @Test
+    public void textPayloadOnlyRebindsText() throws Exception {
+        TagView tagView = (TagView) mTagLayout.getChildAt(1);
+        mAdapter.mData.set(1, "B");
+        mAdapter.notifyItemChanged(1, TagAdapter.PAYLOAD_TEXT);
+
+        assertSame(tagView, mTagLayout.getChildAt(1));
+        assertEquals("B", tagView.getText());
+        assertSame(TagAdapter.PAYLOAD_TEXT, mAdapter.mLastPayload);
+        assertEquals(true, mTagLayout.containsTag("B"));
+    }
+
+    @Test
+    public void dataSetChangedIsDiffed() throws Exception {
+        TagView tagView = (TagView) mTagLayout.getChildAt(2);
+        mAdapter.mData.remove(0);
+        mAdapter.mData.add("d");
+        mAdapter.notifyDataSetChanged();
+
+        assertEquals(3, mTagLayout.getChildCount());
+        assertSame(tagView, mTagLayout.getChildAt(1));
+        assertEquals("d", ((TagView) mTagLayout.getChildAt(2)).getText());
+    }
+
+    @Test
+    public void stableIdsRebindReplacedAndKeptTags() throws Exception {
+        IdAdapter adapter = new IdAdapter();
+        adapter.setHasStableIds(true);
+        adapter.mData.addAll(Arrays.asList("a", "b", "c"));
+        adapter.mIds.addAll(Arrays.asList(1L, 2L, 3L));
+        mTagLayout.setAdapter(adapter);
+        TagView kept = (TagView) mTagLayout.getChildAt(2);
+
+        // 位置1替换成另一个 id，位置2的 id 不变但文字变化
+        adapter.mData.set(1, "x");
+        adapter.mIds.set(1, 4L);
+        adapter.mData.set(2, "C");
+        adapter.mBindCount = 0;
+        adapter.notifyDataSetChanged();
+
+        assertNull(mTagLayout.getTagItem(2));
+        assertEquals(1, mTagLayout.getTagPosition(4));
+        assertEquals("x", mTagLayout.getTagItem(4).getText());
+        assertSame(kept, mTagLayout.getChildAt(2));
+        assertEquals("C", kept.getText());
+        // 每个 Tag 都重新绑定一次
+        assertEquals(3, adapter.mBindCount);
+    }
+
+    @Test
+    public void unstableIdsAreNotUsedAsTagIds() throws Exception {
+        IdAdapter adapter = new IdAdapter();
+        adapter.mData.addAll(Arrays.asList("x", "y"));
+        adapter.mIds.addAll(Arrays.asList(1L, 2L));
+        mTagLayout.setAdapter(adapter);
+
+        // 按文字比较时先插入 z 再删除 y，z 复用了 x 的 id
+        adapter.mData.clear();
+        adapter.mData.addAll(Arrays.asList("z", "x"));
+        adapter.mIds.clear();
+        adapter.mIds.addAll(Arrays.asList(1L, 3L));
+        adapter.notifyDataSetChanged();
+
+        assertEquals(2, mTagLayout.getChildCount());
+        assertEquals("z", ((TagView) mTagLayout.getChildAt(0)).getText());
+        assertEquals("x", ((TagView) mTagLayout.getChildAt(1)).getText());
+        assertEquals(false, mTagLayout.containsTag("y"));
+    }
+
+    private static class IdAdapter extends ListAdapter {
+        final List<Long> mIds = new ArrayList<>();
+        int mBindCount;
+
+        IdAdapter() {
+            super(new ArrayList<String>());
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIds.get(position);
+        }
+
+        @Override
+        public void onBindTagView(TagView tagView, int position, Object payload) {
+            super.onBindTagView(tagView, position, payload);
+            mBindCount++;
+        }
+    }
+
+    private static class ListAdapter extends TagAdapter {
+        final List<String> mData;
+        Object mLastPayload;
+
+        ListAdapter(List<String> data) {
+            mData = data;
+        }
+
+        @Override
+        public int getItemCount() {
+            return mData.size();
+        }
+
+        @Override
+        public String getText(int position) {
+            return mData.get(position);
+        }
+
+        @Override
+        public void onBindTagView(TagView tagView, int position, Object payload) {
+            mLastPayload = payload;
+        }
+    }
+}
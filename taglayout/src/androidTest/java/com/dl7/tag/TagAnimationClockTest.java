@@ -0,0 +1,81 @@
+package com.dl7.tag;
+
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.dl7.tag.drawable.RotateDrawable;
+import com.dl7.tag.drawable.TagAnimationClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 动画图标共享时钟测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagAnimationClockTest {
+
+    @Test
+    public void drawablesShareOneClock() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                TagAnimationClock clock = TagAnimationClock.getInstance();
+                int count = clock.getCallbackCount();
+                Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+                RotateDrawable first = new RotateDrawable(bitmap);
+                RotateDrawable second = new RotateDrawable(bitmap);
+
+                first.start();
+                first.start();
+                second.start();
+                assertEquals(count + 2, clock.getCallbackCount());
+                assertTrue(clock.isRegistered(first));
+
+                first.stop();
+                second.stop();
+                assertEquals(count, clock.getCallbackCount());
+                assertFalse(first.isRunning());
+            }
+        });
+    }
+
+    @Test
+    public void clockKeepsTickingUntilCallbacksRemoved() throws Exception {
+        final TagAnimationClock clock = TagAnimationClock.getInstance();
+        // 不依赖 ValueAnimator，系统动画时长缩放为 0 时也会持续回调
+        final CountDownLatch latch = new CountDownLatch(90);
+        final TagAnimationClock.FrameCallback callback = new TagAnimationClock.FrameCallback() {
+            @Override
+            public void onAnimationFrame(long frameTimeMillis) {
+                latch.countDown();
+            }
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                clock.addCallback(callback);
+                assertTrue(clock.isRunning());
+            }
+        });
+        // 超过 1 秒仍在回调
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                clock.removeCallback(callback);
+                if (clock.getCallbackCount() == 0) {
+                    assertFalse(clock.isRunning());
+                }
+            }
+        });
+    }
+}
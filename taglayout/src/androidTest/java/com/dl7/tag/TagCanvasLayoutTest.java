@@ -0,0 +1,174 @@
+package com.dl7.tag;
+
+import android.graphics.Rect;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.dl7.tag.layout.FlowLayoutEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 单View绘制标签布局的碰撞检测、点击选中、文字裁剪和布局缓存测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagCanvasLayoutTest {
+
+    private TagCanvasLayout mTagLayout;
+    private final Rect mBounds = new Rect();
+
+    @Before
+    public void setUp() throws Exception {
+        mTagLayout = new TagCanvasLayout(InstrumentationRegistry.getTargetContext());
+        mTagLayout.setTags("tag0", "tag1", "long tag2", "tag3", "tag4", "long long tag5");
+    }
+
+    @Test
+    public void hitTestRespectsPaddingAndReverse() throws Exception {
+        mTagLayout.setPadding(30, 20, 10, 5);
+        _measureAndLayout(400);
+        _assertHitTest();
+        // 内边距区域不属于任何标签
+        mTagLayout.getTagBounds(0, mBounds);
+        assertEquals(30, mBounds.left);
+        assertEquals(20, mBounds.top);
+        assertEquals(TagView.INVALID_VALUE, mTagLayout.findTagAt(mBounds.left - 1, mBounds.centerY()));
+        assertEquals(TagView.INVALID_VALUE, mTagLayout.findTagAt(mBounds.centerX(), mBounds.top - 1));
+
+        // 反向排列时第一个标签靠右
+        mTagLayout.setHorizontalReverse(true);
+        _measureAndLayout(400);
+        _assertHitTest();
+        mTagLayout.getTagBounds(0, mBounds);
+        assertEquals(400 - 10, mBounds.right);
+        assertEquals(TagView.INVALID_VALUE, mTagLayout.findTagAt(mBounds.right, mBounds.centerY()));
+    }
+
+    @Test
+    public void clickAndCheckDispatch() throws Exception {
+        final List<Integer> clicks = new ArrayList<>();
+        final List<String> checks = new ArrayList<>();
+        mTagLayout.setTagClickListener(new TagView.OnTagClickListener() {
+            @Override
+            public void onTagClick(int position, String text, int tagMode) {
+                clicks.add(position);
+            }
+        });
+        mTagLayout.setTagCheckListener(new TagView.OnTagCheckListener() {
+            @Override
+            public void onTagCheck(int position, String text, boolean isChecked) {
+                checks.add(position + text + isChecked);
+            }
+        });
+        mTagLayout.setTagMode(TagView.MODE_MULTI_CHOICE);
+        _measureAndLayout(400);
+
+        _click(1);
+        assertEquals(1, (int) clicks.get(0));
+        assertTrue(mTagLayout.isChecked(1));
+        assertEquals("1tag1true", checks.get(0));
+        _click(1);
+        assertFalse(mTagLayout.isChecked(1));
+        assertEquals("1tag1false", checks.get(1));
+
+        // 单选模式下选中另一个标签会取消之前的选中
+        mTagLayout.setTagMode(TagView.MODE_SINGLE_CHOICE);
+        _click(0);
+        _click(2);
+        assertFalse(mTagLayout.isChecked(0));
+        assertTrue(mTagLayout.isChecked(2));
+        assertEquals(1, mTagLayout.getCheckedTags().size());
+
+        // 按下的位置没有标签不消费事件
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        assertFalse(mTagLayout.onTouchEvent(down));
+        down.recycle();
+        assertEquals(4, clicks.size());
+    }
+
+    @Test
+    public void narrowWidthEllipsizesText() throws Exception {
+        mTagLayout.setTags("a very very very long tag", "tag");
+        _measureAndLayout(100);
+        int available = 100 - mTagLayout.getPaddingLeft() - mTagLayout.getPaddingRight();
+        mTagLayout.getTagBounds(0, mBounds);
+        assertTrue(mBounds.width() <= available);
+        int textEnd = mTagLayout.getShowTextEnd(0);
+        assertTrue(textEnd >= 0 && textEnd < mTagLayout.getTagText(0).length());
+        assertEquals(TagView.INVALID_VALUE, mTagLayout.getShowTextEnd(1));
+
+        // 宽度足够时不再裁剪
+        _measureAndLayout(1000);
+        assertEquals(TagView.INVALID_VALUE, mTagLayout.getShowTextEnd(0));
+    }
+
+    @Test
+    public void geometryUpdatesWhenStyleChanges() throws Exception {
+        _measureAndLayout(400);
+        mTagLayout.getTagBounds(0, mBounds);
+        int width = mBounds.width();
+        int height = mBounds.height();
+
+        mTagLayout.setTagTextSize(mTagLayout.getResources().getDisplayMetrics().density * 30);
+        _measureAndLayout(400);
+        mTagLayout.getTagBounds(0, mBounds);
+        assertTrue(mBounds.height() > height);
+        assertTrue(mBounds.width() > width);
+        height = mBounds.height();
+        width = mBounds.width();
+
+        mTagLayout.setTagVerticalPadding(50);
+        mTagLayout.setTagHorizontalPadding(50);
+        _measureAndLayout(400);
+        mTagLayout.getTagBounds(0, mBounds);
+        assertTrue(mBounds.height() > height);
+        assertTrue(mBounds.width() > width);
+
+        // 固定列数时按列计算宽度
+        mTagLayout.setFitTagNum(3);
+        _measureAndLayout(400);
+        int available = 400 - mTagLayout.getPaddingLeft() - mTagLayout.getPaddingRight();
+        for (int i = 0; i < mTagLayout.getTagCount(); i++) {
+            mTagLayout.getTagBounds(i, mBounds);
+            assertEquals(FlowLayoutEngine.getFitColumnWidth(available, 3, mTagLayout.getPaddingLeft(), i % 3),
+                    mBounds.width());
+        }
+        _assertHitTest();
+    }
+
+    private void _assertHitTest() {
+        for (int i = 0; i < mTagLayout.getTagCount(); i++) {
+            mTagLayout.getTagBounds(i, mBounds);
+            assertEquals(i, mTagLayout.findTagAt(mBounds.centerX(), mBounds.centerY()));
+            assertEquals(i, mTagLayout.findTagAt(mBounds.left, mBounds.top));
+            assertEquals(i, mTagLayout.findTagAt(mBounds.right - 1, mBounds.bottom - 1));
+        }
+    }
+
+    private void _click(int position) {
+        mTagLayout.getTagBounds(position, mBounds);
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, mBounds.centerX(), mBounds.centerY(), 0);
+        MotionEvent up = MotionEvent.obtain(0, 10, MotionEvent.ACTION_UP, mBounds.centerX(), mBounds.centerY(), 0);
+        assertTrue(mTagLayout.onTouchEvent(down));
+        mTagLayout.onTouchEvent(up);
+        down.recycle();
+        up.recycle();
+    }
+
+    private void _measureAndLayout(int width) {
+        mTagLayout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        mTagLayout.layout(0, 0, mTagLayout.getMeasuredWidth(), mTagLayout.getMeasuredHeight());
+    }
+}
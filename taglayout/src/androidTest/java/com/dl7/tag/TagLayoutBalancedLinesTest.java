@@ -0,0 +1,49 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 均衡换行测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutBalancedLinesTest {
+
+    @Test
+    public void fitNumIgnoresBalancedLines() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                TagLayout tagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+                tagLayout.setFitTagNum(3);
+                tagLayout.setBalancedLines(true);
+                for (int i = 0; i < 7; i++) {
+                    tagLayout.addTag(i % 2 == 0 ? "tag" + i : "long tag " + i);
+                }
+                tagLayout.measure(View.MeasureSpec.makeMeasureSpec(401, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+                tagLayout.layout(0, 0, tagLayout.getMeasuredWidth(), tagLayout.getMeasuredHeight());
+
+                // 每行固定3个标签，同一列的位置和宽度一致，不超出右边界
+                int right = tagLayout.getWidth() - tagLayout.getPaddingRight();
+                for (int i = 0; i < 7; i++) {
+                    View child = tagLayout.getChildAt(i);
+                    View lineStart = tagLayout.getChildAt(i / 3 * 3);
+                    View columnStart = tagLayout.getChildAt(i % 3);
+                    assertEquals(lineStart.getTop(), child.getTop());
+                    assertEquals(columnStart.getLeft(), child.getLeft());
+                    assertEquals(columnStart.getWidth(), child.getWidth());
+                    assertTrue(child.getRight() <= right);
+                }
+                assertTrue(tagLayout.getChildAt(3).getTop() > tagLayout.getChildAt(2).getTop());
+            }
+        });
+    }
+}
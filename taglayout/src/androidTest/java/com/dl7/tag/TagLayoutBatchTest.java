@@ -0,0 +1,76 @@
+package com.dl7.tag;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagLayout 批量操作的布局请求次数测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutBatchTest {
+
+    private Context mContext;
+    private List<String> mTags;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mTags = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            mTags.add("tag" + i);
+        }
+    }
+
+    @Test
+    public void addTagOneByOneRequestsLayoutEachTime() throws Exception {
+        TagLayout tagLayout = new TagLayout(mContext);
+        int before = tagLayout.getLayoutRequestCount();
+        for (String tag : mTags) {
+            tagLayout.addTag(tag);
+        }
+
+        assertTrue(tagLayout.getLayoutRequestCount() - before >= mTags.size());
+    }
+
+    @Test
+    public void batchRequestsLayoutOnce() throws Exception {
+        TagLayout tagLayout = new TagLayout(mContext);
+        int before = tagLayout.getLayoutRequestCount();
+        tagLayout.beginBatch();
+        for (String tag : mTags) {
+            tagLayout.addTag(tag);
+        }
+        tagLayout.deleteTag(0);
+        tagLayout.endBatch();
+
+        assertEquals(1, tagLayout.getLayoutRequestCount() - before);
+        assertEquals(mTags.size() - 1, tagLayout.getChildCount());
+    }
+
+    @Test
+    public void addTagsAndSetTagsAreBatched() throws Exception {
+        TagLayout tagLayout = new TagLayout(mContext);
+        int before = tagLayout.getLayoutRequestCount();
+        tagLayout.addTags(mTags);
+        assertEquals(1, tagLayout.getLayoutRequestCount() - before);
+
+        before = tagLayout.getLayoutRequestCount();
+        List<String> newTags = new ArrayList<>(mTags);
+        newTags.remove(10);
+        newTags.add(50, "new");
+        tagLayout.setTags(newTags);
+        assertEquals(1, tagLayout.getLayoutRequestCount() - before);
+        assertEquals(newTags.size(), tagLayout.getChildCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.dl7.tag;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.dl7.tag.utils.IconCache;
+import com.dl7.tag.utils.IconLoader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 异步加载图标测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutIconTest {
+
+    private Instrumentation mInstrumentation;
+    private TagLayout mTagLayout;
+
+    @Before
+    public void setUp() throws Exception {
+        IconCache.clear();
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+        mInstrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mTagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+            }
+        });
+    }
+
+    @Test
+    public void sameIconIsDecodedOnce() throws Exception {
+        final int decodeCount = IconLoader.getDecodeCount();
+        mInstrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 5; i++) {
+                    mTagLayout.addTagWithIcon("tag" + i, R.drawable.ic_change);
+                }
+                // 加载期间使用占位图标
+                for (int i = 0; i < 5; i++) {
+                    Drawable icon = ((TagView) mTagLayout.getChildAt(i)).getDecorateIcon();
+                    assertNotNull(icon);
+                }
+                assertEquals(decodeCount + 1, IconLoader.getDecodeCount());
+            }
+        });
+        _waitForIcons();
+
+        Drawable first = ((TagView) mTagLayout.getChildAt(0)).getDecorateIcon();
+        assertTrue(first instanceof BitmapDrawable);
+        for (int i = 1; i < 5; i++) {
+            Drawable icon = ((TagView) mTagLayout.getChildAt(i)).getDecorateIcon();
+            assertSame(((BitmapDrawable) first).getBitmap(), ((BitmapDrawable) icon).getBitmap());
+        }
+    }
+
+    @Test
+    public void iconInUseSurvivesClear() throws Exception {
+        Bitmap bitmap = IconCache.obtain(InstrumentationRegistry.getTargetContext().getResources(), R.drawable.ic_change, 32);
+        assertNotNull(bitmap);
+        IconCache.clear();
+        assertEquals(0, IconCache.size());
+
+        // 清空后仍然保留使用计数，释放时放入复用池
+        IconCache.release(bitmap);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            assertTrue(IconCache.getPoolMemorySize() > 0);
+        }
+    }
+
+    private void _waitForIcons() throws InterruptedException {
+        for (int i = 0; i < 100 && IconLoader.getInFlightCount() > 0; i++) {
+            Thread.sleep(20);
+            mInstrumentation.waitForIdleSync();
+        }
+        mInstrumentation.waitForIdleSync();
+        assertEquals(0, IconLoader.getInFlightCount());
+    }
+}
@@ -0,0 +1,63 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 最大行数折叠测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutMaxLinesTest {
+
+    @Test
+    public void collapsedTagsAreNotMeasured() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                TagLayout tagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+                tagLayout.setFitTagNum(2);
+                tagLayout.setMaxLines(2);
+                for (int i = 0; i < 10; i++) {
+                    tagLayout.addTag("tag" + i);
+                }
+                _measureAndLayout(tagLayout);
+
+                // 两行共4个位置，最后一个位置放置溢出标签，第三行第一个标签之后不再测量
+                assertEquals(7, tagLayout.getOverflowCount());
+                for (int i = 5; i < 10; i++) {
+                    assertEquals(0, tagLayout.getChildAt(i).getMeasuredWidth());
+                }
+                int lineHeight = tagLayout.getChildAt(0).getMeasuredHeight();
+                assertTrue(tagLayout.getMeasuredHeight() < lineHeight * 3);
+
+                // 展开后测量并显示全部标签
+                tagLayout.setExpanded(true);
+                _measureAndLayout(tagLayout);
+                assertEquals(0, tagLayout.getOverflowCount());
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(tagLayout.getChildAt(i).getMeasuredWidth() > 0);
+                }
+                assertTrue(tagLayout.getMeasuredHeight() > lineHeight * 5);
+
+                // 再次折叠后折叠的标签清空布局区域
+                tagLayout.setExpanded(false);
+                _measureAndLayout(tagLayout);
+                assertEquals(7, tagLayout.getOverflowCount());
+                assertEquals(0, tagLayout.getChildAt(9).getWidth());
+            }
+        });
+    }
+
+    private static void _measureAndLayout(TagLayout tagLayout) {
+        tagLayout.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        tagLayout.layout(0, 0, tagLayout.getMeasuredWidth(), tagLayout.getMeasuredHeight());
+    }
+}
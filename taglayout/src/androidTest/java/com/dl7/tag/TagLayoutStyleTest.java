@@ -0,0 +1,49 @@
+package com.dl7.tag;
+
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * TagLayout 共享样式测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutStyleTest {
+
+    private TagLayout mTagLayout;
+
+    @Before
+    public void setUp() throws Exception {
+        mTagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+        mTagLayout.setTags("a", "b", "c");
+    }
+
+    @Test
+    public void tagsShareLayoutStyle() throws Exception {
+        for (int i = 0; i < mTagLayout.getChildCount(); i++) {
+            assertSame(mTagLayout.getTagStyle(), ((TagView) mTagLayout.getChildAt(i)).getTagStyle());
+        }
+    }
+
+    @Test
+    public void layoutSetterUpdatesExistingTags() throws Exception {
+        TagView override = (TagView) mTagLayout.getChildAt(1);
+        override.setBgColor(Color.RED);
+
+        mTagLayout.setTagBgColor(Color.BLUE);
+        mTagLayout.setTagRadius(20);
+
+        TagView first = (TagView) mTagLayout.getChildAt(0);
+        assertSame(mTagLayout.getTagStyle(), first.getTagStyle());
+        assertEquals(Color.BLUE, first.getBgColor());
+        assertEquals(Color.RED, override.getBgColor());
+        assertEquals(20, override.getRadius(), 0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagLayout 的 TagItem id 和文字索引测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutTagItemTest {
+
+    private TagLayout mTagLayout;
+
+    @Before
+    public void setUp() throws Exception {
+        mTagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+    }
+
+    @Test
+    public void idsStayStableAfterDelete() throws Exception {
+        long first = mTagLayout.addTag(new TagItem("a"));
+        long second = mTagLayout.addTag(new TagItem("b"));
+        long third = mTagLayout.addTag(new TagItem("c"));
+
+        mTagLayout.deleteTagById(second);
+
+        assertNull(mTagLayout.getTagItem(second));
+        assertEquals("a", mTagLayout.getTagItem(first).getText());
+        assertEquals(1, mTagLayout.getTagPosition(third));
+        assertEquals(2, mTagLayout.getChildCount());
+    }
+
+    @Test
+    public void positionsFollowDeletes() throws Exception {
+        long first = mTagLayout.addTag(new TagItem("a"));
+        long second = mTagLayout.addTag(new TagItem("b"));
+        long third = mTagLayout.addTag(new TagItem("c"));
+        assertEquals(2, mTagLayout.getTagPosition(third));
+
+        // 查询过的位置在删除后重新编号
+        mTagLayout.deleteTagById(first);
+        assertEquals(0, mTagLayout.getTagPosition(second));
+        assertEquals(1, mTagLayout.getTagPosition(third));
+        assertEquals(-1, mTagLayout.getTagPosition(first));
+
+        mTagLayout.deleteTagById(third);
+        assertEquals(1, mTagLayout.getChildCount());
+        assertEquals("b", ((TagView) mTagLayout.getChildAt(0)).getText());
+    }
+
+    @Test
+    public void userTagDoesNotReplaceTagItem() throws Exception {
+        long first = mTagLayout.addTag(new TagItem("a"));
+        long second = mTagLayout.addTag(new TagItem("b"));
+        // View.setTag() 留给使用者，不影响 TagItem 查询
+        mTagLayout.getChildAt(0).setTag("user data");
+        mTagLayout.getChildAt(1).setTag(0);
+
+        assertEquals("a", mTagLayout.getTagItem(first).getText());
+        assertEquals(1, mTagLayout.getTagPosition(second));
+        mTagLayout.deleteTagById(first);
+        assertEquals(0, mTagLayout.getTagPosition(second));
+        assertEquals(0, mTagLayout.getChildAt(0).getTag());
+    }
+
+    @Test
+    public void textIndexFollowsChanges() throws Exception {
+        assertTrue(mTagLayout.addTagIfAbsent("a"));
+        assertFalse(mTagLayout.addTagIfAbsent("a"));
+
+        mTagLayout.updateTags("b");
+        assertFalse(mTagLayout.containsTag("a"));
+        assertTrue(mTagLayout.containsTag("b"));
+
+        mTagLayout.deleteTag(0);
+        assertFalse(mTagLayout.containsTag("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateIdIsRejected() throws Exception {
+        mTagLayout.addTag(new TagItem(7, "a"));
+        mTagLayout.addTag(new TagItem(7, "b"));
+    }
+}
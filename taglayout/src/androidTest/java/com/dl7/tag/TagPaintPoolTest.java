@@ -0,0 +1,55 @@
+package com.dl7.tag;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * TagPaintPool 画笔共享测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagPaintPoolTest {
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        TagPaintPool.clear();
+    }
+
+    @Test
+    public void tagsWithSameStyleSharePaints() throws Exception {
+        TagLayout tagLayout = new TagLayout(mContext);
+        tagLayout.addTag("first");
+        int poolSize = TagPaintPool.size();
+        int paintCount = TagPaintPool.getPaintCount();
+
+        for (int i = 0; i < 200; i++) {
+            tagLayout.addTag("tag" + i);
+        }
+
+        assertEquals(poolSize, TagPaintPool.size());
+        assertEquals(paintCount, TagPaintPool.getPaintCount());
+    }
+
+    @Test
+    public void editViewSharesTagViewPaints() throws Exception {
+        TagLayout tagLayout = new TagLayout(mContext);
+        tagLayout.addTag("first");
+        TagEditView editView = new TagEditView(mContext);
+        int missCount = TagPaintPool.getMissCount();
+
+        editView.setTagStyle(tagLayout.getTagStyle());
+
+        assertSame(tagLayout.getTagStyle(), editView.getTagStyle());
+        assertEquals(missCount, TagPaintPool.getMissCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.dl7.tag;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TagView 绘制和测量过程不创建对象
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagViewAllocationTest {
+
+    private static final int DRAW_COUNT = 300;
+
+    private TagView mTagView;
+    private Canvas mCanvas;
+    private int mWidthSpec;
+    private int mHeightSpec;
+
+    @Before
+    public void setUp() throws Exception {
+        mTagView = new TagView(InstrumentationRegistry.getTargetContext(), "allocation free tag");
+        mTagView.setTextColorChecked(Color.RED);
+        mTagView.setDecorateIconLazy(new ColorDrawable(Color.BLACK));
+        mWidthSpec = View.MeasureSpec.makeMeasureSpec(120, View.MeasureSpec.AT_MOST);
+        mHeightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        mTagView.measure(mWidthSpec, mHeightSpec);
+        mTagView.layout(0, 0, mTagView.getMeasuredWidth(), mTagView.getMeasuredHeight());
+        mCanvas = new Canvas(Bitmap.createBitmap(200, 100, Bitmap.Config.ARGB_8888));
+        // 预热，两种选中状态都先绘制一次
+        _measureAndDraw(true);
+        _measureAndDraw(false);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void drawAndMeasureDoNotAllocate() throws Exception {
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < DRAW_COUNT; i++) {
+            _measureAndDraw((i & 1) == 0);
+        }
+        Debug.stopAllocCounting();
+
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    private void _measureAndDraw(boolean checked) {
+        mTagView.setCheckedLazy(checked);
+        mTagView.onMeasure(mWidthSpec, mHeightSpec);
+        mTagView.onDraw(mCanvas);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dl7.tag;
+
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagView 属性变化合并刷新测试，大小不变时不引起父布局重新布局
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagViewDirtyFlushTest {
+
+    @Test
+    public void fixedWidthCheckAndColorDoNotRelayout() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                TagLayout tagLayout = _createTagLayout();
+                tagLayout.setFitTagNum(2);
+                _measureAndLayout(tagLayout);
+                TagView tagView = (TagView) tagLayout.getChildAt(0);
+                int requestCount = tagLayout.getLayoutRequestCount();
+
+                tagView.setChecked(true);
+                tagView.setBgColor(Color.RED);
+                tagView.setBorderColor(Color.BLUE);
+                tagView.setTextColor(Color.GREEN);
+                tagView.flushPendingUpdates();
+                assertEquals(requestCount, tagLayout.getLayoutRequestCount());
+
+                tagView.setChecked(false);
+                tagView.flushPendingUpdates();
+                assertEquals(requestCount, tagLayout.getLayoutRequestCount());
+                assertTrue(!tagLayout.isLayoutRequested());
+            }
+        });
+    }
+
+    @Test
+    public void textChangeRelayoutsAfterFlush() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                TagLayout tagLayout = _createTagLayout();
+                _measureAndLayout(tagLayout);
+                TagView tagView = (TagView) tagLayout.getChildAt(0);
+                int requestCount = tagLayout.getLayoutRequestCount();
+                int width = tagView.getMeasuredWidth();
+
+                // 同一帧内的多次变化在刷新时才处理
+                tagView.setText("a much longer tag");
+                tagView.setText("a much much longer tag");
+                assertEquals(requestCount, tagLayout.getLayoutRequestCount());
+
+                tagView.flushPendingUpdates();
+                assertEquals(requestCount + 1, tagLayout.getLayoutRequestCount());
+                _measureAndLayout(tagLayout);
+                assertTrue(tagView.getMeasuredWidth() > width);
+            }
+        });
+    }
+
+    private static TagLayout _createTagLayout() {
+        TagLayout tagLayout = new TagLayout(InstrumentationRegistry.getTargetContext());
+        for (int i = 0; i < 4; i++) {
+            tagLayout.addTag("tag" + i);
+        }
+        return tagLayout;
+    }
+
+    private static void _measureAndLayout(TagLayout tagLayout) {
+        tagLayout.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        tagLayout.layout(0, 0, tagLayout.getMeasuredWidth(), tagLayout.getMeasuredHeight());
+    }
+}
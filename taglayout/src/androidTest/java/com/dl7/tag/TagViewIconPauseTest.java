@@ -0,0 +1,51 @@
+package com.dl7.tag;
+
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.dl7.tag.drawable.RotateDrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 不可见时暂停动画图标测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagViewIconPauseTest {
+
+    @Test
+    public void detachedIconIsPausedWithoutCounting() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                int pausedCount = TagView.getPausedIconCount();
+                TagView tagView = new TagView(InstrumentationRegistry.getTargetContext(), "tag");
+                RotateDrawable icon = new RotateDrawable(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+                tagView.setDecorateIconLazy(icon);
+                assertTrue(tagView.hasAnimatedIcon());
+
+                // 没有添加到窗口，滚动到屏幕外时暂停，但不计入暂停数量，移除后不再使用的TagView不会一直占用计数
+                icon.start();
+                tagView.setIconOnScreen(false);
+                assertFalse(icon.isRunning());
+                assertEquals(pausedCount, TagView.getPausedIconCount());
+
+                // 暂停期间图标自己重新启动，会被再次停止
+                icon.start();
+                tagView.setIconOnScreen(true);
+                tagView.setIconOnScreen(false);
+                assertFalse(icon.isRunning());
+                assertEquals(pausedCount, TagView.getPausedIconCount());
+
+                tagView.setDecorateIconLazy(null);
+                assertEquals(pausedCount, TagView.getPausedIconCount());
+            }
+        });
+    }
+}
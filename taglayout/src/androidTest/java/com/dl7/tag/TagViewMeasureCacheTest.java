@@ -0,0 +1,51 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TagView 测量缓存测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagViewMeasureCacheTest {
+
+    private final int mWidthSpec = View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.AT_MOST);
+    private final int mHeightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    private TagView mTagView;
+
+    @Before
+    public void setUp() throws Exception {
+        mTagView = new TagView(InstrumentationRegistry.getTargetContext(), "tag");
+    }
+
+    @Test
+    public void sameSpecAndContentHitsCache() throws Exception {
+        mTagView.measure(mWidthSpec, mHeightSpec);
+        int width = mTagView.getMeasuredWidth();
+        mTagView.forceLayout();
+        mTagView.measure(mWidthSpec, mHeightSpec);
+
+        assertEquals(1, mTagView.getMeasureMissCount());
+        assertEquals(1, mTagView.getMeasureHitCount());
+        assertEquals(width, mTagView.getMeasuredWidth());
+    }
+
+    @Test
+    public void contentChangeMissesCache() throws Exception {
+        mTagView.measure(mWidthSpec, mHeightSpec);
+        int width = mTagView.getMeasuredWidth();
+        mTagView.setTextLazy("a much longer tag");
+        mTagView.forceLayout();
+        mTagView.measure(mWidthSpec, mHeightSpec);
+
+        assertEquals(2, mTagView.getMeasureMissCount());
+        assertEquals(true, mTagView.getMeasuredWidth() > width);
+    }
+}
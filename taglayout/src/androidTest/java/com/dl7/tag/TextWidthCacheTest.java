@@ -0,0 +1,118 @@
+package com.dl7.tag;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.dl7.tag.utils.TextWidthCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 文字宽度缓存的淘汰和 Key 区分测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class TextWidthCacheTest {
+
+    private static final String TEXT = "标签 tag";
+
+    private int mMaxSize;
+    private Paint mPaint;
+
+    @Before
+    public void setUp() throws Exception {
+        mMaxSize = TextWidthCache.getMaxSize();
+        TextWidthCache.clear();
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaint.setTextSize(30);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TextWidthCache.setMaxSize(mMaxSize);
+        TextWidthCache.clear();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        TextWidthCache.setMaxSize(3);
+        TextWidthCache.measureText(mPaint, "a");
+        TextWidthCache.measureText(mPaint, "b");
+        TextWidthCache.measureText(mPaint, "c");
+        // 访问过的 a 变为最近使用，添加 d 时移除 b
+        TextWidthCache.measureText(mPaint, "a");
+        TextWidthCache.measureText(mPaint, "d");
+        assertEquals(3, TextWidthCache.size());
+        assertEquals(1, TextWidthCache.getHitCount());
+
+        TextWidthCache.measureText(mPaint, "a");
+        assertEquals(2, TextWidthCache.getHitCount());
+        int missCount = TextWidthCache.getMissCount();
+        TextWidthCache.measureText(mPaint, "b");
+        assertEquals(missCount + 1, TextWidthCache.getMissCount());
+        assertEquals(3, TextWidthCache.size());
+
+        // 缩小上限时立即淘汰
+        TextWidthCache.setMaxSize(1);
+        assertEquals(1, TextWidthCache.size());
+    }
+
+    @Test
+    public void textSizeIsPartOfKey() throws Exception {
+        float width = _assertMiss(mPaint);
+        mPaint.setTextSize(60);
+        assertTrue(_assertMiss(mPaint) > width);
+    }
+
+    @Test
+    public void typefaceIsPartOfKey() throws Exception {
+        _assertMiss(mPaint);
+        mPaint.setTypeface(Typeface.MONOSPACE);
+        _assertMiss(mPaint);
+        mPaint.setTypeface(Typeface.create(Typeface.MONOSPACE, Typeface.BOLD));
+        _assertMiss(mPaint);
+    }
+
+    @Test
+    public void letterSpacingIsPartOfKey() throws Exception {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        float width = _assertMiss(mPaint);
+        mPaint.setLetterSpacing(0.5f);
+        assertTrue(_assertMiss(mPaint) > width);
+    }
+
+    @Test
+    public void textScaleAndFlagsArePartOfKey() throws Exception {
+        float width = _assertMiss(mPaint);
+        mPaint.setTextScaleX(2f);
+        assertTrue(_assertMiss(mPaint) > width);
+        mPaint.setTextScaleX(1f);
+        mPaint.setFakeBoldText(true);
+        _assertMiss(mPaint);
+        // 恢复后命中最开始的结果
+        mPaint.setFakeBoldText(false);
+        int hitCount = TextWidthCache.getHitCount();
+        assertEquals(width, TextWidthCache.measureText(mPaint, TEXT), 0);
+        assertEquals(hitCount + 1, TextWidthCache.getHitCount());
+    }
+
+    /**
+     * 测量一次，要求没有命中缓存，并且结果和直接测量一致
+     */
+    private static float _assertMiss(Paint paint) {
+        int missCount = TextWidthCache.getMissCount();
+        float width = TextWidthCache.measureText(paint, TEXT);
+        assertEquals(missCount + 1, TextWidthCache.getMissCount());
+        assertEquals(paint.measureText(TEXT), width, 0);
+        return width;
+    }
+}
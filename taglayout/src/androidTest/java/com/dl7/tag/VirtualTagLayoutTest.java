@@ -0,0 +1,76 @@
+package com.dl7.tag;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 虚拟化标签布局测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class VirtualTagLayoutTest {
+
+    @Test
+    public void recycledViewsShowBoundText() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                VirtualTagLayout tagLayout = new VirtualTagLayout(InstrumentationRegistry.getTargetContext());
+                // 固定列数时所有标签宽度一致，复用的TagView测量参数不变
+                tagLayout.setFitTagNum(2);
+                tagLayout.setTags(_createTags("tag", 200));
+                _measureAndLayout(tagLayout);
+                _assertBoundText(tagLayout);
+
+                // 滚动后滚出的TagView被复用到新的位置
+                tagLayout.scrollTo(0, tagLayout.getHeight() * 5);
+                _assertBoundText(tagLayout);
+                tagLayout.scrollTo(0, tagLayout.getHeight() * 2);
+                _assertBoundText(tagLayout);
+
+                // 重新设置数据后复用池中的TagView绑定新的文字
+                tagLayout.setTags(_createTags("new", 200));
+                _measureAndLayout(tagLayout);
+                _assertBoundText(tagLayout);
+            }
+        });
+    }
+
+    private static List<String> _createTags(String prefix, int count) {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // 穿插超长的标签，复用时裁剪状态也需要更新
+            tags.add(i % 3 == 0 ? prefix + i + " a very very very very very very long tag" : prefix + i);
+        }
+        return tags;
+    }
+
+    private static void _assertBoundText(VirtualTagLayout tagLayout) {
+        assertTrue(tagLayout.getChildCount() > 0);
+        for (int i = 0; i < tagLayout.getChildCount(); i++) {
+            TagView tagView = (TagView) tagLayout.getChildAt(i);
+            String text = tagLayout.getTagText(tagView.getLayoutPosition());
+            assertEquals(text, tagView.getText());
+            if (text.length() < 10) {
+                assertEquals(text, tagView.getShowText());
+            } else {
+                assertTrue(text.startsWith(tagView.getShowText()));
+            }
+        }
+    }
+
+    private static void _measureAndLayout(VirtualTagLayout tagLayout) {
+        tagLayout.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(300, View.MeasureSpec.EXACTLY));
+        tagLayout.layout(0, 0, tagLayout.getMeasuredWidth(), tagLayout.getMeasuredHeight());
+    }
+}
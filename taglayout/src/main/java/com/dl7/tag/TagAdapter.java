@@ -0,0 +1,202 @@
+package com.dl7.tag;
+
+import android.database.Observable;
+
+/**
+ * TagLayout 的数据适配器，数据变化时调用 notifyXxx() 通知 TagLayout 只更新受影响的 TagView
+ */
+public abstract class TagAdapter {
+
+    // 只有文字变化，不需要重新设置样式和图标
+    public static final Object PAYLOAD_TEXT = new Object();
+
+    private final AdapterDataObservable mObservable = new AdapterDataObservable();
+    private boolean mHasStableIds;
+
+    /**
+     * 获取数量
+     *
+     * @return
+     */
+    public abstract int getItemCount();
+
+    /**
+     * 获取对应位置的文字
+     *
+     * @param position
+     * @return
+     */
+    public abstract String getText(int position);
+
+    /**
+     * 获取对应位置的 id，返回 {@link TagItem#NO_ID} 时由 TagLayout 自动分配
+     * {@link #hasStableIds()} 为 true 时需要返回唯一且不随位置变化的 id，为 false 时不使用，id 由 TagLayout 自动分配
+     *
+     * @param position
+     * @return
+     */
+    public long getItemId(int position) {
+        return TagItem.NO_ID;
+    }
+
+    /**
+     * id 是否稳定，稳定时 {@link #notifyDataSetChanged()} 按 id 比较新旧数据，否则按文字比较
+     *
+     * @return
+     */
+    public final boolean hasStableIds() {
+        return mHasStableIds;
+    }
+
+    /**
+     * 设置 id 是否稳定，需要在设置给 TagLayout 之前调用
+     *
+     * @param hasStableIds
+     */
+    public void setHasStableIds(boolean hasStableIds) {
+        if (mObservable.hasObservers()) {
+            throw new IllegalStateException("Cannot change whether this adapter has stable IDs while the adapter "
+                    + "has registered observers.");
+        }
+        mHasStableIds = hasStableIds;
+    }
+
+    /**
+     * 获取对应位置的图标
+     *
+     * @param position
+     * @return 没有图标返回 {@link TagView#INVALID_VALUE}
+     */
+    public int getIconResId(int position) {
+        return TagView.INVALID_VALUE;
+    }
+
+    /**
+     * 自定义绑定，在 TagLayout 设置好文字和样式之后调用
+     *
+     * @param tagView  TagView
+     * @param position 位置
+     * @param payload  局部更新的数据，完整绑定时为 null
+     */
+    public void onBindTagView(TagView tagView, int position, Object payload) {
+    }
+
+    /**
+     * ==================================== 数据变化通知 ====================================
+     */
+
+    public void registerAdapterDataObserver(AdapterDataObserver observer) {
+        mObservable.registerObserver(observer);
+    }
+
+    public void unregisterAdapterDataObserver(AdapterDataObserver observer) {
+        mObservable.unregisterObserver(observer);
+    }
+
+    /**
+     * 数据整体变化，TagLayout 会和当前的 Tag 做差异比较，保留下来的 Tag 也会重新绑定
+     */
+    public void notifyDataSetChanged() {
+        mObservable.notifyChanged();
+    }
+
+    public void notifyItemChanged(int position) {
+        mObservable.notifyItemRangeChanged(position, 1, null);
+    }
+
+    public void notifyItemChanged(int position, Object payload) {
+        mObservable.notifyItemRangeChanged(position, 1, payload);
+    }
+
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        mObservable.notifyItemRangeChanged(positionStart, itemCount, null);
+    }
+
+    /**
+     * 局部更新
+     *
+     * @param positionStart 起始位置
+     * @param itemCount     数量
+     * @param payload       局部更新的数据，{@link #PAYLOAD_TEXT} 表示只更新文字
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        mObservable.notifyItemRangeChanged(positionStart, itemCount, payload);
+    }
+
+    public void notifyItemInserted(int position) {
+        mObservable.notifyItemRangeInserted(position, 1);
+    }
+
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+        mObservable.notifyItemRangeInserted(positionStart, itemCount);
+    }
+
+    public void notifyItemRemoved(int position) {
+        mObservable.notifyItemRangeRemoved(position, 1);
+    }
+
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        mObservable.notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        mObservable.notifyItemMoved(fromPosition, toPosition);
+    }
+
+    /**
+     * 数据变化观察者
+     */
+    public abstract static class AdapterDataObserver {
+        public void onChanged() {
+        }
+
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+        }
+
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+        }
+
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+        }
+
+        public void onItemMoved(int fromPosition, int toPosition) {
+        }
+    }
+
+    private static class AdapterDataObservable extends Observable<AdapterDataObserver> {
+
+        boolean hasObservers() {
+            return !mObservers.isEmpty();
+        }
+
+        void notifyChanged() {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onChanged();
+            }
+        }
+
+        void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeChanged(positionStart, itemCount, payload);
+            }
+        }
+
+        void notifyItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        void notifyItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+
+        void notifyItemMoved(int fromPosition, int toPosition) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemMoved(fromPosition, toPosition);
+            }
+        }
+    }
+}
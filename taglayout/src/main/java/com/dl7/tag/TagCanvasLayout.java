@@ -0,0 +1,741 @@
+package com.dl7.tag;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import com.dl7.tag.layout.FlowLayoutEngine;
+import com.dl7.tag.layout.TagSelection;
+import com.dl7.tag.utils.MeasureUtils;
+import com.dl7.tag.utils.TextEllipsizer;
+import com.dl7.tag.utils.TextWidthCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个 View 绘制所有标签，不创建子视图，适合只读的大量标签展示
+ * 标签只保存文字、样式索引和宽度等基本数据，位置由 FlowLayoutEngine 的行表给出，
+ * 所有标签共用同一组 Paint 在 onDraw() 中绘制，点击、长按和选中通过行表做碰撞检测
+ * 属性和 TagLayout 一致，但不支持编辑、换一换模式和图标
+ */
+public class TagCanvasLayout extends View {
+
+    // 省略号
+    private static final String ELLIPSIS = "...";
+    // 样式中每个颜色的偏移，每个样式占用 STYLE_SIZE 个颜色
+    private static final int STYLE_BG = 0;
+    private static final int STYLE_BORDER = 1;
+    private static final int STYLE_TEXT = 2;
+    private static final int STYLE_BG_CHECKED = 3;
+    private static final int STYLE_BORDER_CHECKED = 4;
+    private static final int STYLE_TEXT_CHECKED = 5;
+    private static final int STYLE_SIZE = 6;
+
+    // 填充、边框和文字画笔，所有标签共用
+    private Paint mFillPaint;
+    private Paint mStrokePaint;
+    private Paint mTextPaint;
+    // 背景色
+    private int mBgColor;
+    // 边框颜色
+    private int mBorderColor;
+    // 边框大小
+    private float mBorderWidth;
+    // 边框角半径
+    private float mRadius;
+    // Tag之间的垂直间隙
+    private int mVerticalInterval;
+    // Tag之间的水平间隙
+    private int mHorizontalInterval;
+    // 边框矩形
+    private RectF mRect;
+
+    private float mTagBorderWidth;
+    private float mTagTextSize;
+    private float mTagRadius;
+    private int mTagHorizontalPadding;
+    private int mTagVerticalPadding;
+    private int mTagShape;
+    private int mFitTagNum;
+    private boolean mIsPressFeedback;
+    private int mTagMode;
+    private boolean mIsHorizontalReverse;
+    private boolean mIsBalancedLines;
+    // 遮罩颜色
+    private int mScrimColor = Color.argb(0x66, 0xc0, 0xc0, 0xc0);
+    private TagView.OnTagClickListener mTagClickListener;
+    private TagView.OnTagLongClickListener mTagLongClickListener;
+    private TagView.OnTagCheckListener mTagCheckListener;
+
+    // 样式颜色表，第0个样式为属性设置的默认样式
+    private int[] mStyleColors = new int[STYLE_SIZE];
+    private int mStyleCount;
+
+    // 标签数据，以数组形式保存
+    private int mTagCount;
+    private String[] mTexts = new String[16];
+    private int[] mStyleIndexes = new int[16];
+    // 文字宽度，数据变化时才测量
+    private int[] mTextWidths = new int[16];
+    // 显示的字符数，不需要裁剪时为 -1
+    private int[] mTextEnds = new int[16];
+    // 裁剪文字时使用的字符宽度前缀和缓冲区
+    private float[] mClipWidths;
+    // 显示的文字宽度，裁剪时包含省略号
+    private int[] mShowWidths = new int[16];
+    // 标签宽高
+    private int[] mTagWidths = new int[16];
+    private int[] mTagHeights = new int[16];
+    private TagSelection mTagSelection = new TagSelection();
+    // 前 mMeasuredTextCount 个文字宽度有效
+    private int mMeasuredTextCount;
+    private int mTagHeight;
+    private int mFontHeight;
+    private float mBaseLineDistance;
+    private int mEllipsisWidth;
+    // 上次计算布局的可用宽度，数据变化时置为无效值
+    private int mLayoutAvailableWidth = TagView.INVALID_VALUE;
+    private FlowLayoutEngine mLayoutEngine = new FlowLayoutEngine();
+
+    // 绘制时复用的对象
+    private final Rect mClipRect = new Rect();
+    private final RectF mTagRect = new RectF();
+
+    // 触摸控制
+    private int mPressedIndex = TagView.INVALID_VALUE;
+    private boolean mIsLongPressed;
+    private final Runnable mLongPressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mPressedIndex != TagView.INVALID_VALUE) {
+                mIsLongPressed = true;
+                if (mTagLongClickListener != null) {
+                    mTagLongClickListener.onTagLongClick(mPressedIndex, mTexts[mPressedIndex], mTagMode);
+                }
+            }
+        }
+    };
+
+
+    public TagCanvasLayout(Context context) {
+        this(context, null);
+    }
+
+    public TagCanvasLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, -1);
+    }
+
+    public TagCanvasLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        _init(context, attrs);
+    }
+
+    private void _init(Context context, AttributeSet attrs) {
+        mFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mFillPaint.setStyle(Paint.Style.FILL);
+        mStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mStrokePaint.setStyle(Paint.Style.STROKE);
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mRect = new RectF();
+        mTagTextSize = MeasureUtils.sp2px(context, 13.0f);
+
+        int tagBgColor;
+        int tagBorderColor;
+        int tagTextColor;
+        int tagBgColorCheck;
+        int tagBorderColorCheck;
+        int tagTextColorCheck;
+        final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TagLayout);
+        try {
+            mTagMode = a.getInteger(R.styleable.TagLayout_tag_layout_mode, TagView.MODE_NORMAL);
+            mTagShape = a.getInteger(R.styleable.TagLayout_tag_layout_shape, TagView.SHAPE_ROUND_RECT);
+            mIsPressFeedback = a.getBoolean(R.styleable.TagLayout_tag_layout_press_feedback, false);
+            mFitTagNum = a.getInteger(R.styleable.TagLayout_tag_layout_fit_num, TagView.INVALID_VALUE);
+            mBgColor = a.getColor(R.styleable.TagLayout_tag_layout_bg_color, Color.WHITE);
+            mBorderColor = a.getColor(R.styleable.TagLayout_tag_layout_border_color, Color.WHITE);
+            mBorderWidth = a.getDimension(R.styleable.TagLayout_tag_layout_border_width, MeasureUtils.dp2px(context, 0.5f));
+            mRadius = a.getDimension(R.styleable.TagLayout_tag_layout_border_radius, MeasureUtils.dp2px(context, 5f));
+            mHorizontalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_horizontal_interval, MeasureUtils.dp2px(context, 5f));
+            mVerticalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_vertical_interval, MeasureUtils.dp2px(context, 5f));
+
+            tagBgColor = a.getColor(R.styleable.TagLayout_tag_view_bg_color, Color.WHITE);
+            tagBorderColor = a.getColor(R.styleable.TagLayout_tag_view_border_color, Color.parseColor("#ff333333"));
+            tagTextColor = a.getColor(R.styleable.TagLayout_tag_view_text_color, Color.parseColor("#ff666666"));
+            if (mIsPressFeedback || mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagTextColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagTextColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, Color.WHITE);
+            } else {
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagBgColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagBorderColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, tagTextColor);
+            }
+            mTagBorderWidth = a.getDimension(R.styleable.TagLayout_tag_view_border_width, MeasureUtils.dp2px(context, 0.5f));
+            mTagTextSize = a.getDimension(R.styleable.TagLayout_tag_view_text_size, mTagTextSize);
+            mTagRadius = a.getDimension(R.styleable.TagLayout_tag_view_border_radius, MeasureUtils.dp2px(context, 5f));
+            mTagHorizontalPadding = (int) a.getDimension(R.styleable.TagLayout_tag_view_horizontal_padding, MeasureUtils.dp2px(context, 5f));
+            mTagVerticalPadding = (int) a.getDimension(R.styleable.TagLayout_tag_view_vertical_padding, MeasureUtils.dp2px(context, 5f));
+            mIsHorizontalReverse = a.getBoolean(R.styleable.TagLayout_tag_layout_horizontal_reverse, false);
+            mIsBalancedLines = a.getBoolean(R.styleable.TagLayout_tag_layout_balanced_lines, false);
+        } finally {
+            a.recycle();
+        }
+        if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+            mIsPressFeedback = true;
+        }
+        mTagSelection.setSingleChoice(mTagMode == TagView.MODE_SINGLE_CHOICE);
+        setPadding(mHorizontalInterval, mVerticalInterval, mHorizontalInterval, mVerticalInterval);
+        mStrokePaint.setStrokeWidth(mTagBorderWidth);
+        addTagStyle(tagBgColor, tagBorderColor, tagTextColor, tagBgColorCheck, tagBorderColorCheck, tagTextColorCheck);
+        _updateTextMetrics();
+    }
+
+    /**
+     * 根据字体大小计算标签高度和基线偏移，计算方式和 TagView 保持一致
+     */
+    private void _updateTextMetrics() {
+        mTextPaint.setTextSize(mTagTextSize);
+        final Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        mFontHeight = (int) (fontMetrics.descent - fontMetrics.ascent);
+        mBaseLineDistance = (int) Math.ceil((fontMetrics.descent - fontMetrics.ascent) / 2 - fontMetrics.descent);
+        mTagHeight = mFontHeight + mTagVerticalPadding * 2;
+        mEllipsisWidth = (int) TextWidthCache.measureText(mTextPaint, ELLIPSIS);
+    }
+
+    /**
+     * ==================================== 测量和绘制 ====================================
+     */
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthSpecSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightSpecSize = MeasureSpec.getSize(heightMeasureSpec);
+        int heightSpecMode = MeasureSpec.getMode(heightMeasureSpec);
+        _computeGeometry(widthSpecSize - getPaddingLeft() - getPaddingRight());
+        if (mTagCount == 0) {
+            setMeasuredDimension(0, 0);
+        } else if (heightSpecMode == MeasureSpec.UNSPECIFIED || heightSpecMode == MeasureSpec.AT_MOST) {
+            setMeasuredDimension(widthSpecSize, mLayoutEngine.getContentHeight() + getPaddingTop() + getPaddingBottom());
+        } else {
+            setMeasuredDimension(widthSpecSize, heightSpecSize);
+        }
+    }
+
+    /**
+     * 计算所有标签的大小和位置
+     *
+     * @param availableWidth 可用宽度
+     */
+    private void _computeGeometry(int availableWidth) {
+        if (availableWidth == mLayoutAvailableWidth && mMeasuredTextCount == mTagCount) {
+            return;
+        }
+        // 只测量还没有缓存宽度的文字
+        for (int i = mMeasuredTextCount; i < mTagCount; i++) {
+            mTextWidths[i] = (int) TextWidthCache.measureText(mTextPaint, mTexts[i]);
+        }
+        mMeasuredTextCount = mTagCount;
+        final int allPadding = mTagHorizontalPadding * 2;
+        for (int i = 0; i < mTagCount; i++) {
+            // 和 TagLayout 一致，除不尽的像素分给前面的列
+            int width = mFitTagNum > 0
+                    ? FlowLayoutEngine.getFitColumnWidth(availableWidth, mFitTagNum, mHorizontalInterval, i % mFitTagNum)
+                    : Math.min(mTextWidths[i] + allPadding, availableWidth);
+            mTagWidths[i] = width;
+            mTagHeights[i] = mTagHeight;
+            if (mTextWidths[i] + allPadding > width) {
+                // 显示不下的文字用省略号结尾，和 TagView 一样预留省略号的宽度
+                float maxTextWidth = width - allPadding - mEllipsisWidth;
+                mClipWidths = TextEllipsizer.obtainBuffer(mClipWidths, mTexts[i].length());
+                int textEnd = maxTextWidth > 0 ? TextEllipsizer.ellipsize(mTextPaint, mTexts[i], maxTextWidth, mClipWidths) : 0;
+                mTextEnds[i] = textEnd;
+                mShowWidths[i] = (int) (textEnd > 0 ? mClipWidths[textEnd] : 0) + mEllipsisWidth;
+            } else {
+                mTextEnds[i] = TagView.INVALID_VALUE;
+                mShowWidths[i] = mTextWidths[i];
+            }
+        }
+        mLayoutEngine.setHorizontalInterval(mHorizontalInterval);
+        mLayoutEngine.setVerticalInterval(mVerticalInterval);
+        mLayoutEngine.setHorizontalReverse(mIsHorizontalReverse);
+        // 固定列数时每行的标签数已经确定，不做均衡换行
+        mLayoutEngine.setBalancedLines(mIsBalancedLines && mFitTagNum <= 0);
+        mLayoutEngine.compute(mTagWidths, mTagHeights, mTagCount, availableWidth);
+        mLayoutAvailableWidth = availableWidth;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mRect.set(mBorderWidth, mBorderWidth, w - mBorderWidth, h - mBorderWidth);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        // 绘制背景
+        mFillPaint.setColor(mBgColor);
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mFillPaint);
+        // 绘制边框
+        mStrokePaint.setStrokeWidth(mBorderWidth);
+        mStrokePaint.setColor(mBorderColor);
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mStrokePaint);
+        mStrokePaint.setStrokeWidth(mTagBorderWidth);
+        if (mTagCount == 0 || mLayoutEngine.getChildCount() != mTagCount) {
+            return;
+        }
+        // 只绘制和裁剪区域相交的行
+        canvas.getClipBounds(mClipRect);
+        final int paddingLeft = getPaddingLeft();
+        final int paddingTop = getPaddingTop();
+        int firstLine = Math.max(mLayoutEngine.findLineAt(mClipRect.top - paddingTop), 0);
+        int lastLine = mLayoutEngine.findLineAt(mClipRect.bottom - paddingTop);
+        int end = mLayoutEngine.getLineEnd(lastLine);
+        for (int i = mLayoutEngine.getLineStart(firstLine); i < end; i++) {
+            float left = paddingLeft + mLayoutEngine.getChildLeft(i);
+            float top = paddingTop + mLayoutEngine.getChildTop(i);
+            _drawTag(canvas, i, left, top);
+        }
+    }
+
+    /**
+     * 绘制单个标签，和 TagView.onDraw() 的逻辑一致
+     */
+    private void _drawTag(Canvas canvas, int index, float left, float top) {
+        final int width = mTagWidths[index];
+        final int height = mTagHeights[index];
+        mTagRect.set(left + mTagBorderWidth, top + mTagBorderWidth,
+                left + width - mTagBorderWidth, top + height - mTagBorderWidth);
+        final float radius = TagView.getShapeRadius(mTagShape, mTagRadius, mTagRect);
+        final boolean isPressed = index == mPressedIndex;
+        final boolean isTagChecked = mTagSelection.isChecked(index);
+        final boolean isChecked = (isPressed && mIsPressFeedback) || isTagChecked;
+        final int styleOffset = mStyleIndexes[index] * STYLE_SIZE;
+        // 绘制背景
+        mFillPaint.setColor(mStyleColors[styleOffset + (isChecked ? STYLE_BG_CHECKED : STYLE_BG)]);
+        canvas.drawRoundRect(mTagRect, radius, radius, mFillPaint);
+        // 绘制边框
+        mStrokePaint.setColor(mStyleColors[styleOffset + (isChecked ? STYLE_BORDER_CHECKED : STYLE_BORDER)]);
+        canvas.drawRoundRect(mTagRect, radius, radius, mStrokePaint);
+        // 绘制文字
+        mTextPaint.setColor(mStyleColors[styleOffset + (isChecked ? STYLE_TEXT_CHECKED : STYLE_TEXT)]);
+        final String text = mTexts[index];
+        final int textEnd = mTextEnds[index];
+        final float baseLine = top + height / 2 + mBaseLineDistance;
+        final float textLeft = left + (width - mShowWidths[index]) / 2;
+        if (textEnd == TagView.INVALID_VALUE) {
+            canvas.drawText(text, textLeft, baseLine, mTextPaint);
+        } else {
+            canvas.drawText(text, 0, textEnd, textLeft, baseLine, mTextPaint);
+            canvas.drawText(ELLIPSIS, textLeft + mShowWidths[index] - mEllipsisWidth, baseLine, mTextPaint);
+        }
+        // 绘制半透明遮罩
+        if (isPressed && (isTagChecked || !mIsPressFeedback)) {
+            mFillPaint.setColor(mScrimColor);
+            canvas.drawRoundRect(mTagRect, radius, radius, mFillPaint);
+        }
+    }
+
+    /**
+     * ==================================== 触摸点击控制 ====================================
+     */
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedIndex = findTagAt(event.getX(), event.getY());
+                if (mPressedIndex == TagView.INVALID_VALUE) {
+                    return false;
+                }
+                mIsLongPressed = false;
+                postDelayed(mLongPressRunnable, ViewConfiguration.getLongPressTimeout());
+                _invalidateTag(mPressedIndex);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (mPressedIndex != TagView.INVALID_VALUE && findTagAt(event.getX(), event.getY()) != mPressedIndex) {
+                    _cancelPress();
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mPressedIndex != TagView.INVALID_VALUE) {
+                    int index = mPressedIndex;
+                    boolean isLongPressed = mIsLongPressed;
+                    _cancelPress();
+                    if (!isLongPressed) {
+                        _performTagClick(index);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                _cancelPress();
+                break;
+        }
+        return true;
+    }
+
+    private void _cancelPress() {
+        removeCallbacks(mLongPressRunnable);
+        if (mPressedIndex != TagView.INVALID_VALUE) {
+            int index = mPressedIndex;
+            mPressedIndex = TagView.INVALID_VALUE;
+            _invalidateTag(index);
+        }
+    }
+
+    private void _performTagClick(int index) {
+        playSoundEffect(SoundEffectConstants.CLICK);
+        if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+            setChecked(index, !mTagSelection.isChecked(index));
+        }
+        if (mTagClickListener != null) {
+            mTagClickListener.onTagClick(index, mTexts[index], mTagMode);
+        }
+    }
+
+    /**
+     * 查找坐标下的标签
+     *
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @return 标签位置，没有找到返回 INVALID_VALUE
+     */
+    public int findTagAt(float x, float y) {
+        if (mTagCount == 0 || mLayoutEngine.getChildCount() != mTagCount) {
+            return TagView.INVALID_VALUE;
+        }
+        int contentX = (int) x - getPaddingLeft();
+        int contentY = (int) y - getPaddingTop();
+        int line = mLayoutEngine.findLineAt(contentY);
+        if (line < 0 || contentY < mLayoutEngine.getLineTop(line)) {
+            return TagView.INVALID_VALUE;
+        }
+        int end = mLayoutEngine.getLineEnd(line);
+        for (int i = mLayoutEngine.getLineStart(line); i < end; i++) {
+            int left = mLayoutEngine.getChildLeft(i);
+            int top = mLayoutEngine.getChildTop(i);
+            if (contentX >= left && contentX < left + mTagWidths[i]
+                    && contentY >= top && contentY < top + mTagHeights[i]) {
+                return i;
+            }
+        }
+        return TagView.INVALID_VALUE;
+    }
+
+    /**
+     * 获取标签在控件中的区域
+     *
+     * @param position  标签位置
+     * @param outBounds 保存结果
+     */
+    void getTagBounds(int position, Rect outBounds) {
+        int left = getPaddingLeft() + mLayoutEngine.getChildLeft(position);
+        int top = getPaddingTop() + mLayoutEngine.getChildTop(position);
+        outBounds.set(left, top, left + mTagWidths[position], top + mTagHeights[position]);
+    }
+
+    /**
+     * 获取显示的字符数，不需要裁剪时为 INVALID_VALUE
+     *
+     * @param position 标签位置
+     * @return
+     */
+    int getShowTextEnd(int position) {
+        return mTextEnds[position];
+    }
+
+    /**
+     * 只刷新单个标签所在的区域
+     */
+    private void _invalidateTag(int index) {
+        if (index < 0 || index >= mLayoutEngine.getChildCount()) {
+            return;
+        }
+        int left = getPaddingLeft() + mLayoutEngine.getChildLeft(index);
+        int top = getPaddingTop() + mLayoutEngine.getChildTop(index);
+        invalidate(left, top, left + mTagWidths[index], top + mTagHeights[index]);
+    }
+
+    /**
+     * ==================================== 选中状态 ====================================
+     */
+
+    public boolean isChecked(int position) {
+        return mTagSelection.isChecked(position);
+    }
+
+    /**
+     * 设置选中状态，单选模式下会清除之前的选中
+     *
+     * @param position 标签位置
+     * @param checked  是否选中
+     */
+    public void setChecked(int position, boolean checked) {
+        if (position < 0 || position >= mTagCount || mTagSelection.isChecked(position) == checked) {
+            return;
+        }
+        int unchecked = mTagSelection.setChecked(position, checked);
+        if (unchecked != TagSelection.INVALID_POSITION) {
+            _invalidateTag(unchecked);
+        }
+        _invalidateTag(position);
+        if (mTagCheckListener != null) {
+            mTagCheckListener.onTagCheck(position, mTexts[position], checked);
+        }
+    }
+
+    /**
+     * get checked tags
+     *
+     * @return
+     */
+    public List<String> getCheckedTags() {
+        List<String> checkTags = new ArrayList<>();
+        for (int i = mTagSelection.nextChecked(0); i != TagSelection.INVALID_POSITION;
+             i = mTagSelection.nextChecked(i + 1)) {
+            checkTags.add(mTexts[i]);
+        }
+        return checkTags;
+    }
+
+    /**
+     * check all tags, only for multi choice mode
+     */
+    public void checkAllTags() {
+        if (mTagMode != TagView.MODE_MULTI_CHOICE) {
+            return;
+        }
+        mTagSelection.checkAll(mTagCount);
+        invalidate();
+    }
+
+    /**
+     * clean all checked status
+     */
+    public void cleanCheckedTags() {
+        if (mTagSelection.getCheckedCount() == 0) {
+            return;
+        }
+        mTagSelection.clear();
+        invalidate();
+    }
+
+    /**
+     * ==================================== 添加/删除Tag ====================================
+     */
+
+    /**
+     * 添加样式
+     *
+     * @return 样式索引，添加标签时使用
+     */
+    public int addTagStyle(int bgColor, int borderColor, int textColor,
+                           int bgColorChecked, int borderColorChecked, int textColorChecked) {
+        int offset = mStyleCount * STYLE_SIZE;
+        if (mStyleColors.length < offset + STYLE_SIZE) {
+            mStyleColors = Arrays.copyOf(mStyleColors, mStyleColors.length * 2);
+        }
+        mStyleColors[offset + STYLE_BG] = bgColor;
+        mStyleColors[offset + STYLE_BORDER] = borderColor;
+        mStyleColors[offset + STYLE_TEXT] = textColor;
+        mStyleColors[offset + STYLE_BG_CHECKED] = bgColorChecked;
+        mStyleColors[offset + STYLE_BORDER_CHECKED] = borderColorChecked;
+        mStyleColors[offset + STYLE_TEXT_CHECKED] = textColorChecked;
+        return mStyleCount++;
+    }
+
+    /**
+     * add Tag
+     *
+     * @param text tag content
+     */
+    public void addTag(String text) {
+        addTag(text, 0);
+    }
+
+    /**
+     * add Tag
+     *
+     * @param text       tag content
+     * @param styleIndex 由 addTagStyle() 返回的样式索引
+     */
+    public void addTag(String text, int styleIndex) {
+        _addTagLazy(text, styleIndex);
+        _onDataChanged();
+    }
+
+    private void _addTagLazy(String text, int styleIndex) {
+        if (styleIndex < 0 || styleIndex >= mStyleCount) {
+            throw new IllegalArgumentException("Invalid style index: " + styleIndex);
+        }
+        if (mTexts.length == mTagCount) {
+            int size = mTagCount * 2;
+            mTexts = Arrays.copyOf(mTexts, size);
+            mStyleIndexes = Arrays.copyOf(mStyleIndexes, size);
+            mTextWidths = Arrays.copyOf(mTextWidths, size);
+            mTextEnds = Arrays.copyOf(mTextEnds, size);
+            mShowWidths = Arrays.copyOf(mShowWidths, size);
+            mTagWidths = Arrays.copyOf(mTagWidths, size);
+            mTagHeights = Arrays.copyOf(mTagHeights, size);
+        }
+        mTexts[mTagCount] = text == null ? "" : text;
+        mStyleIndexes[mTagCount] = styleIndex;
+        mTagCount++;
+    }
+
+    /**
+     * add Tags
+     *
+     * @param textList tag list
+     */
+    public void addTags(List<String> textList) {
+        for (String text : textList) {
+            _addTagLazy(text, 0);
+        }
+        _onDataChanged();
+    }
+
+    /**
+     * add Tags
+     *
+     * @param textList tag list
+     */
+    public void addTags(String... textList) {
+        addTags(Arrays.asList(textList));
+    }
+
+    /**
+     * set Tags
+     *
+     * @param textList tag list
+     */
+    public void setTags(List<String> textList) {
+        _cleanTagsLazy();
+        addTags(textList);
+    }
+
+    /**
+     * set Tags
+     *
+     * @param textList tag list
+     */
+    public void setTags(String... textList) {
+        setTags(Arrays.asList(textList));
+    }
+
+    /**
+     * clean Tags
+     */
+    public void cleanTags() {
+        _cleanTagsLazy();
+        _onDataChanged();
+    }
+
+    private void _cleanTagsLazy() {
+        Arrays.fill(mTexts, 0, mTagCount, null);
+        mTagCount = 0;
+        mMeasuredTextCount = 0;
+        mTagSelection.clear();
+        _cancelPress();
+    }
+
+    public int getTagCount() {
+        return mTagCount;
+    }
+
+    public String getTagText(int position) {
+        return mTexts[position];
+    }
+
+    private void _onDataChanged() {
+        mLayoutAvailableWidth = TagView.INVALID_VALUE;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 标签大小或换行方式变化，文字宽度不变，只重新计算大小和位置
+     */
+    private void _onGeometryChanged() {
+        _cancelPress();
+        _onDataChanged();
+    }
+
+    /**
+     * ==================================== 设置属性 ====================================
+     */
+
+    public void setTagTextSize(float tagTextSize) {
+        mTagTextSize = tagTextSize;
+        _updateTextMetrics();
+        mMeasuredTextCount = 0;
+        _onDataChanged();
+    }
+
+    public void setTagHorizontalPadding(int tagHorizontalPadding) {
+        mTagHorizontalPadding = tagHorizontalPadding;
+        _onGeometryChanged();
+    }
+
+    public void setTagVerticalPadding(int tagVerticalPadding) {
+        mTagVerticalPadding = tagVerticalPadding;
+        _updateTextMetrics();
+        _onGeometryChanged();
+    }
+
+    public void setFitTagNum(int fitTagNum) {
+        mFitTagNum = fitTagNum;
+        _onGeometryChanged();
+    }
+
+    public void setHorizontalReverse(boolean horizontalReverse) {
+        mIsHorizontalReverse = horizontalReverse;
+        _onGeometryChanged();
+    }
+
+    /**
+     * 设置模式，只支持 normal、single_choice 和 multi_choice，会清除选中状态
+     *
+     * @param tagMode
+     */
+    public void setTagMode(int tagMode) {
+        mTagMode = tagMode;
+        if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+            mIsPressFeedback = true;
+        }
+        mTagSelection.clear();
+        mTagSelection.setSingleChoice(mTagMode == TagView.MODE_SINGLE_CHOICE);
+        invalidate();
+    }
+
+    public void setTagShape(@TagView.TagShape int tagShape) {
+        mTagShape = tagShape;
+        invalidate();
+    }
+
+    public void setTagClickListener(TagView.OnTagClickListener tagClickListener) {
+        mTagClickListener = tagClickListener;
+    }
+
+    public void setTagLongClickListener(TagView.OnTagLongClickListener tagLongClickListener) {
+        mTagLongClickListener = tagLongClickListener;
+    }
+
+    public void setTagCheckListener(TagView.OnTagCheckListener tagCheckListener) {
+        mTagCheckListener = tagCheckListener;
+    }
+
+    public void setScrimColor(int scrimColor) {
+        mScrimColor = scrimColor;
+    }
+}
@@ -3,50 +3,31 @@ package com.dl7.tag;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.DashPathEffect;
-import android.graphics.Paint;
-import android.graphics.PathEffect;
 import android.graphics.RectF;
 import android.text.TextUtils;
 import android.text.method.ArrowKeyMovementMethod;
 import android.util.AttributeSet;
+import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.KeyEvent;
-import android.view.ViewParent;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.TextView;
 
 import com.dl7.tag.utils.MeasureUtils;
 
-import static com.dl7.tag.TagView.INVALID_VALUE;
-import static com.dl7.tag.TagView.SHAPE_ARC;
-import static com.dl7.tag.TagView.SHAPE_RECT;
-import static com.dl7.tag.TagView.SHAPE_ROUND_RECT;
-
 /**
  * Created by long on 2017/4/21.
  */
 
 public class TagEditView extends TextView {
 
-    private Paint mBorderPaint;
-    // 虚线路径
-    private PathEffect mPathEffect = new DashPathEffect(new float[]{10, 5}, 0);
+    // 样式，可以和 TagView 共享
+    private TagStyle mStyle;
+    // 样式对应的共享画笔，边框使用虚线画笔
+    private TagPaintPool.TagPaints mPaints;
     // 边框矩形
     private RectF mRect;
-    // 边框大小
-    private float mBorderWidth;
-    // 显示外形
-    private int mTagShape = SHAPE_ROUND_RECT;
-    // 边框角半径
-    private float mRadius;
-    // 边框颜色
-    private int mBorderColor;
-    // 字体水平空隙
-    private int mHorizontalPadding;
-    // 字体垂直空隙
-    private int mVerticalPadding;
 
     public TagEditView(Context context) {
         super(context);
@@ -59,16 +40,17 @@ public class TagEditView extends TextView {
     }
 
     private void _init(Context context) {
-        mHorizontalPadding = (int) MeasureUtils.dp2px(context, 5f);
-        mVerticalPadding = (int) MeasureUtils.dp2px(context, 5f);
-        setPadding(mHorizontalPadding, mVerticalPadding, mHorizontalPadding, mVerticalPadding);
         mRect = new RectF();
-        mBorderColor = Color.parseColor("#ff333333");
-        mBorderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mBorderPaint.setStyle(Paint.Style.STROKE);
-        mBorderPaint.setColor(mBorderColor);
-        mBorderWidth = MeasureUtils.dp2px(context, 0.5f);
-        mRadius = MeasureUtils.dp2px(context, 5f);
+        mStyle = new TagStyle.Builder()
+                .setHorizontalPadding((int) MeasureUtils.dp2px(context, 5f))
+                .setVerticalPadding((int) MeasureUtils.dp2px(context, 5f))
+                .setBorderColor(Color.parseColor("#ff333333"))
+                .setBorderWidth(MeasureUtils.dp2px(context, 0.5f))
+                .setRadius(MeasureUtils.dp2px(context, 5f))
+                .build();
+        mPaints = TagPaintPool.obtain(mStyle);
+        setPadding(mStyle.getHorizontalPadding(), mStyle.getVerticalPadding(),
+                mStyle.getHorizontalPadding(), mStyle.getVerticalPadding());
         // 设置字体占中
         setGravity(Gravity.CENTER);
         _initEditMode();
@@ -83,33 +65,14 @@ public class TagEditView extends TextView {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         // 设置矩形边框
-        mRect.set(mBorderWidth, mBorderWidth, w - mBorderWidth, h - mBorderWidth);
-    }
-
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        ViewParent parent = getParent();
-        if (parent instanceof TagLayout) {
-            int fitTagNum = ((TagLayout) getParent()).getFitTagNum();
-            if (fitTagNum != INVALID_VALUE) {
-                int availableWidth = ((TagLayout) getParent()).getAvailableWidth();
-                int horizontalInterval = ((TagLayout) getParent()).getHorizontalInterval();
-                int fitWidth = (availableWidth - (fitTagNum - 1) * horizontalInterval) / fitTagNum;
-                widthMeasureSpec = MeasureSpec.makeMeasureSpec(fitWidth, MeasureSpec.EXACTLY);
-            }
-        }
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        final float borderWidth = mStyle.getBorderWidth();
+        mRect.set(borderWidth, borderWidth, w - borderWidth, h - borderWidth);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        float radius = mRadius;
-        if (mTagShape == SHAPE_ARC) {
-            radius = mRect.height() / 2;
-        } else if (mTagShape == SHAPE_RECT) {
-            radius = 0;
-        }
-        canvas.drawRoundRect(mRect, radius, radius, mBorderPaint);
+        float radius = TagView.getShapeRadius(mStyle.getTagShape(), mStyle.getRadius(), mRect);
+        canvas.drawRoundRect(mRect, radius, radius, mPaints.getDashPaint());
         super.onDraw(canvas);
     }
 
@@ -121,7 +84,6 @@ public class TagEditView extends TextView {
         setFocusable(true);
         setFocusableInTouchMode(true);
         setHint("添加标签");
-        mBorderPaint.setPathEffect(mPathEffect);
         setHintTextColor(Color.parseColor("#ffaaaaaa"));
         setMovementMethod(ArrowKeyMovementMethod.getInstance());
         requestFocus();
@@ -171,27 +133,55 @@ public class TagEditView extends TextView {
      * ==================================== 开放接口 ====================================
      */
 
+    public TagStyle getTagStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 设置样式，使用样式的边框、圆角、间距和字体大小，不修改文字颜色
+     *
+     * @param style 共享的样式
+     */
+    public void setTagStyle(TagStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("TagStyle can not be null");
+        }
+        if (mStyle == style) {
+            return;
+        }
+        TagStyle oldStyle = mStyle;
+        mStyle = style;
+        mPaints = TagPaintPool.obtain(style);
+        if (oldStyle.getBorderWidth() != style.getBorderWidth()) {
+            final float borderWidth = style.getBorderWidth();
+            mRect.set(borderWidth, borderWidth, getWidth() - borderWidth, getHeight() - borderWidth);
+        }
+        setPadding(style.getHorizontalPadding(), style.getVerticalPadding(),
+                style.getHorizontalPadding(), style.getVerticalPadding());
+        if (style.getTextSize() > 0 && style.getTextSize() != getTextSize()) {
+            setTextSize(TypedValue.COMPLEX_UNIT_PX, style.getTextSize());
+        }
+        invalidate();
+    }
+
     public void setBorderColor(int borderColor) {
-        mBorderColor = borderColor;
-        mBorderPaint.setColor(mBorderColor);
+        setTagStyle(new TagStyle.Builder(mStyle).setBorderColor(borderColor).build());
     }
 
     public void setBorderWidth(float borderWidth) {
-        mBorderWidth = borderWidth;
+        setTagStyle(new TagStyle.Builder(mStyle).setBorderWidth(borderWidth).build());
     }
 
     public void setRadius(float radius) {
-        mRadius = radius;
+        setTagStyle(new TagStyle.Builder(mStyle).setRadius(radius).build());
     }
 
     public void setHorizontalPadding(int horizontalPadding) {
-        mHorizontalPadding = horizontalPadding;
-        setPadding(mHorizontalPadding, mVerticalPadding, mHorizontalPadding, mVerticalPadding);
+        setTagStyle(new TagStyle.Builder(mStyle).setHorizontalPadding(horizontalPadding).build());
     }
 
     public void setVerticalPadding(int verticalPadding) {
-        mVerticalPadding = verticalPadding;
-        setPadding(mHorizontalPadding, mVerticalPadding, mHorizontalPadding, mVerticalPadding);
+        setTagStyle(new TagStyle.Builder(mStyle).setVerticalPadding(verticalPadding).build());
     }
 
     @Override
@@ -0,0 +1,79 @@
+package com.dl7.tag;
+
+/**
+ * Tag数据，id 在所属的 TagLayout 中唯一，不会随位置变化
+ */
+public class TagItem {
+
+    // 没有指定 id，添加到 TagLayout 时自动分配
+    public static final long NO_ID = -1;
+
+    private long mId = NO_ID;
+    // 内容
+    private String mText;
+    // 装饰的icon资源
+    private int mIconResId = TagView.INVALID_VALUE;
+    // 是否选中
+    private boolean mIsChecked;
+    // 附加数据
+    private Object mPayload;
+
+    public TagItem(String text) {
+        mText = text;
+    }
+
+    public TagItem(long id, String text) {
+        mId = id;
+        mText = text;
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    void setId(long id) {
+        mId = id;
+    }
+
+    public String getText() {
+        return mText;
+    }
+
+    void setText(String text) {
+        mText = text;
+    }
+
+    public int getIconResId() {
+        return mIconResId;
+    }
+
+    /**
+     * 设置icon，需要在添加到 TagLayout 之前设置
+     *
+     * @param iconResId
+     */
+    public void setIconResId(int iconResId) {
+        mIconResId = iconResId;
+    }
+
+    public boolean isChecked() {
+        return mIsChecked;
+    }
+
+    /**
+     * 设置初始选中状态，添加到 TagLayout 之后由 TagLayout 更新
+     *
+     * @param checked
+     */
+    public void setChecked(boolean checked) {
+        mIsChecked = checked;
+    }
+
+    public Object getPayload() {
+        return mPayload;
+    }
+
+    public void setPayload(Object payload) {
+        mPayload = payload;
+    }
+}
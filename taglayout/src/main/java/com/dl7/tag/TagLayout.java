@@ -2,20 +2,36 @@ package com.dl7.tag;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.support.v4.content.ContextCompat;
+import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.SparseBooleanArray;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 
+import com.dl7.tag.layout.FlowLayoutEngine;
+import com.dl7.tag.layout.ListDiff;
+import com.dl7.tag.layout.TagSelection;
 import com.dl7.tag.utils.ColorsFactory;
+import com.dl7.tag.utils.IconCache;
+import com.dl7.tag.utils.IconLoader;
 import com.dl7.tag.utils.MeasureUtils;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 
@@ -43,29 +59,36 @@ public class TagLayout extends ViewGroup {
     // 可用的最大宽度
     private int mAvailableWidth;
 
-    private int mTagBgColor;
-    private int mTagBorderColor;
-    private int mTagTextColor;
-    private int mTagBgColorCheck;
-    private int mTagBorderColorCheck;
-    private int mTagTextColorCheck;
-    private float mTagBorderWidth;
-    private float mTagTextSize;
-    private float mTagRadius;
-    private int mTagHorizontalPadding;
-    private int mTagVerticalPadding;
+    // TagView 共享的样式
+    private TagStyle mTagStyle;
     private TagView.OnTagClickListener mTagClickListener;
     private TagView.OnTagLongClickListener mTagLongClickListener;
     private TagView.OnTagCheckListener mTagCheckListener;
     private TagView.OnTagCheckListener mInsideTagCheckListener;
+    private OnTagItemClickListener mTagItemClickListener;
+    private OnTagItemLongClickListener mTagItemLongClickListener;
+    private OnTagItemCheckListener mTagItemCheckListener;
     // 这个用来保存设置监听器之前的TagView
     private List<TagView> mTagViews = new ArrayList<>();
-    private SparseBooleanArray mCheckSparseArray = new SparseBooleanArray();
+    // mTagViews 中 [0, mValidPositionCount) 的 TagView 保存的位置有效，增删和移动时从变化的位置开始失效，
+    // 查询时再重新编号，回调监听器时获取位置不需要遍历
+    private int mValidPositionCount;
+    // id 到 TagView 的索引，TagView 的 tag 保存对应的 TagItem
+    private HashMap<Long, TagView> mIdViewMap = new HashMap<>();
+    // 文字到 TagView 的索引，文字相同的按添加顺序保存
+    private HashMap<String, List<TagView>> mTextViewMap = new HashMap<>();
+    // 下一个自动分配的 id
+    private long mNextId;
+    // 数据适配器
+    private TagAdapter mAdapter;
+    private TagAdapterObserver mAdapterObserver = new TagAdapterObserver();
+    // 选中状态，按 mTagViews 中的位置保存
+    private TagSelection mTagSelection = new TagSelection();
     // 显示模式
-    private int mTagShape;
     private int mFitTagNum;
-    private int mIconPadding;
     private boolean mIsPressFeedback;
+    // TagView 动画图标的最大帧率，0 表示不限制
+    private int mTagIconMaxFps;
     // 显示类型
     private int mTagMode;
     // 固定状态的TagView
@@ -75,7 +98,75 @@ public class TagLayout extends ViewGroup {
     private boolean mEnableRandomColor;
     // 是否反转水平布局
     private boolean mIsHorizontalReverse;
-
+    // 是否均衡换行
+    private boolean mIsBalancedLines;
+    // 最大行数，超出的标签折叠为"+N"溢出标签，INVALID_VALUE 表示不限制
+    private int mMaxLines = TagView.INVALID_VALUE;
+    // 是否展开全部标签
+    private boolean mIsExpanded;
+    // 折叠时显示的子视图数量，后面的子视图不测量、不布局也不绘制
+    private int mVisibleChildCount;
+    // 折叠的子视图数量，大于0时显示溢出标签
+    private int mOverflowCount;
+    // 溢出标签，不作为子视图添加，由TagLayout测量、布局和绘制
+    private TagView mOverflowView;
+    private boolean mIsOverflowPressed;
+    // 换行计算引擎
+    private FlowLayoutEngine mLayoutEngine = new FlowLayoutEngine();
+    // 子视图测量宽高，在多次测量之间复用
+    private int[] mChildWidths = new int[0];
+    private int[] mChildHeights = new int[0];
+    // 上次测量时的子视图，用来找出需要重新测量的子视图
+    private View[] mMeasuredChildren = new View[0];
+    private int mMeasuredChildCount;
+    // 上次的测量条件，发生变化时需要重新测量所有子视图
+    private boolean mIsMeasured;
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+    private int mLastFitTagNum;
+    private int mLastHorizontalInterval;
+    // 固定每行数量时每一列的宽度测量规格，每次测量计算一次
+    private int[] mFitWidthSpecs = new int[0];
+    // 除不尽的像素分给前面的列，此时列宽不完全相同
+    private boolean mIsFitWidthUneven;
+    // 批量操作的嵌套深度，大于0时合并布局请求
+    private int mBatchDepth;
+    // 批量操作期间是否有布局请求
+    private boolean mIsLayoutPending;
+    // 实际发出的布局请求次数
+    private int mLayoutRequestCount;
+    // 计算TagView可见区域使用
+    private Rect mVisibleRect = new Rect();
+    // 滚动时更新TagView是否在屏幕内，不在屏幕内的动画图标会暂停
+    private ViewTreeObserver.OnScrollChangedListener mScrollChangedListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            _updateTagsOnScreen();
+        }
+    };
+    // 转发点击事件，同时回调位置和 TagItem 的监听器
+    private TagView.OnTagClickListener mInsideTagClickListener = new TagView.OnTagClickListener() {
+        @Override
+        public void onTagClick(int position, String text, @TagView.TagMode int tagMode) {
+            if (mTagClickListener != null) {
+                mTagClickListener.onTagClick(position, text, tagMode);
+            }
+            if (mTagItemClickListener != null) {
+                mTagItemClickListener.onTagItemClick(_getTagItem(position));
+            }
+        }
+    };
+    private TagView.OnTagLongClickListener mInsideTagLongClickListener = new TagView.OnTagLongClickListener() {
+        @Override
+        public void onTagLongClick(int position, String text, @TagView.TagMode int tagMode) {
+            if (mTagLongClickListener != null) {
+                mTagLongClickListener.onTagLongClick(position, text, tagMode);
+            }
+            if (mTagItemLongClickListener != null) {
+                mTagItemLongClickListener.onTagItemLongClick(_getTagItem(position));
+            }
+        }
+    };
 
     public TagLayout(Context context) {
         this(context, null);
@@ -93,12 +184,11 @@ public class TagLayout extends ViewGroup {
     private void _init(Context context, AttributeSet attrs, int defStyleAttr) {
         mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mRect = new RectF();
-        mTagTextSize = MeasureUtils.sp2px(context, 13.0f);
 
         final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TagLayout);
         try {
             mTagMode = a.getInteger(R.styleable.TagLayout_tag_layout_mode, TagView.MODE_NORMAL);
-            mTagShape = a.getInteger(R.styleable.TagLayout_tag_layout_shape, TagView.SHAPE_ROUND_RECT);
+            int tagShape = a.getInteger(R.styleable.TagLayout_tag_layout_shape, TagView.SHAPE_ROUND_RECT);
             mIsPressFeedback = a.getBoolean(R.styleable.TagLayout_tag_layout_press_feedback, false);
             mEnableRandomColor = a.getBoolean(R.styleable.TagLayout_tag_layout_random_color, false);
             mFitTagNum = a.getInteger(R.styleable.TagLayout_tag_layout_fit_num, TagView.INVALID_VALUE);
@@ -109,25 +199,38 @@ public class TagLayout extends ViewGroup {
             mHorizontalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_horizontal_interval, MeasureUtils.dp2px(context, 5f));
             mVerticalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_vertical_interval, MeasureUtils.dp2px(context, 5f));
 
-            mTagBgColor = a.getColor(R.styleable.TagLayout_tag_view_bg_color, Color.WHITE);
-            mTagBorderColor = a.getColor(R.styleable.TagLayout_tag_view_border_color, Color.parseColor("#ff333333"));
-            mTagTextColor = a.getColor(R.styleable.TagLayout_tag_view_text_color, Color.parseColor("#ff666666"));
+            int tagBgColor = a.getColor(R.styleable.TagLayout_tag_view_bg_color, Color.WHITE);
+            int tagBorderColor = a.getColor(R.styleable.TagLayout_tag_view_border_color, Color.parseColor("#ff333333"));
+            int tagTextColor = a.getColor(R.styleable.TagLayout_tag_view_text_color, Color.parseColor("#ff666666"));
+            int tagBgColorCheck, tagBorderColorCheck, tagTextColorCheck;
             if (mIsPressFeedback || mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
-                mTagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, mTagTextColor);
-                mTagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, mTagTextColor);
-                mTagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, Color.WHITE);
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagTextColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagTextColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, Color.WHITE);
             } else {
-                mTagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, mTagBgColor);
-                mTagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, mTagBorderColor);
-                mTagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, mTagTextColor);
-            }
-            mTagBorderWidth = a.getDimension(R.styleable.TagLayout_tag_view_border_width, MeasureUtils.dp2px(context, 0.5f));
-            mTagTextSize = a.getDimension(R.styleable.TagLayout_tag_view_text_size, mTagTextSize);
-            mTagRadius = a.getDimension(R.styleable.TagLayout_tag_view_border_radius, MeasureUtils.dp2px(context, 5f));
-            mTagHorizontalPadding = (int) a.getDimension(R.styleable.TagLayout_tag_view_horizontal_padding, MeasureUtils.dp2px(context, 5f));
-            mTagVerticalPadding = (int) a.getDimension(R.styleable.TagLayout_tag_view_vertical_padding, MeasureUtils.dp2px(context, 5f));
-            mIconPadding = (int) a.getDimension(R.styleable.TagLayout_tag_view_icon_padding, MeasureUtils.dp2px(context, 3f));
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagBgColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagBorderColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, tagTextColor);
+            }
+            mTagStyle = new TagStyle.Builder()
+                    .setTagShape(tagShape)
+                    .setBgColor(tagBgColor)
+                    .setBorderColor(tagBorderColor)
+                    .setTextColor(tagTextColor)
+                    .setBgColorChecked(tagBgColorCheck)
+                    .setBorderColorChecked(tagBorderColorCheck)
+                    .setTextColorChecked(tagTextColorCheck)
+                    .setBorderWidth(a.getDimension(R.styleable.TagLayout_tag_view_border_width, MeasureUtils.dp2px(context, 0.5f)))
+                    .setTextSize(a.getDimension(R.styleable.TagLayout_tag_view_text_size, MeasureUtils.sp2px(context, 13.0f)))
+                    .setRadius(a.getDimension(R.styleable.TagLayout_tag_view_border_radius, MeasureUtils.dp2px(context, 5f)))
+                    .setHorizontalPadding((int) a.getDimension(R.styleable.TagLayout_tag_view_horizontal_padding, MeasureUtils.dp2px(context, 5f)))
+                    .setVerticalPadding((int) a.getDimension(R.styleable.TagLayout_tag_view_vertical_padding, MeasureUtils.dp2px(context, 5f)))
+                    .setIconPadding((int) a.getDimension(R.styleable.TagLayout_tag_view_icon_padding, MeasureUtils.dp2px(context, 3f)))
+                    .build();
             mIsHorizontalReverse = a.getBoolean(R.styleable.TagLayout_tag_layout_horizontal_reverse, false);
+            mIsBalancedLines = a.getBoolean(R.styleable.TagLayout_tag_layout_balanced_lines, false);
+            mMaxLines = a.getInteger(R.styleable.TagLayout_tag_layout_max_lines, TagView.INVALID_VALUE);
+            mTagIconMaxFps = Math.max(a.getInteger(R.styleable.TagLayout_tag_view_icon_max_fps, 0), 0);
         } finally {
             a.recycle();
         }
@@ -136,27 +239,29 @@ public class TagLayout extends ViewGroup {
         setPadding(mHorizontalInterval, mVerticalInterval, mHorizontalInterval, mVerticalInterval);
         // 设置对应模式
         if (mTagMode == TagView.MODE_CHANGE) {
-            mFitTagView = _initTagView("换一换", TagView.MODE_CHANGE);
+            // 固定项不加入索引，id 为 TagItem.NO_ID
+            mFitTagView = _createTagView(new TagItem("换一换"), TagView.MODE_CHANGE);
+            mTagViews.add(mFitTagView);
             addView(mFitTagView);
         } else if (mTagMode == TagView.MODE_EDIT) {
             _initTagEditView();
             addView(mFitTagEditView);
         } else if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
             mIsPressFeedback = true;
+            mTagSelection.setSingleChoice(mTagMode == TagView.MODE_SINGLE_CHOICE);
             mInsideTagCheckListener = new TagView.OnTagCheckListener() {
                 @Override
                 public void onTagCheck(int position, String text, boolean isChecked) {
                     if (mTagCheckListener != null) {
                         mTagCheckListener.onTagCheck(position, text, isChecked);
                     }
-                    for (int i = 0; i < mTagViews.size(); i++) {
-                        if (mTagViews.get(i).getText().equals(text)) {
-                            mCheckSparseArray.put(i, isChecked);
-                        } else if (mTagMode == TagView.MODE_SINGLE_CHOICE && mCheckSparseArray.get(i)) {
-                            mTagViews.get(i).cleanTagCheckStatus();
-                            mCheckSparseArray.put(i, false);
-                        }
+                    TagItem item = _getTagItem(position);
+                    item.setChecked(isChecked);
+                    if (mTagItemCheckListener != null) {
+                        mTagItemCheckListener.onTagItemCheck(item, isChecked);
                     }
+                    // 单选时取消之前选中的Tag
+                    _uncheckTag(mTagSelection.setChecked(position, isChecked));
                 }
             };
         }
@@ -168,35 +273,41 @@ public class TagLayout extends ViewGroup {
         int widthSpecSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightSpecSize = MeasureSpec.getSize(heightMeasureSpec);
         int heightSpecMode = MeasureSpec.getMode(heightMeasureSpec);
-        // 计算可用宽度，为测量宽度减去左右padding值，这个放在measureChildren前面，在子视图中会用到这个参数
+        // 计算可用宽度，为测量宽度减去左右padding值
         mAvailableWidth = widthSpecSize - getPaddingLeft() - getPaddingRight();
-        // 测量子视图
-        measureChildren(widthMeasureSpec, heightMeasureSpec);
+        _computeFitWidthSpecs();
         int childCount = getChildCount();
-        int tmpWidth = 0;
-        int measureHeight = 0;
-        int maxLineHeight = 0;
-        for (int i = 0; i < childCount; i++) {
-            View child = getChildAt(i);
-            // 记录该行的最大高度
-            if (maxLineHeight == 0) {
-                maxLineHeight = child.getMeasuredHeight();
-            } else {
-                maxLineHeight = Math.max(maxLineHeight, child.getMeasuredHeight());
-            }
-            // 统计该行TagView的总宽度
-            tmpWidth += child.getMeasuredWidth() + mHorizontalInterval;
-            // 如果超过可用宽度则换行
-            if (tmpWidth - mHorizontalInterval > mAvailableWidth) {
-                // 统计TagGroup的测量高度，要加上垂直间隙
-                measureHeight += maxLineHeight + mVerticalInterval;
-                // 重新赋值
-                tmpWidth = child.getMeasuredWidth() + mHorizontalInterval;
-                maxLineHeight = child.getMeasuredHeight();
+        if (_isCollapsing()) {
+            // 超过最大行数后停止测量，只计算可见部分和溢出标签的换行
+            _measureCollapsed(widthMeasureSpec, heightMeasureSpec, childCount);
+            // 换行结果不包含折叠的子视图，展开后需要完整测量
+            mIsMeasured = false;
+        } else if (!mIsMeasured || widthMeasureSpec != mLastWidthMeasureSpec || heightMeasureSpec != mLastHeightMeasureSpec
+                || mFitTagNum != mLastFitTagNum || mHorizontalInterval != mLastHorizontalInterval) {
+            // 测量条件发生变化，测量所有子视图并完整地计算换行，测量规格没变的子视图在 measure() 中直接跳过
+            for (int i = 0; i < childCount; i++) {
+                View child = getChildAt(i);
+                if (child.getVisibility() != GONE) {
+                    _measureTagChild(child, i, widthMeasureSpec, heightMeasureSpec);
+                }
             }
+            _collectChildSizes(0, childCount);
+            _computeLines(childCount);
+            mIsMeasured = true;
+            mLastWidthMeasureSpec = widthMeasureSpec;
+            mLastHeightMeasureSpec = heightMeasureSpec;
+            mLastFitTagNum = mFitTagNum;
+            mLastHorizontalInterval = mHorizontalInterval;
+        } else {
+            // 只测量发生变化的子视图，并从变化的行开始计算换行
+            _measureChangedChildren(widthMeasureSpec, heightMeasureSpec, childCount);
+        }
+        if (!_isCollapsing()) {
+            _saveMeasuredChildren(childCount);
+            mVisibleChildCount = childCount;
+            mOverflowCount = 0;
         }
-        // 统计TagGroup的测量高度，加上最后一行
-        measureHeight += maxLineHeight;
+        int measureHeight = mLayoutEngine.getContentHeight();
 
         // 设置测量宽高，记得算上padding
         if (childCount == 0) {
@@ -208,6 +319,243 @@ public class TagLayout extends ViewGroup {
         }
     }
 
+    /**
+     * 对比上次测量时的子视图，头尾没有变化且没有请求重新布局的子视图直接复用上次的测量结果
+     *
+     * @param widthMeasureSpec  宽度测量规格
+     * @param heightMeasureSpec 高度测量规格
+     * @param childCount        子视图数量
+     */
+    private void _measureChangedChildren(int widthMeasureSpec, int heightMeasureSpec, int childCount) {
+        final int oldCount = mMeasuredChildCount;
+        final int minCount = Math.min(childCount, oldCount);
+        int dirtyStart = 0;
+        while (dirtyStart < minCount && _isChildUnchanged(dirtyStart, dirtyStart)) {
+            dirtyStart++;
+        }
+        int unchangedTail = 0;
+        while (unchangedTail < minCount - dirtyStart
+                && _isChildUnchanged(childCount - 1 - unchangedTail, oldCount - 1 - unchangedTail)) {
+            unchangedTail++;
+        }
+        if (mIsFitWidthUneven && (childCount - oldCount) % mFitTagNum != 0) {
+            // 各列宽度不同，数量变化后末尾子视图所在的列会改变，需要重新测量
+            unchangedTail = 0;
+        }
+        final int dirtyEnd = childCount - unchangedTail;
+        for (int i = dirtyStart; i < dirtyEnd; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                _measureTagChild(child, i, widthMeasureSpec, heightMeasureSpec);
+            }
+        }
+        // 末尾未变化的子视图宽高平移到新的位置，中间部分重新获取
+        _ensureChildSizeCapacity(childCount);
+        if (childCount != oldCount && unchangedTail > 0) {
+            System.arraycopy(mChildWidths, oldCount - unchangedTail, mChildWidths, dirtyEnd, unchangedTail);
+            System.arraycopy(mChildHeights, oldCount - unchangedTail, mChildHeights, dirtyEnd, unchangedTail);
+        }
+        _collectChildSizes(dirtyStart, dirtyEnd);
+        _applyEngineParams();
+        mLayoutEngine.compute(mChildWidths, mChildHeights, childCount, mAvailableWidth, dirtyStart, unchangedTail);
+    }
+
+    /**
+     * 是否按最大行数折叠
+     */
+    private boolean _isCollapsing() {
+        return mMaxLines > 0 && !mIsExpanded;
+    }
+
+    /**
+     * 按最大行数测量，超过最大行数的子视图不再测量，有折叠的子视图时在最后一行末尾放置溢出标签，
+     * 放不下时继续折叠最后一行末尾的子视图
+     *
+     * @param widthMeasureSpec  宽度测量规格
+     * @param heightMeasureSpec 高度测量规格
+     * @param childCount        子视图数量
+     */
+    private void _measureCollapsed(int widthMeasureSpec, int heightMeasureSpec, int childCount) {
+        _ensureChildSizeCapacity(childCount + 1);
+        int lineCount = 0;
+        int lineStart = 0;
+        int lineWidth = 0;
+        int visibleCount = childCount;
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                _measureTagChild(child, i, widthMeasureSpec, heightMeasureSpec);
+            }
+            final int width = child.getMeasuredWidth();
+            if (lineCount == 0 || lineWidth + mHorizontalInterval + width > mAvailableWidth) {
+                if (lineCount == mMaxLines) {
+                    visibleCount = i;
+                    break;
+                }
+                lineCount++;
+                lineStart = i;
+                lineWidth = width;
+            } else {
+                lineWidth += mHorizontalInterval + width;
+            }
+            mChildWidths[i] = width;
+            mChildHeights[i] = child.getMeasuredHeight();
+        }
+        int count = visibleCount;
+        if (visibleCount < childCount) {
+            while (true) {
+                mOverflowCount = childCount - visibleCount;
+                _measureOverflowView(visibleCount, heightMeasureSpec);
+                if (visibleCount == lineStart
+                        || lineWidth + mHorizontalInterval + mOverflowView.getMeasuredWidth() <= mAvailableWidth) {
+                    break;
+                }
+                visibleCount--;
+                lineWidth = visibleCount == lineStart ? 0 : lineWidth - mHorizontalInterval - mChildWidths[visibleCount];
+            }
+            mChildWidths[visibleCount] = mOverflowView.getMeasuredWidth();
+            mChildHeights[visibleCount] = mOverflowView.getMeasuredHeight();
+            count = visibleCount + 1;
+        } else {
+            mOverflowCount = 0;
+        }
+        mVisibleChildCount = visibleCount;
+        _computeLines(count);
+    }
+
+    /**
+     * 测量溢出标签，样式和普通标签一致，固定每行数量时使用所在列的宽度
+     *
+     * @param index             溢出标签在换行计算中的索引
+     * @param heightMeasureSpec 高度测量规格
+     */
+    private void _measureOverflowView(int index, int heightMeasureSpec) {
+        if (mOverflowView == null) {
+            mOverflowView = new TagView(getContext(), "");
+        }
+        mOverflowView.setTagStyleLazy(mTagStyle);
+        final String text = "+" + mOverflowCount;
+        if (!text.equals(mOverflowView.getText())) {
+            mOverflowView.setTextLazy(text);
+        }
+        final int widthSpec = mFitTagNum > 0 ? mFitWidthSpecs[index % mFitTagNum]
+                : MeasureSpec.makeMeasureSpec(Math.max(mAvailableWidth, 0), MeasureSpec.AT_MOST);
+        final int heightSpec = getChildMeasureSpec(heightMeasureSpec, getPaddingTop() + getPaddingBottom(),
+                LayoutParams.WRAP_CONTENT);
+        mOverflowView.measure(widthSpec, heightSpec);
+    }
+
+    /**
+     * 计算固定每行数量时每一列的宽度测量规格
+     */
+    private void _computeFitWidthSpecs() {
+        if (mFitTagNum <= 0) {
+            mIsFitWidthUneven = false;
+            return;
+        }
+        if (mFitWidthSpecs.length < mFitTagNum) {
+            mFitWidthSpecs = new int[mFitTagNum];
+        }
+        for (int i = 0; i < mFitTagNum; i++) {
+            int width = FlowLayoutEngine.getFitColumnWidth(mAvailableWidth, mFitTagNum, mHorizontalInterval, i);
+            mFitWidthSpecs[i] = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+        }
+        mIsFitWidthUneven = mFitWidthSpecs[0] != mFitWidthSpecs[mFitTagNum - 1];
+    }
+
+    /**
+     * 测量子视图，固定每行数量时宽度使用所在列的 EXACTLY 规格，子视图不需要再从父布局获取参数
+     *
+     * @param child             子视图
+     * @param index             子视图索引
+     * @param widthMeasureSpec  父布局的宽度测量规格
+     * @param heightMeasureSpec 父布局的高度测量规格
+     */
+    private void _measureTagChild(View child, int index, int widthMeasureSpec, int heightMeasureSpec) {
+        if (mFitTagNum <= 0) {
+            measureChild(child, widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        final LayoutParams lp = child.getLayoutParams();
+        final int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
+                getPaddingTop() + getPaddingBottom(), lp.height);
+        child.measure(mFitWidthSpecs[index % mFitTagNum], childHeightMeasureSpec);
+    }
+
+    /**
+     * 判断子视图和上次测量时相比是否没有变化
+     *
+     * @param index    当前索引
+     * @param oldIndex 上次测量时的索引
+     * @return
+     */
+    private boolean _isChildUnchanged(int index, int oldIndex) {
+        View child = getChildAt(index);
+        return child == mMeasuredChildren[oldIndex] && !child.isLayoutRequested();
+    }
+
+    /**
+     * 保存这次测量的子视图，用于下次测量时对比
+     *
+     * @param childCount 子视图数量
+     */
+    private void _saveMeasuredChildren(int childCount) {
+        if (mMeasuredChildren.length < childCount) {
+            mMeasuredChildren = new View[childCount * 2];
+        }
+        for (int i = 0; i < childCount; i++) {
+            mMeasuredChildren[i] = getChildAt(i);
+        }
+        for (int i = childCount; i < mMeasuredChildCount; i++) {
+            mMeasuredChildren[i] = null;
+        }
+        mMeasuredChildCount = childCount;
+    }
+
+    private void _ensureChildSizeCapacity(int childCount) {
+        if (mChildWidths.length < childCount) {
+            int[] widths = new int[childCount * 2];
+            int[] heights = new int[childCount * 2];
+            System.arraycopy(mChildWidths, 0, widths, 0, mChildWidths.length);
+            System.arraycopy(mChildHeights, 0, heights, 0, mChildHeights.length);
+            mChildWidths = widths;
+            mChildHeights = heights;
+        }
+    }
+
+    /**
+     * 获取子视图的测量宽高
+     *
+     * @param start 起始索引
+     * @param end   结束索引(不包含)
+     */
+    private void _collectChildSizes(int start, int end) {
+        _ensureChildSizeCapacity(end);
+        for (int i = start; i < end; i++) {
+            View child = getChildAt(i);
+            mChildWidths[i] = child.getMeasuredWidth();
+            mChildHeights[i] = child.getMeasuredHeight();
+        }
+    }
+
+    private void _applyEngineParams() {
+        mLayoutEngine.setHorizontalInterval(mHorizontalInterval);
+        mLayoutEngine.setVerticalInterval(mVerticalInterval);
+        mLayoutEngine.setHorizontalReverse(mIsHorizontalReverse);
+        // 固定列数时每行的标签数已经确定，列宽按列计算，不做均衡换行
+        mLayoutEngine.setBalancedLines(mIsBalancedLines && mFitTagNum <= 0);
+    }
+
+    /**
+     * 完整地计算换行
+     *
+     * @param childCount 子视图数量
+     */
+    private void _computeLines(int childCount) {
+        _applyEngineParams();
+        mLayoutEngine.compute(mChildWidths, mChildHeights, childCount, mAvailableWidth);
+    }
+
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
         int childCount = getChildCount();
@@ -216,54 +564,116 @@ public class TagLayout extends ViewGroup {
         }
 
         mAvailableWidth = getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
-        // 当前布局使用的top坐标
-        int curTop = getPaddingTop();
-        // 当前布局使用的left坐标
-        int curLeft;
-        final int maxRight = mAvailableWidth + getPaddingLeft();
-        if (mIsHorizontalReverse) {
-            curLeft = maxRight;
-        } else {
-            curLeft = getPaddingLeft();
+        // 正常情况下onMeasure()已经计算好了，这里只在数据不一致时重新计算
+        if (_isCollapsing()) {
+            final int lineChildCount = mOverflowCount > 0 ? mVisibleChildCount + 1 : childCount;
+            if (mLayoutEngine.getChildCount() != lineChildCount || mLayoutEngine.getAvailableWidth() != mAvailableWidth) {
+                _computeFitWidthSpecs();
+                _measureCollapsed(MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), childCount);
+            }
+        } else if (mLayoutEngine.getChildCount() != childCount || mLayoutEngine.getAvailableWidth() != mAvailableWidth) {
+            _collectChildSizes(0, childCount);
+            _computeLines(childCount);
+            mVisibleChildCount = childCount;
+            mOverflowCount = 0;
         }
-        int maxHeight = 0;
-        for (int i = 0; i < childCount; i++) {
+        final int paddingLeft = getPaddingLeft();
+        final int paddingTop = getPaddingTop();
+        final int visibleCount = Math.min(mVisibleChildCount, childCount);
+        for (int i = 0; i < visibleCount; i++) {
             View child = getChildAt(i);
-
-            if (maxHeight == 0) {
-                maxHeight = child.getMeasuredHeight();
-            } else {
-                maxHeight = Math.max(maxHeight, child.getMeasuredHeight());
-            }
-
-            int width = child.getMeasuredWidth();
-            int height = child.getMeasuredHeight();
-            // 超过一行做换行操作
-            if (mIsHorizontalReverse) {
-                curLeft -= width;
-                if (getPaddingLeft() > curLeft) {
-                    curLeft = maxRight - width;
-                    curLeft = Math.max(curLeft, getPaddingLeft());
-                    // 计算top坐标，要加上垂直间隙
-                    curTop += maxHeight + mVerticalInterval;
-                    maxHeight = child.getMeasuredHeight();
-                }
-                // 设置子视图布局
-                child.layout(curLeft, curTop, curLeft + width, curTop + height);
-                curLeft -= mHorizontalInterval;
-            } else {
-                if (width + curLeft > maxRight) {
-                    curLeft = getPaddingLeft();
-                    // 计算top坐标，要加上垂直间隙
-                    curTop += maxHeight + mVerticalInterval;
-                    maxHeight = child.getMeasuredHeight();
+            int left = paddingLeft + mLayoutEngine.getChildLeft(i);
+            int top = paddingTop + mLayoutEngine.getChildTop(i);
+            // 设置子视图布局
+            child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+        }
+        for (int i = visibleCount; i < childCount; i++) {
+            // 折叠的子视图只把已有的区域清空，不会绘制也不会响应点击
+            View child = getChildAt(i);
+            if (child.getRight() > child.getLeft() || child.getBottom() > child.getTop()) {
+                final boolean isLayoutRequested = child.isLayoutRequested();
+                child.layout(0, 0, 0, 0);
+                if (isLayoutRequested) {
+                    // 保留重新测量的请求，展开时不会使用过期的测量结果
+                    child.forceLayout();
                 }
-                // 设置子视图布局
-                child.layout(curLeft, curTop, curLeft + width, curTop + height);
-                // 计算left坐标，要加上水平间隙
-                curLeft += width + mHorizontalInterval;
             }
         }
+        if (mOverflowCount > 0) {
+            int left = paddingLeft + mLayoutEngine.getChildLeft(visibleCount);
+            int top = paddingTop + mLayoutEngine.getChildTop(visibleCount);
+            mOverflowView.layout(left, top, left + mOverflowView.getMeasuredWidth(), top + mOverflowView.getMeasuredHeight());
+        }
+        _updateTagsOnScreen();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnScrollChangedListener(mScrollChangedListener);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        getViewTreeObserver().removeOnScrollChangedListener(mScrollChangedListener);
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * 更新有动画图标的TagView是否在屏幕内
+     */
+    private void _updateTagsOnScreen() {
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            View child = getChildAt(i);
+            if (child instanceof TagView && ((TagView) child).hasAnimatedIcon()) {
+                ((TagView) child).setIconOnScreen(child.getGlobalVisibleRect(mVisibleRect));
+            }
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mOverflowCount > 0) {
+            canvas.save();
+            canvas.translate(mOverflowView.getLeft(), mOverflowView.getTop());
+            mOverflowView.draw(canvas);
+            canvas.restore();
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mOverflowCount > 0) {
+            final int x = (int) event.getX();
+            final int y = (int) event.getY();
+            final boolean isInOverflow = x >= mOverflowView.getLeft() && x < mOverflowView.getRight()
+                    && y >= mOverflowView.getTop() && y < mOverflowView.getBottom();
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    mIsOverflowPressed = isInOverflow;
+                    break;
+                case MotionEvent.ACTION_UP:
+                    if (mIsOverflowPressed) {
+                        mIsOverflowPressed = false;
+                        if (isInOverflow) {
+                            // 点击溢出标签展开全部标签
+                            playSoundEffect(SoundEffectConstants.CLICK);
+                            setExpanded(true);
+                        }
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    mIsOverflowPressed = false;
+                    break;
+            }
+            if (mIsOverflowPressed) {
+                return true;
+            }
+        }
+        return super.onTouchEvent(event);
     }
 
     @Override
@@ -338,6 +748,67 @@ public class TagLayout extends ViewGroup {
         mHorizontalInterval = horizontalInterval;
     }
 
+    public boolean isBalancedLines() {
+        return mIsBalancedLines;
+    }
+
+    /**
+     * 设置均衡换行，在行数最少的前提下让每行的宽度尽量接近，不改变标签顺序
+     * 设置了固定列数(tag_layout_fit_num)时不生效，每行固定显示对应数量的标签
+     *
+     * @param balancedLines
+     */
+    public void setBalancedLines(boolean balancedLines) {
+        if (mIsBalancedLines != balancedLines) {
+            mIsBalancedLines = balancedLines;
+            requestLayout();
+        }
+    }
+
+    public int getMaxLines() {
+        return mMaxLines;
+    }
+
+    /**
+     * 设置最大行数，超出的标签折叠并在最后一行显示"+N"标签，点击后展开
+     *
+     * @param maxLines 最大行数，小于等于0时不限制
+     */
+    public void setMaxLines(int maxLines) {
+        if (maxLines <= 0) {
+            maxLines = TagView.INVALID_VALUE;
+        }
+        if (mMaxLines != maxLines) {
+            mMaxLines = maxLines;
+            requestLayout();
+        }
+    }
+
+    public boolean isExpanded() {
+        return mIsExpanded;
+    }
+
+    /**
+     * 展开或折叠超过最大行数的标签，已经测量过的标签直接使用上次的测量结果
+     *
+     * @param expanded
+     */
+    public void setExpanded(boolean expanded) {
+        if (mIsExpanded != expanded) {
+            mIsExpanded = expanded;
+            requestLayout();
+        }
+    }
+
+    /**
+     * 获取折叠的标签数量
+     *
+     * @return 没有折叠时返回0
+     */
+    public int getOverflowCount() {
+        return mOverflowCount;
+    }
+
     protected int getAvailableWidth() {
         return mAvailableWidth;
     }
@@ -358,146 +829,336 @@ public class TagLayout extends ViewGroup {
         mFitTagEditView = new TagEditView(getContext());
         if (mEnableRandomColor) {
             int[] color = ColorsFactory.provideColor();
-            mFitTagEditView.setBorderColor(color[0]);
+            mFitTagEditView.setTagStyle(new TagStyle.Builder(mTagStyle).setBorderColor(color[0]).build());
             mFitTagEditView.setTextColor(color[1]);
         } else {
-            mFitTagEditView = new TagEditView(getContext());
-            mFitTagEditView.setBorderColor(mTagBorderColor);
-            mFitTagEditView.setTextColor(mTagTextColor);
-        }
-        mFitTagEditView.setBorderWidth(mTagBorderWidth);
-        mFitTagEditView.setRadius(mTagRadius);
-        mFitTagEditView.setHorizontalPadding(mTagHorizontalPadding);
-        mFitTagEditView.setVerticalPadding(mTagVerticalPadding);
-        mFitTagEditView.setTextSize(MeasureUtils.px2sp(getContext(), mTagTextSize));
+            // 和 TagView 共享样式和画笔
+            mFitTagEditView.setTagStyle(mTagStyle);
+            mFitTagEditView.setTextColor(mTagStyle.getTextColor());
+        }
         mFitTagEditView.updateView();
     }
 
-    private TagView _initTagView(String text, @TagView.TagMode int tagMode) {
-        TagView tagView = new TagView(getContext(), text);
-        if (mEnableRandomColor) {
-            _setTagRandomColors(tagView);
-        } else {
-            tagView.setBgColorLazy(mTagBgColor);
-            tagView.setBorderColorLazy(mTagBorderColor);
-            tagView.setTextColorLazy(mTagTextColor);
-            tagView.setBgColorCheckedLazy(mTagBgColorCheck);
-            tagView.setBorderColorCheckedLazy(mTagBorderColorCheck);
-            tagView.setTextColorCheckedLazy(mTagTextColorCheck);
-        }
-        tagView.setBorderWidthLazy(mTagBorderWidth);
-        tagView.setRadiusLazy(mTagRadius);
-        tagView.setTextSizeLazy(mTagTextSize);
-        tagView.setHorizontalPaddingLazy(mTagHorizontalPadding);
-        tagView.setVerticalPaddingLazy(mTagVerticalPadding);
+    private TagView _initTagView(TagItem item, @TagView.TagMode int tagMode) {
+        TagView tagView = _createTagView(item, tagMode);
+        _bindTagItem(tagView, item);
+        mTagViews.add(tagView);
+        return tagView;
+    }
+
+    private TagView _createTagView(TagItem item, @TagView.TagMode int tagMode) {
+        TagView tagView = new TagView(getContext(), item.getText());
+        tagView.setTagItem(item);
+        tagView.setTagStyleLazy(mEnableRandomColor ? _createRandomStyle() : mTagStyle);
         tagView.setPressFeedback(mIsPressFeedback);
-        tagView.setTagClickListener(mTagClickListener);
-        tagView.setTagLongClickListener(mTagLongClickListener);
+        tagView.setIconMaxFps(mTagIconMaxFps);
+        tagView.setTagClickListener(mInsideTagClickListener);
+        tagView.setTagLongClickListener(mInsideTagLongClickListener);
         tagView.setTagCheckListener(mInsideTagCheckListener);
-        tagView.setTagShapeLazy(mTagShape);
         tagView.setTagModeLazy(tagMode);
-        tagView.setIconPaddingLazy(mIconPadding);
+        if (item.getIconResId() != TagView.INVALID_VALUE) {
+            _loadIcon(tagView, item.getIconResId());
+        }
+        if (mInsideTagCheckListener != null && item.isChecked()) {
+            tagView.setCheckedLazy(true);
+        } else {
+            item.setChecked(false);
+        }
         tagView.updateView();
-        mTagViews.add(tagView);
-        tagView.setTag(mTagViews.size() - 1);
         return tagView;
     }
 
-    private void _setTagRandomColors(TagView tagView) {
+    /**
+     * 设置TagView样式，不刷新界面，随机颜色只在创建时设置
+     */
+    private void _applyTagStyle(TagView tagView) {
+        if (!mEnableRandomColor) {
+            tagView.setTagStyleLazy(mTagStyle);
+        }
+        tagView.setPressFeedback(mIsPressFeedback);
+        tagView.setIconMaxFps(mTagIconMaxFps);
+    }
+
+    /**
+     * 替换共享样式，所有TagView只替换样式引用，单独设置过的属性保持不变
+     *
+     * @param style
+     */
+    private void _updateTagStyle(TagStyle style) {
+        final TagStyle oldStyle = mTagStyle;
+        if (oldStyle == style) {
+            return;
+        }
+        mTagStyle = style;
+        beginBatch();
+        for (TagView tagView : mTagViews) {
+            tagView.setTagStyle(tagView.getTagStyle().rebase(oldStyle, style));
+        }
+        endBatch();
+        if (mFitTagEditView != null) {
+            mFitTagEditView.setTagStyle(mFitTagEditView.getTagStyle().rebase(oldStyle, style));
+        }
+    }
+
+    /**
+     * ==================================== TagItem索引 ====================================
+     */
+
+    /**
+     * 分配 id 并加入索引
+     */
+    private void _bindTagItem(TagView tagView, TagItem item) {
+        if (item.getId() == TagItem.NO_ID) {
+            while (mIdViewMap.containsKey(mNextId)) {
+                mNextId++;
+            }
+            item.setId(mNextId++);
+        } else if (mIdViewMap.containsKey(item.getId())) {
+            throw new IllegalArgumentException("Duplicate tag id: " + item.getId());
+        }
+        mIdViewMap.put(item.getId(), tagView);
+        List<TagView> views = mTextViewMap.get(item.getText());
+        if (views == null) {
+            views = new ArrayList<>(1);
+            mTextViewMap.put(item.getText(), views);
+        }
+        views.add(tagView);
+    }
+
+    /**
+     * 从索引中移除
+     */
+    private void _unbindTagItem(TagView tagView) {
+        TagItem item = tagView.getTagItem();
+        mIdViewMap.remove(item.getId());
+        _removeTextIndex(item.getText(), tagView);
+        _releaseIcon(tagView);
+        tagView.setLayoutPosition(TagView.INVALID_VALUE);
+    }
+
+    /**
+     * 异步加载图标，加载期间显示透明的占位图标，占用和图标相同的位置，加载完成后替换不需要重新布局
+     * 图片资源按 Tag 的图标大小解码并缓存，其它资源按原方式加载
+     *
+     * @param tagView
+     * @param iconResId
+     */
+    private void _loadIcon(final TagView tagView, final int iconResId) {
+        final Drawable placeholder = new ColorDrawable(Color.TRANSPARENT);
+        tagView.setDecorateIconLazy(placeholder);
+        // 图标大小和 TagView 中一致，为文字高度
+        int iconSize = TagPaintPool.obtain(mTagStyle).getFontHeight();
+        IconLoader.load(getResources(), iconResId, iconSize, new IconLoader.Callback() {
+            @Override
+            public void onIconLoaded(Bitmap bitmap) {
+                // 加载期间TagView被移除或者图标被替换
+                if (tagView.getDecorateIcon() != placeholder) {
+                    IconCache.release(bitmap);
+                    return;
+                }
+                tagView.swapDecorateIcon(bitmap == null ? ContextCompat.getDrawable(getContext(), iconResId)
+                        : new BitmapDrawable(getResources(), bitmap));
+            }
+        });
+    }
+
+    /**
+     * 释放TagView的图标，TagView不再使用或者替换图标时调用
+     *
+     * @param tagView
+     */
+    private void _releaseIcon(TagView tagView) {
+        Drawable icon = tagView.getDecorateIcon();
+        if (icon instanceof BitmapDrawable) {
+            IconCache.release(((BitmapDrawable) icon).getBitmap());
+        }
+        // 同时取消正在加载的图标
+        if (icon != null) {
+            tagView.setDecorateIconLazy(null);
+        }
+    }
+
+    private void _removeTextIndex(String text, TagView tagView) {
+        List<TagView> views = mTextViewMap.get(text);
+        if (views != null) {
+            views.remove(tagView);
+            if (views.isEmpty()) {
+                mTextViewMap.remove(text);
+            }
+        }
+    }
+
+    /**
+     * 修改Tag的文字并更新索引
+     */
+    private void _changeTagText(TagView tagView, String text) {
+        TagItem item = tagView.getTagItem();
+        if (mIdViewMap.get(item.getId()) == tagView) {
+            _removeTextIndex(item.getText(), tagView);
+            List<TagView> views = mTextViewMap.get(text);
+            if (views == null) {
+                views = new ArrayList<>(1);
+                mTextViewMap.put(text, views);
+            }
+            views.add(tagView);
+        }
+        item.setText(text);
+        tagView.setText(text);
+    }
+
+    private TagItem _getTagItem(int position) {
+        return mTagViews.get(position).getTagItem();
+    }
+
+    /**
+     * 取消选中，单选时由 TagSelection 返回之前选中的位置
+     */
+    private void _uncheckTag(int position) {
+        if (position != TagSelection.INVALID_POSITION) {
+            mTagViews.get(position).cleanTagCheckStatus();
+            _getTagItem(position).setChecked(false);
+        }
+    }
+
+    /**
+     * 获取 TagView 的位置，给 TagView 回调监听器时使用
+     *
+     * @param tagView
+     * @return
+     */
+    int getTagPosition(TagView tagView) {
+        int position = tagView.getLayoutPosition();
+        if (position < 0 || position >= mValidPositionCount) {
+            _updatePositions();
+            position = tagView.getLayoutPosition();
+        }
+        return position >= 0 && position < mTagViews.size() && mTagViews.get(position) == tagView
+                ? position : TagView.INVALID_VALUE;
+    }
+
+    /**
+     * 为位置失效的 TagView 重新编号
+     */
+    private void _updatePositions() {
+        final int size = mTagViews.size();
+        for (int i = mValidPositionCount; i < size; i++) {
+            mTagViews.get(i).setLayoutPosition(i);
+        }
+        mValidPositionCount = size;
+    }
+
+    /**
+     * mTagViews 发生增删或移动时调用，从 index 开始的位置失效
+     *
+     * @param index 第一个发生变化的位置
+     */
+    private void _invalidatePositions(int index) {
+        mValidPositionCount = Math.min(mValidPositionCount, index);
+    }
+
+    /**
+     * 基于共享样式创建随机颜色的样式，颜色数量有限所以大部分样式也是共享的
+     *
+     * @return
+     */
+    private TagStyle _createRandomStyle() {
         int[] color = ColorsFactory.provideColor();
+        TagStyle.Builder builder = new TagStyle.Builder(mTagStyle);
         if (mIsPressFeedback) {
-            tagView.setTextColorLazy(color[1]);
-            tagView.setBgColorLazy(Color.WHITE);
-            tagView.setBgColorCheckedLazy(color[0]);
-            tagView.setBorderColorCheckedLazy(color[0]);
-            tagView.setTextColorCheckedLazy(Color.WHITE);
+            builder.setTextColor(color[1])
+                    .setBgColor(Color.WHITE)
+                    .setBgColorChecked(color[0])
+                    .setBorderColorChecked(color[0])
+                    .setTextColorChecked(Color.WHITE);
         } else {
-            tagView.setBgColorLazy(color[1]);
-            tagView.setTextColorLazy(mTagTextColor);
-            tagView.setBgColorCheckedLazy(color[1]);
-            tagView.setBorderColorCheckedLazy(color[0]);
-            tagView.setTextColorCheckedLazy(mTagTextColor);
+            builder.setBgColor(color[1])
+                    .setTextColor(mTagStyle.getTextColor())
+                    .setBgColorChecked(color[1])
+                    .setBorderColorChecked(color[0])
+                    .setTextColorChecked(mTagStyle.getTextColor());
+        }
+        return builder.setBorderColor(color[0]).build();
+    }
+
+    public TagStyle getTagStyle() {
+        return mTagStyle;
+    }
+
+    /**
+     * 设置所有Tag共享的样式，已添加的Tag也会更新，例如切换主题
+     *
+     * @param tagStyle
+     */
+    public void setTagStyle(TagStyle tagStyle) {
+        if (tagStyle == null) {
+            throw new IllegalArgumentException("TagStyle can not be null");
         }
-        tagView.setBorderColorLazy(color[0]);
+        _updateTagStyle(tagStyle);
     }
 
     public int getTagBgColor() {
-        return mTagBgColor;
+        return mTagStyle.getBgColor();
     }
 
     public void setTagBgColor(int tagBgColor) {
-        mTagBgColor = tagBgColor;
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setBgColor(tagBgColor).build());
     }
 
     public int getTagBorderColor() {
-        return mTagBorderColor;
+        return mTagStyle.getBorderColor();
     }
 
     public void setTagBorderColor(int tagBorderColor) {
-        mTagBorderColor = tagBorderColor;
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setBorderColor(tagBorderColor).build());
     }
 
     public int getTagTextColor() {
-        return mTagTextColor;
+        return mTagStyle.getTextColor();
     }
 
     public void setTagTextColor(int tagTextColor) {
-        mTagTextColor = tagTextColor;
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setTextColor(tagTextColor).build());
     }
 
     public float getTagBorderWidth() {
-        return mTagBorderWidth;
+        return mTagStyle.getBorderWidth();
     }
 
     public void setTagBorderWidth(float tagBorderWidth) {
-        mTagBorderWidth = MeasureUtils.dp2px(getContext(), tagBorderWidth);
-        if (mFitTagView != null) {
-            mFitTagView.setBorderWidth(mTagBorderWidth);
-        }
+        _updateTagStyle(new TagStyle.Builder(mTagStyle)
+                .setBorderWidth(MeasureUtils.dp2px(getContext(), tagBorderWidth)).build());
     }
 
     public float getTagTextSize() {
-        return mTagTextSize;
+        return mTagStyle.getTextSize();
     }
 
     public void setTagTextSize(float tagTextSize) {
-        mTagTextSize = tagTextSize;
-        if (mFitTagView != null) {
-            mFitTagView.setTextSize(tagTextSize);
-        }
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setTextSize(tagTextSize).build());
     }
 
     public float getTagRadius() {
-        return mTagRadius;
+        return mTagStyle.getRadius();
     }
 
     public void setTagRadius(float tagRadius) {
-        mTagRadius = tagRadius;
-        if (mFitTagView != null) {
-            mFitTagView.setRadius(mTagRadius);
-        }
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setRadius(tagRadius).build());
     }
 
     public int getTagHorizontalPadding() {
-        return mTagHorizontalPadding;
+        return mTagStyle.getHorizontalPadding();
     }
 
     public void setTagHorizontalPadding(int tagHorizontalPadding) {
-        mTagHorizontalPadding = tagHorizontalPadding;
-        if (mFitTagView != null) {
-            mFitTagView.setHorizontalPadding(mTagHorizontalPadding);
-        }
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setHorizontalPadding(tagHorizontalPadding).build());
     }
 
     public int getTagVerticalPadding() {
-        return mTagVerticalPadding;
+        return mTagStyle.getVerticalPadding();
     }
 
     public void setTagVerticalPadding(int tagVerticalPadding) {
-        mTagVerticalPadding = tagVerticalPadding;
-        if (mFitTagView != null) {
-            mFitTagView.setVerticalPadding(mTagVerticalPadding);
-        }
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setVerticalPadding(tagVerticalPadding).build());
     }
 
     public boolean isPressFeedback() {
@@ -511,16 +1172,29 @@ public class TagLayout extends ViewGroup {
         }
     }
 
+    public int getTagIconMaxFps() {
+        return mTagIconMaxFps;
+    }
+
+    /**
+     * 设置所有 TagView 动画图标的最大帧率
+     *
+     * @param tagIconMaxFps 最大帧率，0 表示不限制
+     */
+    public void setTagIconMaxFps(int tagIconMaxFps) {
+        mTagIconMaxFps = Math.max(tagIconMaxFps, 0);
+        for (TagView tagView : mTagViews) {
+            tagView.setIconMaxFps(mTagIconMaxFps);
+        }
+    }
+
     public TagView.OnTagClickListener getTagClickListener() {
         return mTagClickListener;
     }
 
     public void setTagClickListener(TagView.OnTagClickListener tagClickListener) {
+        // TagView 统一使用内部监听器转发，先添加的TagView也能响应点击
         mTagClickListener = tagClickListener;
-        // 避免先调用设置TagView，后设置监听器导致前面设置的TagView不能响应点击
-        for (TagView tagView : mTagViews) {
-            tagView.setTagClickListener(mTagClickListener);
-        }
     }
 
     public TagView.OnTagLongClickListener getTagLongClickListener() {
@@ -529,9 +1203,6 @@ public class TagLayout extends ViewGroup {
 
     public void setTagLongClickListener(TagView.OnTagLongClickListener tagLongClickListener) {
         mTagLongClickListener = tagLongClickListener;
-        for (TagView tagView : mTagViews) {
-            tagView.setTagLongClickListener(mTagLongClickListener);
-        }
     }
 
     public TagView.OnTagCheckListener getTagCheckListener() {
@@ -542,8 +1213,20 @@ public class TagLayout extends ViewGroup {
         mTagCheckListener = tagCheckListener;
     }
 
+    public void setTagItemClickListener(OnTagItemClickListener tagItemClickListener) {
+        mTagItemClickListener = tagItemClickListener;
+    }
+
+    public void setTagItemLongClickListener(OnTagItemLongClickListener tagItemLongClickListener) {
+        mTagItemLongClickListener = tagItemLongClickListener;
+    }
+
+    public void setTagItemCheckListener(OnTagItemCheckListener tagItemCheckListener) {
+        mTagItemCheckListener = tagItemCheckListener;
+    }
+
     public void setTagShape(@TagView.TagShape int tagShape) {
-        mTagShape = tagShape;
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setTagShape(tagShape).build());
     }
 
     public void setEnableRandomColor(boolean enableRandomColor) {
@@ -551,12 +1234,60 @@ public class TagLayout extends ViewGroup {
     }
 
     public void setIconPadding(int padding) {
-        mIconPadding = padding;
-        if (mFitTagView != null) {
-            mFitTagView.setIconPadding(mIconPadding);
+        _updateTagStyle(new TagStyle.Builder(mTagStyle).setIconPadding(padding).build());
+    }
+
+    /**
+     * ==================================== 批量操作 ====================================
+     */
+
+    /**
+     * 开始批量操作，在 {@link #endBatch()} 之前添加、删除 Tag 都不会触发布局，
+     * 结束时统一进行一次布局，可以嵌套调用
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * 结束批量操作，最外层结束时如果有变化则请求一次布局
+     */
+    public void endBatch() {
+        if (mBatchDepth == 0) {
+            throw new IllegalStateException("endBatch() called without beginBatch()");
+        }
+        mBatchDepth--;
+        if (mBatchDepth == 0 && mIsLayoutPending) {
+            mIsLayoutPending = false;
+            requestLayout();
+            invalidate();
         }
     }
 
+    public boolean isInBatch() {
+        return mBatchDepth > 0;
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mBatchDepth > 0) {
+            // 批量操作期间只记录，结束时统一请求
+            mIsLayoutPending = true;
+            return;
+        }
+        mLayoutRequestCount++;
+        super.requestLayout();
+    }
+
+    /**
+     * 获取实际发出的布局请求次数，批量操作期间合并的请求不计算在内
+     *
+     * @return
+     */
+    public int getLayoutRequestCount() {
+        return mLayoutRequestCount;
+    }
+
     /**
      * ==================================== 添加/删除TagView ====================================
      */
@@ -567,11 +1298,7 @@ public class TagLayout extends ViewGroup {
      * @param text tag content
      */
     public void addTag(String text) {
-        if (mTagMode == TagView.MODE_CHANGE || (mTagMode == TagView.MODE_EDIT && mFitTagEditView != null)) {
-            addView(_initTagView(text, TagView.MODE_NORMAL), getChildCount() - 1);
-        } else {
-            addView(_initTagView(text, mTagMode));
-        }
+        addTag(new TagItem(text));
     }
 
     /**
@@ -580,30 +1307,108 @@ public class TagLayout extends ViewGroup {
      * @param text tag content
      */
     public void addTagWithIcon(String text, int iconResId) {
+        TagItem item = new TagItem(text);
+        item.setIconResId(iconResId);
+        addTag(item);
+    }
+
+    /**
+     * add Tag
+     *
+     * @param item tag item, id is assigned if it is {@link TagItem#NO_ID}
+     * @return tag id
+     */
+    public long addTag(TagItem item) {
         TagView tagView;
         if (mTagMode == TagView.MODE_CHANGE || (mTagMode == TagView.MODE_EDIT && mFitTagEditView != null)) {
-            tagView = _initTagView(text, TagView.MODE_NORMAL);
+            tagView = _initTagView(item, TagView.MODE_NORMAL);
+            _addTagView(tagView, getChildCount() - 1);
         } else {
-            tagView = _initTagView(text, mTagMode);
+            tagView = _initTagView(item, mTagMode);
+            _addTagView(tagView, -1);
         }
-        tagView.setDecorateIcon(ContextCompat.getDrawable(getContext(), iconResId));
-        tagView.setIconPadding(mIconPadding);
-        if (mTagMode == TagView.MODE_CHANGE || (mTagMode == TagView.MODE_EDIT && mFitTagEditView != null)) {
-            addView(tagView, getChildCount() - 1);
-        } else {
-            addView(tagView);
+        if (tagView.isChecked()) {
+            _uncheckTag(mTagSelection.setChecked(mTagViews.size() - 1, true));
         }
+        return item.getId();
+    }
+
+    /**
+     * add Tag if there is no tag with the same text
+     *
+     * @param text tag content
+     * @return whether the tag is added
+     */
+    public boolean addTagIfAbsent(String text) {
+        if (mTextViewMap.containsKey(text)) {
+            return false;
+        }
+        addTag(text);
+        return true;
+    }
+
+    /**
+     * whether there is a tag with the text
+     *
+     * @param text tag content
+     * @return
+     */
+    public boolean containsTag(String text) {
+        return mTextViewMap.containsKey(text);
+    }
+
+    /**
+     * get tag item by id
+     *
+     * @param id tag id
+     * @return null if not found
+     */
+    public TagItem getTagItem(long id) {
+        TagView tagView = mIdViewMap.get(id);
+        return tagView == null ? null : tagView.getTagItem();
+    }
+
+    /**
+     * get the current position of tag
+     *
+     * @param id tag id
+     * @return -1 if not found
+     */
+    public int getTagPosition(long id) {
+        TagView tagView = mIdViewMap.get(id);
+        return tagView == null ? TagView.INVALID_VALUE : getTagPosition(tagView);
     }
 
+    /**
+     * 添加子视图，批量操作期间不发出布局请求和重绘
+     *
+     * @param child
+     * @param index 位置，-1 表示添加到末尾
+     */
+    private void _addTagView(View child, int index) {
+        if (mBatchDepth > 0) {
+            LayoutParams params = child.getLayoutParams();
+            if (params == null) {
+                params = generateDefaultLayoutParams();
+            }
+            addViewInLayout(child, index, params, true);
+            mIsLayoutPending = true;
+        } else {
+            addView(child, index);
+        }
+    }
 
     /**
-     * 设置对应位置Tag
+     * 移除子视图，批量操作期间不发出布局请求和重绘
      *
-     * @param startPos
+     * @param index
      */
-    private void _refreshPositionTag(int startPos) {
-        for (int i = startPos; i < mTagViews.size(); i++) {
-            mTagViews.get(i).setTag(i);
+    private void _removeTagViewAt(int index) {
+        if (mBatchDepth > 0) {
+            removeViewsInLayout(index, 1);
+            mIsLayoutPending = true;
+        } else {
+            removeViewAt(index);
         }
     }
 
@@ -624,12 +1429,28 @@ public class TagLayout extends ViewGroup {
                 return;
             }
             // 第0项为固定项
-            mTagViews.remove(pos);
+            _unbindTagItem(mTagViews.remove(pos));
+            _invalidatePositions(pos);
+            mTagSelection.onRemoved(pos, 1);
         } else {
-            mTagViews.remove(position);
+            _unbindTagItem(mTagViews.remove(position));
+            _invalidatePositions(position);
+            mTagSelection.onRemoved(position, 1);
+        }
+        _removeTagViewAt(position);
+    }
+
+    /**
+     * delete tag by id
+     *
+     * @param id tag id
+     */
+    public void deleteTagById(long id) {
+        TagView tagView = mIdViewMap.get(id);
+        if (tagView != null) {
+            // 换一换模式下 mTagViews 的第0项为固定项，子视图中固定项在最后
+            deleteTag(getTagPosition(tagView) - _getTagOffset());
         }
-        removeViewAt(position);
-        _refreshPositionTag(position);
     }
 
     /**
@@ -638,9 +1459,11 @@ public class TagLayout extends ViewGroup {
      * @param textList tag list
      */
     public void addTags(String... textList) {
+        beginBatch();
         for (String text : textList) {
             addTag(text);
         }
+        endBatch();
     }
 
     /**
@@ -649,25 +1472,50 @@ public class TagLayout extends ViewGroup {
      * @param textList tag list
      */
     public void addTags(List<String> textList) {
+        beginBatch();
         for (String text : textList) {
             addTag(text);
         }
+        endBatch();
     }
 
     /**
      * clean Tags
      */
     public void cleanTags() {
+        for (TagView tagView : mTagViews) {
+            if (tagView != mFitTagView) {
+                _releaseIcon(tagView);
+            }
+        }
         if (mTagMode == TagView.MODE_CHANGE || (mTagMode == TagView.MODE_EDIT && mFitTagEditView != null)) {
-            removeViews(0, getChildCount() - 1);
+            if (mBatchDepth > 0) {
+                removeViewsInLayout(0, getChildCount() - 1);
+            } else {
+                removeViews(0, getChildCount() - 1);
+            }
             mTagViews.clear();
-            mCheckSparseArray.clear();
-            mTagViews.add(mFitTagView);
+            // 只有换一换模式的固定项在 mTagViews 中
+            if (mTagMode == TagView.MODE_CHANGE) {
+                mTagViews.add(mFitTagView);
+            }
         } else {
-            removeAllViews();
+            if (mBatchDepth > 0) {
+                removeAllViewsInLayout();
+            } else {
+                removeAllViews();
+            }
             mTagViews.clear();
         }
-        postInvalidate();
+        mValidPositionCount = 0;
+        mTagSelection.clear();
+        mIdViewMap.clear();
+        mTextViewMap.clear();
+        if (mBatchDepth > 0) {
+            mIsLayoutPending = true;
+        } else {
+            postInvalidate();
+        }
     }
 
     /**
@@ -676,18 +1524,264 @@ public class TagLayout extends ViewGroup {
      * @param textList tag list
      */
     public void setTags(String... textList) {
-        cleanTags();
-        addTags(textList);
+        setTags(Arrays.asList(textList));
     }
 
     /**
-     * set Tags
+     * set Tags，和当前的 Tag 做差异比较，只插入、删除、移动或修改变化的 Tag，
+     * 没变化的 TagView 保留原来的测量结果和选中状态
      *
      * @param textList tag list
      */
     public void setTags(List<String> textList) {
+        final List<String> oldList = new ArrayList<>(_getTagCount());
+        for (int i = 0; i < _getTagCount(); i++) {
+            oldList.add(mTagViews.get(i + _getTagOffset()).getText());
+        }
+        beginBatch();
+        ListDiff.dispatch(oldList, textList, new TagDiffCallback(textList, null));
+        endBatch();
+    }
+
+    /**
+     * 把差异操作作用到子 View 上
+     */
+    private class TagDiffCallback implements ListDiff.Callback {
+
+        private final List<String> mNewList;
+        private final TagAdapter mAdapter;
+
+        /**
+         * @param newList 新的文字列表
+         * @param adapter 不为 null 时从 adapter 创建新的 TagItem，插入时不绑定，由调用者统一绑定
+         */
+        TagDiffCallback(List<String> newList, TagAdapter adapter) {
+            mNewList = newList;
+            mAdapter = adapter;
+        }
+
+        @Override
+        public void onInserted(int position, int newIndex) {
+            if (mAdapter == null) {
+                _insertTag(position, new TagItem(mNewList.get(newIndex)));
+            } else {
+                _insertTag(position, _createAdapterItem(newIndex));
+            }
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            _removeTag(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            _moveTag(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int newIndex) {
+            if (mAdapter != null) {
+                // 替换成了另一个数据项，按删除和插入处理，旧 id 解除绑定，新 id 绑定到新的 TagView
+                _removeTag(position);
+                onInserted(position, newIndex);
+                return;
+            }
+            TagView tagView = mTagViews.get(position + _getTagOffset());
+            // 替换成了另一个Tag，清除选中状态
+            mTagSelection.setChecked(position + _getTagOffset(), false);
+            tagView.getTagItem().setChecked(false);
+            tagView.cleanTagCheckStatus();
+            _changeTagText(tagView, mNewList.get(newIndex));
+        }
+    }
+
+    /**
+     * ==================================== 按位置更新Tag ====================================
+     * 这里的位置都是子视图中的位置，不包括固定项
+     */
+
+    private boolean _hasFixedTag() {
+        return mTagMode == TagView.MODE_CHANGE || (mTagMode == TagView.MODE_EDIT && mFitTagEditView != null);
+    }
+
+    /**
+     * 换一换模式下 mTagViews 的第0项为固定项
+     */
+    private int _getTagOffset() {
+        return mTagMode == TagView.MODE_CHANGE ? 1 : 0;
+    }
+
+    private int _getTagCount() {
+        return _hasFixedTag() ? getChildCount() - 1 : getChildCount();
+    }
+
+    private void _insertTag(int position, TagItem item) {
+        TagView tagView = _createTagView(item, _hasFixedTag() ? TagView.MODE_NORMAL : mTagMode);
+        _bindTagItem(tagView, item);
+        final int index = position + _getTagOffset();
+        mTagViews.add(index, tagView);
+        _invalidatePositions(index);
+        mTagSelection.onInserted(index, 1);
+        _addTagView(tagView, position);
+        if (tagView.isChecked()) {
+            _uncheckTag(mTagSelection.setChecked(index, true));
+        }
+    }
+
+    private void _removeTag(int position) {
+        final int index = position + _getTagOffset();
+        _unbindTagItem(mTagViews.remove(index));
+        _invalidatePositions(index);
+        mTagSelection.onRemoved(index, 1);
+        _removeTagViewAt(position);
+    }
+
+    private void _moveTag(int fromPosition, int toPosition) {
+        final int offset = _getTagOffset();
+        TagView tagView = mTagViews.remove(fromPosition + offset);
+        mTagViews.add(toPosition + offset, tagView);
+        _invalidatePositions(Math.min(fromPosition, toPosition) + offset);
+        mTagSelection.onMoved(fromPosition + offset, toPosition + offset);
+        _removeTagViewAt(fromPosition);
+        _addTagView(tagView, toPosition);
+    }
+
+    /**
+     * ==================================== Adapter ====================================
+     */
+
+    /**
+     * set adapter, tags are created from adapter and updated when adapter notifies changes
+     *
+     * @param adapter null to detach current adapter
+     */
+    public void setAdapter(TagAdapter adapter) {
+        if (mAdapter != null) {
+            mAdapter.unregisterAdapterDataObserver(mAdapterObserver);
+        }
+        mAdapter = adapter;
+        beginBatch();
         cleanTags();
-        addTags(textList);
+        if (mAdapter != null) {
+            mAdapter.registerAdapterDataObserver(mAdapterObserver);
+            for (int i = 0; i < mAdapter.getItemCount(); i++) {
+                _insertTag(i, _createAdapterItem(i));
+                mAdapter.onBindTagView(mTagViews.get(i + _getTagOffset()), i, null);
+            }
+        }
+        endBatch();
+    }
+
+    public TagAdapter getAdapter() {
+        return mAdapter;
+    }
+
+    private TagItem _createAdapterItem(int position) {
+        // id 不稳定时按文字比较，新旧数据的 id 可能在差异操作的中间状态重复，由 TagLayout 自动分配
+        long id = mAdapter.hasStableIds() ? mAdapter.getItemId(position) : TagItem.NO_ID;
+        TagItem item = new TagItem(id, mAdapter.getText(position));
+        item.setIconResId(mAdapter.getIconResId(position));
+        return item;
+    }
+
+    /**
+     * 重新绑定数据
+     *
+     * @param position 子视图中的位置
+     * @param adapterPosition adapter 中的位置
+     * @param payload  为 null 时重新设置样式和图标，否则只更新文字
+     */
+    private void _rebindTag(int position, int adapterPosition, Object payload) {
+        TagView tagView = mTagViews.get(position + _getTagOffset());
+        String text = mAdapter.getText(adapterPosition);
+        if (!TextUtils.equals(tagView.getText(), text)) {
+            _changeTagText(tagView, text);
+        }
+        if (payload == null) {
+            TagItem item = tagView.getTagItem();
+            int iconResId = mAdapter.getIconResId(adapterPosition);
+            if (iconResId != item.getIconResId()) {
+                item.setIconResId(iconResId);
+                _releaseIcon(tagView);
+                if (iconResId != TagView.INVALID_VALUE) {
+                    _loadIcon(tagView, iconResId);
+                }
+            }
+            _applyTagStyle(tagView);
+            tagView.updateView();
+        }
+        mAdapter.onBindTagView(tagView, adapterPosition, payload);
+    }
+
+    /**
+     * 把 adapter 的变化通知作用到子视图上
+     */
+    private class TagAdapterObserver extends TagAdapter.AdapterDataObserver {
+
+        @Override
+        public void onChanged() {
+            final TagAdapter adapter = mAdapter;
+            final boolean hasStableIds = adapter.hasStableIds();
+            // 有 id 时按 id 比较，否则按文字比较，直接读取 adapter 不复制数据
+            List<Object> newKeys = new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    return hasStableIds ? (Object) adapter.getItemId(index) : adapter.getText(index);
+                }
+
+                @Override
+                public int size() {
+                    return adapter.getItemCount();
+                }
+            };
+            final int tagCount = _getTagCount();
+            final List<Object> oldKeys = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                TagItem item = mTagViews.get(i + _getTagOffset()).getTagItem();
+                oldKeys.add(hasStableIds ? (Object) item.getId() : item.getText());
+            }
+            beginBatch();
+            ListDiff.dispatch(oldKeys, newKeys, new TagDiffCallback(null, adapter));
+            // 和 RecyclerView 一样，保留下来的 Tag 内容也可能变化，全部重新绑定，新插入的 Tag 也在这里绑定
+            for (int i = 0; i < adapter.getItemCount(); i++) {
+                _rebindTag(i, i, null);
+            }
+            endBatch();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            beginBatch();
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                _rebindTag(i, i, payload);
+            }
+            endBatch();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            beginBatch();
+            for (int i = positionStart; i < positionStart + itemCount; i++) {
+                _insertTag(i, _createAdapterItem(i));
+                mAdapter.onBindTagView(mTagViews.get(i + _getTagOffset()), i, null);
+            }
+            endBatch();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            beginBatch();
+            for (int i = positionStart + itemCount - 1; i >= positionStart; i--) {
+                _removeTag(i);
+            }
+            endBatch();
+        }
+
+        @Override
+        public void onItemMoved(int fromPosition, int toPosition) {
+            _moveTag(fromPosition, toPosition);
+        }
     }
 
     /**
@@ -705,7 +1799,11 @@ public class TagLayout extends ViewGroup {
             minSize = Math.min(textList.length, mTagViews.size());
         }
         for (int i = 0; i < minSize; i++) {
-            mTagViews.get(i + startPos).setText(textList[i]);
+            TagView tagView = mTagViews.get(i + startPos);
+            // 内容不变的不需要重新测量
+            if (!TextUtils.equals(tagView.getText(), textList[i])) {
+                _changeTagText(tagView, textList[i]);
+            }
         }
         if (mEnableRandomColor) {
             startPos = 0;
@@ -713,7 +1811,7 @@ public class TagLayout extends ViewGroup {
                 startPos = 1;
             }
             for (int i = startPos; i < mTagViews.size(); i++) {
-                _setTagRandomColors(mTagViews.get(i));
+                mTagViews.get(i).setTagStyleLazy(_createRandomStyle());
             }
             postInvalidate();
         }
@@ -725,7 +1823,7 @@ public class TagLayout extends ViewGroup {
      * @param textList tag list
      */
     public void updateTags(List<String> textList) {
-        updateTags((String[]) textList.toArray());
+        updateTags(textList.toArray(new String[textList.size()]));
     }
 
     /**
@@ -735,10 +1833,9 @@ public class TagLayout extends ViewGroup {
      */
     public List<String> getCheckedTags() {
         List<String> checkTags = new ArrayList<>();
-        for (int i = 0; i < mCheckSparseArray.size(); i++) {
-            if (mCheckSparseArray.valueAt(i)) {
-                checkTags.add(mTagViews.get(mCheckSparseArray.keyAt(i)).getText());
-            }
+        for (int i = mTagSelection.nextChecked(0); i != TagSelection.INVALID_POSITION;
+             i = mTagSelection.nextChecked(i + 1)) {
+            checkTags.add(mTagViews.get(i).getText());
         }
         return checkTags;
     }
@@ -750,10 +1847,23 @@ public class TagLayout extends ViewGroup {
      */
     public void setCheckTag(String text) {
         if (mTagMode == TagView.MODE_SINGLE_CHOICE) {
-            for (TagView tagView : mTagViews) {
-                if (tagView.getText().equals(text)) {
-                    tagView.setChecked(true);
-                }
+            List<TagView> views = mTextViewMap.get(text);
+            if (views != null) {
+                views.get(0).setChecked(true);
+            }
+        }
+    }
+
+    /**
+     * set tag to be checked
+     *
+     * @param id tag id
+     */
+    public void setCheckTagById(long id) {
+        if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+            TagView tagView = mIdViewMap.get(id);
+            if (tagView != null) {
+                tagView.setChecked(true);
             }
         }
     }
@@ -772,12 +1882,55 @@ public class TagLayout extends ViewGroup {
      * delete checked tags
      */
     public void deleteCheckedTags() {
-        for (int i = mCheckSparseArray.size() - 1; i >= 0; i--) {
-            if (mCheckSparseArray.valueAt(i)) {
-                deleteTag(mCheckSparseArray.keyAt(i));
-                mCheckSparseArray.delete(mCheckSparseArray.keyAt(i));
+        beginBatch();
+        // 从后往前删除，前面的位置不会变化
+        for (int i = mTagSelection.previousChecked(mTagViews.size() - 1); i != TagSelection.INVALID_POSITION;
+             i = mTagSelection.previousChecked(i - 1)) {
+            deleteTag(i);
+        }
+        endBatch();
+    }
+
+    /**
+     * check all tags, only for multi choice mode
+     */
+    public void checkAllTags() {
+        if (mTagMode != TagView.MODE_MULTI_CHOICE) {
+            return;
+        }
+        mTagSelection.checkAll(mTagViews.size());
+        beginBatch();
+        for (TagView tagView : mTagViews) {
+            if (!tagView.isChecked()) {
+                tagView.setCheckedLazy(true);
+                tagView.updateView();
             }
+            tagView.getTagItem().setChecked(true);
+        }
+        endBatch();
+    }
+
+    /**
+     * clean all checked status
+     */
+    public void cleanCheckedTags() {
+        beginBatch();
+        for (int i = mTagSelection.nextChecked(0); i != TagSelection.INVALID_POSITION;
+             i = mTagSelection.nextChecked(i + 1)) {
+            _uncheckTag(i);
         }
+        mTagSelection.clear();
+        endBatch();
+    }
+
+    /**
+     * whether the tag at position is checked
+     *
+     * @param position
+     * @return
+     */
+    public boolean isTagChecked(int position) {
+        return mTagSelection.isChecked(position);
     }
 
     /**
@@ -801,4 +1954,21 @@ public class TagLayout extends ViewGroup {
             addView(mFitTagEditView);
         }
     }
+
+    /**
+     * ==================================== 监听器 ====================================
+     * 回调 TagItem，id 不会随位置变化
+     */
+
+    public interface OnTagItemClickListener {
+        void onTagItemClick(TagItem item);
+    }
+
+    public interface OnTagItemLongClickListener {
+        void onTagItemLongClick(TagItem item);
+    }
+
+    public interface OnTagItemCheckListener {
+        void onTagItemCheck(TagItem item, boolean isChecked);
+    }
 }
@@ -0,0 +1,213 @@
+package com.dl7.tag;
+
+import android.graphics.ColorFilter;
+import android.graphics.DashPathEffect;
+import android.graphics.Paint;
+import android.graphics.PathEffect;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.util.SparseArray;
+
+import java.util.WeakHashMap;
+
+/**
+ * 按 TagStyle 共享的画笔，相同样式的 TagView 和 TagEditView 使用同一组画笔
+ * 画笔创建时就设置好颜色、大小等属性，绘制时只读不修改
+ */
+public final class TagPaintPool {
+
+    // 样式回收后对应的画笔也会回收，画笔不能持有样式的强引用
+    private static final WeakHashMap<TagStyle, TagPaints> sPool = new WeakHashMap<>();
+    // 图标着色使用的颜色过滤器，按颜色缓存
+    private static final SparseArray<ColorFilter> sColorFilters = new SparseArray<>();
+    // TagEditView 边框的虚线效果
+    private static final PathEffect sDashPathEffect = new DashPathEffect(new float[]{10, 5}, 0);
+    private static int sHitCount;
+    private static int sMissCount;
+    private static int sPaintCount;
+
+    private TagPaintPool() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 获取样式对应的画笔
+     *
+     * @param style 样式
+     * @return 共享的画笔
+     */
+    static TagPaints obtain(TagStyle style) {
+        synchronized (sPool) {
+            TagPaints paints = sPool.get(style);
+            if (paints != null) {
+                sHitCount++;
+                return paints;
+            }
+            sMissCount++;
+            paints = new TagPaints(style);
+            sPool.put(style, paints);
+            return paints;
+        }
+    }
+
+    /**
+     * 获取图标着色的颜色过滤器，相同颜色返回同一个实例
+     *
+     * @param color 颜色
+     * @return SRC_IN 模式的颜色过滤器
+     */
+    static ColorFilter obtainColorFilter(int color) {
+        synchronized (sPool) {
+            ColorFilter filter = sColorFilters.get(color);
+            if (filter == null) {
+                filter = new PorterDuffColorFilter(color, PorterDuff.Mode.SRC_IN);
+                sColorFilters.put(color, filter);
+            }
+            return filter;
+        }
+    }
+
+    private static Paint _newPaint(Paint.Style style, int color) {
+        sPaintCount++;
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(style);
+        paint.setColor(color);
+        return paint;
+    }
+
+    /**
+     * ==================================== 统计 ====================================
+     */
+
+    public static int size() {
+        synchronized (sPool) {
+            return sPool.size();
+        }
+    }
+
+    public static int getHitCount() {
+        synchronized (sPool) {
+            return sHitCount;
+        }
+    }
+
+    public static int getMissCount() {
+        synchronized (sPool) {
+            return sMissCount;
+        }
+    }
+
+    /**
+     * 累计创建的画笔数量
+     *
+     * @return
+     */
+    public static int getPaintCount() {
+        synchronized (sPool) {
+            return sPaintCount;
+        }
+    }
+
+    /**
+     * 清空缓存和统计，已经获取到画笔的控件不受影响
+     */
+    public static void clear() {
+        synchronized (sPool) {
+            sPool.clear();
+            sColorFilters.clear();
+            sHitCount = 0;
+            sMissCount = 0;
+            sPaintCount = 0;
+        }
+    }
+
+    /**
+     * 一个样式对应的画笔，选中和未选中状态各一支，避免绘制时修改颜色
+     */
+    static final class TagPaints {
+
+        private final Paint mFillPaint;
+        private final Paint mFillPaintChecked;
+        private final Paint mStrokePaint;
+        private final Paint mStrokePaintChecked;
+        private final Paint mTextPaint;
+        private final Paint mTextPaintChecked;
+        private final Paint mScrimPaint;
+        // 图标着色，和文字颜色一致
+        private final ColorFilter mTextColorFilter;
+        private final ColorFilter mTextColorFilterChecked;
+        // 虚线边框只有 TagEditView 使用，用到时再创建
+        private Paint mDashPaint;
+        private final int mBorderColor;
+        private final float mBorderWidth;
+        // 文字高度
+        private final int mFontHeight;
+        // 基线相对中心的偏移
+        private final float mBaseLineDistance;
+
+        private TagPaints(TagStyle style) {
+            mFillPaint = _newPaint(Paint.Style.FILL, style.getBgColor());
+            mFillPaintChecked = _newPaint(Paint.Style.FILL, style.getBgColorChecked());
+            mStrokePaint = _newPaint(Paint.Style.STROKE, style.getBorderColor());
+            mStrokePaint.setStrokeWidth(style.getBorderWidth());
+            mStrokePaintChecked = _newPaint(Paint.Style.STROKE, style.getBorderColorChecked());
+            mStrokePaintChecked.setStrokeWidth(style.getBorderWidth());
+            mTextPaint = _newPaint(Paint.Style.FILL, style.getTextColor());
+            mTextPaint.setTextSize(style.getTextSize());
+            mTextPaintChecked = _newPaint(Paint.Style.FILL, style.getTextColorChecked());
+            mTextPaintChecked.setTextSize(style.getTextSize());
+            mScrimPaint = _newPaint(Paint.Style.FILL, style.getScrimColor());
+            mTextColorFilter = obtainColorFilter(style.getTextColor());
+            mTextColorFilterChecked = obtainColorFilter(style.getTextColorChecked());
+            mBorderColor = style.getBorderColor();
+            mBorderWidth = style.getBorderWidth();
+
+            final Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+            mFontHeight = (int) (fontMetrics.descent - fontMetrics.ascent);
+            // 用来设置基线的偏移量,再加上 getHeight() / 2 就是基线坐标
+            mBaseLineDistance = (int) Math.ceil((fontMetrics.descent - fontMetrics.ascent) / 2 - fontMetrics.descent);
+        }
+
+        Paint getFillPaint(boolean isChecked) {
+            return isChecked ? mFillPaintChecked : mFillPaint;
+        }
+
+        Paint getStrokePaint(boolean isChecked) {
+            return isChecked ? mStrokePaintChecked : mStrokePaint;
+        }
+
+        /**
+         * 文字画笔，测量文字时使用未选中状态的画笔
+         */
+        Paint getTextPaint(boolean isChecked) {
+            return isChecked ? mTextPaintChecked : mTextPaint;
+        }
+
+        ColorFilter getTextColorFilter(boolean isChecked) {
+            return isChecked ? mTextColorFilterChecked : mTextColorFilter;
+        }
+
+        Paint getScrimPaint() {
+            return mScrimPaint;
+        }
+
+        Paint getDashPaint() {
+            synchronized (sPool) {
+                if (mDashPaint == null) {
+                    mDashPaint = _newPaint(Paint.Style.STROKE, mBorderColor);
+                    mDashPaint.setStrokeWidth(mBorderWidth);
+                    mDashPaint.setPathEffect(sDashPathEffect);
+                }
+                return mDashPaint;
+            }
+        }
+
+        int getFontHeight() {
+            return mFontHeight;
+        }
+
+        float getBaseLineDistance() {
+            return mBaseLineDistance;
+        }
+    }
+}
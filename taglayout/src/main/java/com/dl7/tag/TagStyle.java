@@ -0,0 +1,342 @@
+package com.dl7.tag;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * TagView 的样式，创建后不可修改
+ * 通过 {@link Builder#build()} 创建的样式会被复用，相同的样式只保留一个实例，TagView 之间直接共享引用
+ */
+public final class TagStyle {
+
+    // 已创建的样式，没有 TagView 引用时自动回收
+    private static final WeakHashMap<TagStyle, WeakReference<TagStyle>> sStylePool = new WeakHashMap<>();
+
+    private final int mBgColor;
+    private final int mBorderColor;
+    private final int mTextColor;
+    private final int mBgColorChecked;
+    private final int mBorderColorChecked;
+    private final int mTextColorChecked;
+    private final int mScrimColor;
+    private final float mTextSize;
+    private final float mBorderWidth;
+    private final float mRadius;
+    private final int mHorizontalPadding;
+    private final int mVerticalPadding;
+    private final int mIconPadding;
+    private final int mTagShape;
+    private final int mHashCode;
+
+    private TagStyle(Builder builder) {
+        mBgColor = builder.mBgColor;
+        mBorderColor = builder.mBorderColor;
+        mTextColor = builder.mTextColor;
+        mBgColorChecked = builder.mBgColorChecked;
+        mBorderColorChecked = builder.mBorderColorChecked;
+        mTextColorChecked = builder.mTextColorChecked;
+        mScrimColor = builder.mScrimColor;
+        mTextSize = builder.mTextSize;
+        mBorderWidth = builder.mBorderWidth;
+        mRadius = builder.mRadius;
+        mHorizontalPadding = builder.mHorizontalPadding;
+        mVerticalPadding = builder.mVerticalPadding;
+        mIconPadding = builder.mIconPadding;
+        mTagShape = builder.mTagShape;
+        mHashCode = _hashCode();
+    }
+
+    /**
+     * 获取和 style 相等的共享实例
+     *
+     * @param style
+     * @return
+     */
+    private static TagStyle _intern(TagStyle style) {
+        synchronized (sStylePool) {
+            WeakReference<TagStyle> ref = sStylePool.get(style);
+            TagStyle shared = ref == null ? null : ref.get();
+            if (shared == null) {
+                sStylePool.put(style, new WeakReference<>(style));
+                shared = style;
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * 当前共享的样式数量
+     *
+     * @return
+     */
+    public static int getPoolSize() {
+        synchronized (sStylePool) {
+            return sStylePool.size();
+        }
+    }
+
+    /**
+     * 把基于 oldBase 的样式迁移到 newBase 上，和 oldBase 相同的属性使用 newBase 的值，单独修改过的属性保持不变
+     *
+     * @param oldBase 原来的基础样式
+     * @param newBase 新的基础样式
+     * @return 共享实例，没有单独修改过的属性时直接返回 newBase
+     */
+    public TagStyle rebase(TagStyle oldBase, TagStyle newBase) {
+        if (this == oldBase) {
+            return newBase;
+        }
+        return new Builder(this)
+                .setBgColor(mBgColor == oldBase.mBgColor ? newBase.mBgColor : mBgColor)
+                .setBorderColor(mBorderColor == oldBase.mBorderColor ? newBase.mBorderColor : mBorderColor)
+                .setTextColor(mTextColor == oldBase.mTextColor ? newBase.mTextColor : mTextColor)
+                .setBgColorChecked(mBgColorChecked == oldBase.mBgColorChecked ? newBase.mBgColorChecked : mBgColorChecked)
+                .setBorderColorChecked(mBorderColorChecked == oldBase.mBorderColorChecked ? newBase.mBorderColorChecked : mBorderColorChecked)
+                .setTextColorChecked(mTextColorChecked == oldBase.mTextColorChecked ? newBase.mTextColorChecked : mTextColorChecked)
+                .setScrimColor(mScrimColor == oldBase.mScrimColor ? newBase.mScrimColor : mScrimColor)
+                .setTextSize(mTextSize == oldBase.mTextSize ? newBase.mTextSize : mTextSize)
+                .setBorderWidth(mBorderWidth == oldBase.mBorderWidth ? newBase.mBorderWidth : mBorderWidth)
+                .setRadius(mRadius == oldBase.mRadius ? newBase.mRadius : mRadius)
+                .setHorizontalPadding(mHorizontalPadding == oldBase.mHorizontalPadding ? newBase.mHorizontalPadding : mHorizontalPadding)
+                .setVerticalPadding(mVerticalPadding == oldBase.mVerticalPadding ? newBase.mVerticalPadding : mVerticalPadding)
+                .setIconPadding(mIconPadding == oldBase.mIconPadding ? newBase.mIconPadding : mIconPadding)
+                .setTagShape(mTagShape == oldBase.mTagShape ? newBase.mTagShape : mTagShape)
+                .build();
+    }
+
+    /**
+     * 影响测量大小的属性是否相同，相同时切换样式只需要重绘
+     *
+     * @param other
+     * @return
+     */
+    public boolean hasSameMetrics(TagStyle other) {
+        return mTextSize == other.mTextSize && mHorizontalPadding == other.mHorizontalPadding
+                && mVerticalPadding == other.mVerticalPadding && mIconPadding == other.mIconPadding;
+    }
+
+    public int getBgColor() {
+        return mBgColor;
+    }
+
+    public int getBorderColor() {
+        return mBorderColor;
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public int getBgColorChecked() {
+        return mBgColorChecked;
+    }
+
+    public int getBorderColorChecked() {
+        return mBorderColorChecked;
+    }
+
+    public int getTextColorChecked() {
+        return mTextColorChecked;
+    }
+
+    public int getScrimColor() {
+        return mScrimColor;
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public float getBorderWidth() {
+        return mBorderWidth;
+    }
+
+    public float getRadius() {
+        return mRadius;
+    }
+
+    public int getHorizontalPadding() {
+        return mHorizontalPadding;
+    }
+
+    public int getVerticalPadding() {
+        return mVerticalPadding;
+    }
+
+    public int getIconPadding() {
+        return mIconPadding;
+    }
+
+    public int getTagShape() {
+        return mTagShape;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagStyle)) {
+            return false;
+        }
+        TagStyle other = (TagStyle) o;
+        return mHashCode == other.mHashCode
+                && mBgColor == other.mBgColor
+                && mBorderColor == other.mBorderColor
+                && mTextColor == other.mTextColor
+                && mBgColorChecked == other.mBgColorChecked
+                && mBorderColorChecked == other.mBorderColorChecked
+                && mTextColorChecked == other.mTextColorChecked
+                && mScrimColor == other.mScrimColor
+                && Float.compare(mTextSize, other.mTextSize) == 0
+                && Float.compare(mBorderWidth, other.mBorderWidth) == 0
+                && Float.compare(mRadius, other.mRadius) == 0
+                && mHorizontalPadding == other.mHorizontalPadding
+                && mVerticalPadding == other.mVerticalPadding
+                && mIconPadding == other.mIconPadding
+                && mTagShape == other.mTagShape;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    private int _hashCode() {
+        int result = mBgColor;
+        result = 31 * result + mBorderColor;
+        result = 31 * result + mTextColor;
+        result = 31 * result + mBgColorChecked;
+        result = 31 * result + mBorderColorChecked;
+        result = 31 * result + mTextColorChecked;
+        result = 31 * result + mScrimColor;
+        result = 31 * result + Float.floatToIntBits(mTextSize);
+        result = 31 * result + Float.floatToIntBits(mBorderWidth);
+        result = 31 * result + Float.floatToIntBits(mRadius);
+        result = 31 * result + mHorizontalPadding;
+        result = 31 * result + mVerticalPadding;
+        result = 31 * result + mIconPadding;
+        result = 31 * result + mTagShape;
+        return result;
+    }
+
+    /**
+     * 样式构建器，默认值和 TagView 一致，尺寸默认为0
+     */
+    public static class Builder {
+
+        private int mBgColor = 0xffffffff;
+        private int mBorderColor = 0xff333333;
+        private int mTextColor = 0xff666666;
+        private int mBgColorChecked = 0xffffffff;
+        private int mBorderColorChecked = 0xff333333;
+        private int mTextColorChecked = 0xff666666;
+        private int mScrimColor = 0x66c0c0c0;
+        private float mTextSize;
+        private float mBorderWidth;
+        private float mRadius;
+        private int mHorizontalPadding;
+        private int mVerticalPadding;
+        private int mIconPadding;
+        private int mTagShape = TagView.SHAPE_ROUND_RECT;
+
+        public Builder() {
+        }
+
+        public Builder(TagStyle style) {
+            mBgColor = style.mBgColor;
+            mBorderColor = style.mBorderColor;
+            mTextColor = style.mTextColor;
+            mBgColorChecked = style.mBgColorChecked;
+            mBorderColorChecked = style.mBorderColorChecked;
+            mTextColorChecked = style.mTextColorChecked;
+            mScrimColor = style.mScrimColor;
+            mTextSize = style.mTextSize;
+            mBorderWidth = style.mBorderWidth;
+            mRadius = style.mRadius;
+            mHorizontalPadding = style.mHorizontalPadding;
+            mVerticalPadding = style.mVerticalPadding;
+            mIconPadding = style.mIconPadding;
+            mTagShape = style.mTagShape;
+        }
+
+        public Builder setBgColor(int bgColor) {
+            mBgColor = bgColor;
+            return this;
+        }
+
+        public Builder setBorderColor(int borderColor) {
+            mBorderColor = borderColor;
+            return this;
+        }
+
+        public Builder setTextColor(int textColor) {
+            mTextColor = textColor;
+            return this;
+        }
+
+        public Builder setBgColorChecked(int bgColorChecked) {
+            mBgColorChecked = bgColorChecked;
+            return this;
+        }
+
+        public Builder setBorderColorChecked(int borderColorChecked) {
+            mBorderColorChecked = borderColorChecked;
+            return this;
+        }
+
+        public Builder setTextColorChecked(int textColorChecked) {
+            mTextColorChecked = textColorChecked;
+            return this;
+        }
+
+        public Builder setScrimColor(int scrimColor) {
+            mScrimColor = scrimColor;
+            return this;
+        }
+
+        public Builder setTextSize(float textSize) {
+            mTextSize = textSize;
+            return this;
+        }
+
+        public Builder setBorderWidth(float borderWidth) {
+            mBorderWidth = borderWidth;
+            return this;
+        }
+
+        public Builder setRadius(float radius) {
+            mRadius = radius;
+            return this;
+        }
+
+        public Builder setHorizontalPadding(int horizontalPadding) {
+            mHorizontalPadding = horizontalPadding;
+            return this;
+        }
+
+        public Builder setVerticalPadding(int verticalPadding) {
+            mVerticalPadding = verticalPadding;
+            return this;
+        }
+
+        public Builder setIconPadding(int iconPadding) {
+            mIconPadding = iconPadding;
+            return this;
+        }
+
+        public Builder setTagShape(int tagShape) {
+            mTagShape = tagShape;
+            return this;
+        }
+
+        /**
+         * 创建样式，返回共享实例
+         *
+         * @return
+         */
+        public TagStyle build() {
+            return _intern(new TagStyle(this));
+        }
+    }
+}
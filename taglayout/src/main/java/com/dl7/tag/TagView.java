@@ -3,27 +3,34 @@ package com.dl7.tag;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.annotation.IntDef;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewParent;
+import android.view.animation.AnimationUtils;
 
 import com.dl7.tag.drawable.RotateDrawable;
+import com.dl7.tag.layout.MeasureCache;
+import com.dl7.tag.utils.BitmapUtils;
 import com.dl7.tag.utils.MeasureUtils;
+import com.dl7.tag.utils.TextEllipsizer;
+import com.dl7.tag.utils.TextWidthCache;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -39,6 +46,26 @@ public class TagView extends View {
 
     // 无效数值
     public final static int INVALID_VALUE = -1;
+    // 裁剪文字时添加的省略号
+    private final static String ELLIPSIS = "...";
+    // 限制图标帧率时允许的误差，避免帧间隔抖动导致多丢一帧
+    private final static int ICON_FRAME_SLOP = 4;
+    // 添加在窗口中、因为不可见而暂停的动画图标数量，只在主线程访问
+    private static int sPausedIconCount;
+    // 属性变化的影响：只影响绘制、可能影响测量大小
+    private final static int DIRTY_DRAW = 0x1;
+    private final static int DIRTY_MEASURE = 0x2;
+    // 测量缓存保存的结果
+    private final static int MEASURE_WIDTH = 0;
+    private final static int MEASURE_HEIGHT = 1;
+    private final static int MEASURE_FONT_LEN = 2;
+    private final static int MEASURE_FONT_LEN_CHECKED = 3;
+    private final static int MEASURE_SHOW_TEXT_END = 4;
+    private final static int MEASURE_SHOW_TEXT_WIDTH = 5;
+    private final static int MEASURE_ICON_SIZE = 6;
+    private final static int MEASURE_ICON_LEFT = 7;
+    private final static int MEASURE_ICON_TOP = 8;
+    private final static int MEASURE_VALUE_COUNT = 9;
 
     // 3种外形模式：圆角矩形、圆弧、直角矩形
     public final static int SHAPE_ROUND_RECT = 101;
@@ -66,60 +93,77 @@ public class TagView extends View {
     public @interface TagMode {
     }
 
-    // 显示外形
-    private int mTagShape = SHAPE_ROUND_RECT;
     // 显示类型
     private int mTagMode = MODE_NORMAL;
-    // 画笔
-    private Paint mPaint;
-    // 背景色
-    private int mBgColor = Color.WHITE;
-    // 边框颜色
-    private int mBorderColor = Color.parseColor("#ff333333");
-    // 原始标签颜色
-    private int mTextColor = Color.parseColor("#ff666666");
-    // 选中状态背景色
-    private int mBgColorChecked = Color.WHITE;
-    // 选中状态边框颜色
-    private int mBorderColorChecked = Color.parseColor("#ff333333");
-    // 选中状态字体颜色
-    private int mTextColorChecked = Color.parseColor("#ff666666");
-    // 遮罩颜色
-    private int mScrimColor = Color.argb(0x66, 0xc0, 0xc0, 0xc0);
-    // 字体大小
-    private float mTextSize;
-    // 字体宽度和高度
+    // 样式，相同样式的 TagView 共享同一个实例
+    private TagStyle mStyle;
+    // 样式对应的共享画笔，绘制时不能修改
+    private TagPaintPool.TagPaints mPaints;
+    // 字体宽度
     private int mFontLen;
-    private int mFontH;
     private int mFontLenChecked;
-    // 基线偏移距离
-    private float mBaseLineDistance;
-    // 边框大小
-    private float mBorderWidth;
-    // 边框角半径
-    private float mRadius;
     // 内容
     private String mText;
     // 选中时内容
     private String mTextChecked;
-    // 显示的文字
+    // 显示的文字，裁剪时只显示 [0, mShowTextEnd) 部分再加上省略号
     private String mShowText;
-    // 字体水平空隙
-    private int mHorizontalPadding;
-    // 字体垂直空隙
-    private int mVerticalPadding;
+    private int mShowTextEnd = INVALID_VALUE;
+    // 裁剪部分的宽度
+    private float mShowTextWidth;
+    // 字符宽度前缀和缓冲区
+    private float[] mTextWidths;
     // 边框矩形
     private RectF mRect;
+    // 根据外形计算的圆角半径，大小或样式变化时更新
+    private float mShapeRadius;
     // 装饰的icon
     private Drawable mDecorateIcon;
+    // 当前设置给 mDecorateIcon 的颜色过滤器，没变化时不重复设置
+    private ColorFilter mIconColorFilter;
     // 变化模式下的icon
     private Drawable mDecorateIconChange;
     // 设置图标的位置，只支持左右两边
     private int mIconGravity = Gravity.LEFT;
-    // icon和文字间距
-    private int mIconPadding = 0;
     // icon大小
     private int mIconSize = 0;
+    // 动画图标的最大帧率，0 表示不限制
+    private int mIconMaxFps = 0;
+    // 上次因为动画图标重绘的时间
+    private long mLastIconFrameTime;
+    // 动画图标是否因为不可见被暂停，只恢复自己暂停的动画
+    private boolean mIsIconPaused;
+    private boolean mIsIconChangePaused;
+    private boolean mIsAttached;
+    // 是否和屏幕可见区域相交，由 TagLayout 在滚动时更新
+    private boolean mIsOnScreen = true;
+    // 等待刷新的属性变化，每帧统一处理一次
+    private int mDirtyFlags;
+    private boolean mIsFlushScheduled;
+    private final Runnable mFlushDirtyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            _flushDirty();
+        }
+    };
+    // 上次测量使用的 MeasureSpec，属性变化后用来判断大小是否改变
+    private boolean mIsMeasured;
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+    // _measureContent() 计算的大小
+    private int mContentWidth;
+    private int mContentHeight;
+    // 图标位置
+    private int mIconLeft;
+    private int mIconTop;
+    // 影响测量结果的内容版本，文字、选中状态、模式、图标和样式大小变化时增加
+    private int mContentVersion;
+    // 父布局一次布局过程中可能用不同的 MeasureSpec 测量多次，保存最近两次的结果
+    private final MeasureCache mMeasureCache = new MeasureCache(2, MEASURE_VALUE_COUNT);
+    // 在父布局中的位置，由 TagLayout 或 VirtualTagLayout 维护，TagLayout 中使用前需要校验是否过期
+    private int mLayoutPosition = INVALID_VALUE;
+    // TagLayout 中绑定的数据，不占用 setTag() 留给使用者
+    private TagItem mTagItem;
     // 是否选中
     private boolean mIsChecked = false;
     // 是否自动切换选中状态，不使能可以灵活地选择切换，通常用于等待网络返回再做切换
@@ -150,17 +194,18 @@ public class TagView extends View {
     }
 
     private void _init(Context context, AttributeSet attrs) {
-        mBorderWidth = MeasureUtils.dp2px(context, 0.5f);
-        mRadius = MeasureUtils.dp2px(context, 5f);
-        mHorizontalPadding = (int) MeasureUtils.dp2px(context, 5f);
-        mVerticalPadding = (int) MeasureUtils.dp2px(context, 5f);
-        mIconPadding = (int) MeasureUtils.dp2px(context, 3f);
-        mTextSize = MeasureUtils.dp2px(context, 14f);
+        TagStyle.Builder builder = new TagStyle.Builder();
+        float borderWidth = MeasureUtils.dp2px(context, 0.5f);
+        float radius = MeasureUtils.dp2px(context, 5f);
+        int horizontalPadding = (int) MeasureUtils.dp2px(context, 5f);
+        int verticalPadding = (int) MeasureUtils.dp2px(context, 5f);
+        int iconPadding = (int) MeasureUtils.dp2px(context, 3f);
+        float textSize = MeasureUtils.dp2px(context, 14f);
 
         if (attrs != null) {
             final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TagView);
             try {
-                mTagShape = a.getInteger(R.styleable.TagView_tag_shape, TagView.SHAPE_ROUND_RECT);
+                builder.setTagShape(a.getInteger(R.styleable.TagView_tag_shape, TagView.SHAPE_ROUND_RECT));
                 mTagMode = a.getInteger(R.styleable.TagView_tag_mode, MODE_NORMAL);
                 if (mTagMode == MODE_SINGLE_CHOICE || mTagMode == MODE_ICON_CHECK_INVISIBLE || mTagMode == MODE_ICON_CHECK_CHANGE) {
                     mIsAutoToggleCheck = true;
@@ -172,24 +217,37 @@ public class TagView extends View {
 
                 mText = a.getString(R.styleable.TagView_tag_text);
                 mTextChecked = a.getString(R.styleable.TagView_tag_text_check);
-                mTextSize = a.getDimension(R.styleable.TagView_tag_text_size, mTextSize);
-                mBgColor = a.getColor(R.styleable.TagView_tag_bg_color, Color.WHITE);
-                mBorderColor = a.getColor(R.styleable.TagView_tag_border_color, Color.parseColor("#ff333333"));
-                mTextColor = a.getColor(R.styleable.TagView_tag_text_color, Color.parseColor("#ff666666"));
-                mBgColorChecked = a.getColor(R.styleable.TagView_tag_bg_color_check, mBgColor);
-                mBorderColorChecked = a.getColor(R.styleable.TagView_tag_border_color_check, mBorderColor);
-                mTextColorChecked = a.getColor(R.styleable.TagView_tag_text_color_check, mTextColor);
-                mBorderWidth = a.getDimension(R.styleable.TagView_tag_border_width, mBorderWidth);
-                mRadius = a.getDimension(R.styleable.TagView_tag_border_radius, mRadius);
-                mHorizontalPadding = (int) a.getDimension(R.styleable.TagView_tag_horizontal_padding, mHorizontalPadding);
-                mVerticalPadding = (int) a.getDimension(R.styleable.TagView_tag_vertical_padding, mVerticalPadding);
-                mIconPadding = (int) a.getDimension(R.styleable.TagView_tag_icon_padding, mIconPadding);
+                textSize = a.getDimension(R.styleable.TagView_tag_text_size, textSize);
+                int bgColor = a.getColor(R.styleable.TagView_tag_bg_color, Color.WHITE);
+                int borderColor = a.getColor(R.styleable.TagView_tag_border_color, Color.parseColor("#ff333333"));
+                int textColor = a.getColor(R.styleable.TagView_tag_text_color, Color.parseColor("#ff666666"));
+                builder.setBgColor(bgColor)
+                        .setBorderColor(borderColor)
+                        .setTextColor(textColor)
+                        .setBgColorChecked(a.getColor(R.styleable.TagView_tag_bg_color_check, bgColor))
+                        .setBorderColorChecked(a.getColor(R.styleable.TagView_tag_border_color_check, borderColor))
+                        .setTextColorChecked(a.getColor(R.styleable.TagView_tag_text_color_check, textColor));
+                borderWidth = a.getDimension(R.styleable.TagView_tag_border_width, borderWidth);
+                radius = a.getDimension(R.styleable.TagView_tag_border_radius, radius);
+                horizontalPadding = (int) a.getDimension(R.styleable.TagView_tag_horizontal_padding, horizontalPadding);
+                verticalPadding = (int) a.getDimension(R.styleable.TagView_tag_vertical_padding, verticalPadding);
+                iconPadding = (int) a.getDimension(R.styleable.TagView_tag_icon_padding, iconPadding);
                 mDecorateIcon = a.getDrawable(R.styleable.TagView_tag_icon);
                 mIconGravity = a.getInteger(R.styleable.TagView_tag_gravity, Gravity.LEFT);
+                mIconMaxFps = Math.max(a.getInteger(R.styleable.TagView_tag_icon_max_fps, 0), 0);
             } finally {
                 a.recycle();
             }
         }
+        // 相同属性的 TagView 共享同一个样式
+        mStyle = builder.setBorderWidth(borderWidth)
+                .setRadius(radius)
+                .setHorizontalPadding(horizontalPadding)
+                .setVerticalPadding(verticalPadding)
+                .setIconPadding(iconPadding)
+                .setTextSize(textSize)
+                .build();
+        mPaints = TagPaintPool.obtain(mStyle);
 
         if (mTagMode == MODE_ICON_CHECK_CHANGE && mDecorateIconChange == null) {
             throw new RuntimeException("You must set the drawable by 'tag_icon_change' property in MODE_ICON_CHECK_CHANGE mode");
@@ -198,11 +256,10 @@ public class TagView extends View {
             mDecorateIcon.setCallback(this);
         }
         if (mDecorateIconChange != null) {
-            mDecorateIconChange.setColorFilter(mTextColorChecked, PorterDuff.Mode.SRC_IN);
+            mDecorateIconChange.setColorFilter(mPaints.getTextColorFilter(true));
             mDecorateIconChange.setCallback(this);
         }
         mRect = new RectF();
-        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         setClickable(true);
         if (!isSaveEnabled()) {
             // 使能状态保存
@@ -213,7 +270,7 @@ public class TagView extends View {
             @Override
             public void onClick(View v) {
                 if (mTagClickListener != null) {
-                    mTagClickListener.onTagClick(getTag() == null ? 0 : (int) getTag(), mText, mTagMode);
+                    mTagClickListener.onTagClick(_getPosition(), mText, mTagMode);
                 }
             }
         });
@@ -221,67 +278,76 @@ public class TagView extends View {
             @Override
             public boolean onLongClick(View v) {
                 if (mTagLongClickListener != null) {
-                    mTagLongClickListener.onTagLongClick(getTag() == null ? 0 : (int) getTag(), mText, mTagMode);
+                    mTagLongClickListener.onTagLongClick(_getPosition(), mText, mTagMode);
                 }
                 return true;
             }
         });
     }
 
+    /**
+     * 获取位置，在 TagLayout 中由 TagLayout 提供，其次使用父布局设置的位置，单独使用时兼容 tag 保存的位置
+     *
+     * @return
+     */
+    private int _getPosition() {
+        ViewParent parent = getParent();
+        if (parent instanceof TagLayout) {
+            return Math.max(((TagLayout) parent).getTagPosition(this), 0);
+        }
+        if (mLayoutPosition != INVALID_VALUE) {
+            return mLayoutPosition;
+        }
+        Object tag = getTag();
+        if (tag instanceof Integer) {
+            return (Integer) tag;
+        }
+        return 0;
+    }
+
     /**
      * 调整显示的字符
      * @param maxWidth
      * @return
      */
     private int _adjustText(int maxWidth) {
-        if (mPaint.getTextSize() != mTextSize) {
-            mPaint.setTextSize(mTextSize);
-            final Paint.FontMetrics fontMetrics = mPaint.getFontMetrics();
-            // 文字高度
-            mFontH = (int) (fontMetrics.descent - fontMetrics.ascent);
-            // 用来设置基线的偏移量,再加上 getHeight() / 2 就是基线坐标
-            mBaseLineDistance = (int) Math.ceil((fontMetrics.descent - fontMetrics.ascent) / 2 - fontMetrics.descent);
-        }
+        final TagStyle style = mStyle;
+        final Paint textPaint = mPaints.getTextPaint(false);
+        final int fontH = mPaints.getFontHeight();
         // 计算文字宽度
         if (TextUtils.isEmpty(mText)) {
             mText = "";
         }
-        mFontLen = (int) mPaint.measureText(mText);
+        mFontLen = (int) TextWidthCache.measureText(textPaint, mText);
         if (TextUtils.isEmpty(mTextChecked)) {
             mFontLenChecked = mFontLen;
         } else {
-            mFontLenChecked = (int) mPaint.measureText(mTextChecked);
+            mFontLenChecked = (int) TextWidthCache.measureText(textPaint, mTextChecked);
         }
         // 计算图标大小
-        if ((mDecorateIcon != null || mDecorateIconChange != null) && mIconSize != mFontH) {
-            mIconSize = mFontH;
+        if ((mDecorateIcon != null || mDecorateIconChange != null) && mIconSize != fontH) {
+            mIconSize = fontH;
         }
         // 计算出了文字外所需要占用的宽度
+        final int iconPadding = style.getIconPadding();
+        final int horizontalPadding = style.getHorizontalPadding();
         int allPadding;
         if (mTagMode == MODE_ICON_CHECK_CHANGE && mIsChecked) {
-            allPadding = mIconPadding + mIconSize + mHorizontalPadding * 2;
+            allPadding = iconPadding + mIconSize + horizontalPadding * 2;
         } else if (mDecorateIcon != null) {
-            allPadding = (mTagMode == MODE_ICON_CHECK_INVISIBLE && mIsChecked) ? mHorizontalPadding * 2 :
-                    mIconPadding + mIconSize + mHorizontalPadding * 2;
+            allPadding = (mTagMode == MODE_ICON_CHECK_INVISIBLE && mIsChecked) ? horizontalPadding * 2 :
+                    iconPadding + mIconSize + horizontalPadding * 2;
         } else {
-            allPadding = mHorizontalPadding * 2;
+            allPadding = horizontalPadding * 2;
         }
         // 设置显示的文字
         String showText = (mIsChecked && !TextUtils.isEmpty(mTextChecked)) ? mTextChecked : mText;
+        mShowText = showText;
+        mShowTextEnd = INVALID_VALUE;
         if (mIsChecked && mFontLenChecked + allPadding > maxWidth) {
-            float pointWidth = mPaint.measureText(".");
-            // 计算能显示的字体长度
-            float maxTextWidth = maxWidth - allPadding - pointWidth * 3;
-            mShowText = _clipShowText(showText, mPaint, maxTextWidth);
-            mFontLenChecked = (int) mPaint.measureText(mShowText);
+            mFontLenChecked = _clipShowText(showText, maxWidth - allPadding);
         } else if (!mIsChecked && mFontLen + allPadding > maxWidth) {
-            float pointWidth = mPaint.measureText(".");
-            // 计算能显示的字体长度
-            float maxTextWidth = maxWidth - allPadding - pointWidth * 3;
-            mShowText = _clipShowText(showText, mPaint, maxTextWidth);
-            mFontLen = (int) mPaint.measureText(mShowText);
-        } else {
-            mShowText = showText;
+            mFontLen = _clipShowText(showText, maxWidth - allPadding);
         }
 
         return allPadding;
@@ -289,96 +355,141 @@ public class TagView extends View {
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        ViewParent parent = getParent();
-        if (parent instanceof TagLayout) {
-            int fitTagNum = ((TagLayout) getParent()).getFitTagNum();
-            if (fitTagNum != INVALID_VALUE) {
-                int availableWidth = ((TagLayout) getParent()).getAvailableWidth();
-                int horizontalInterval = ((TagLayout) getParent()).getHorizontalInterval();
-                int fitWidth = (availableWidth - (fitTagNum - 1) * horizontalInterval) / fitTagNum;
-                widthMeasureSpec = MeasureSpec.makeMeasureSpec(fitWidth, MeasureSpec.EXACTLY);
+        mIsMeasured = true;
+        mLastWidthMeasureSpec = widthMeasureSpec;
+        mLastHeightMeasureSpec = heightMeasureSpec;
+        // 已经重新测量，不需要再检查大小变化
+        mDirtyFlags &= ~DIRTY_MEASURE;
+        _measureContent(widthMeasureSpec, heightMeasureSpec);
+        setMeasuredDimension(mContentWidth, mContentHeight);
+    }
+
+    /**
+     * 计算文字、图标位置和控件大小，结果保存在 mContentWidth 和 mContentHeight
+     * MeasureSpec 和内容都没有变化时直接使用缓存的结果
+     *
+     * @param widthMeasureSpec
+     * @param heightMeasureSpec
+     */
+    private void _measureContent(int widthMeasureSpec, int heightMeasureSpec) {
+        final MeasureCache cache = mMeasureCache;
+        int slot = cache.find(widthMeasureSpec, heightMeasureSpec, mContentVersion);
+        if (slot >= 0) {
+            mContentWidth = cache.getValue(slot, MEASURE_WIDTH);
+            mContentHeight = cache.getValue(slot, MEASURE_HEIGHT);
+            mFontLen = cache.getValue(slot, MEASURE_FONT_LEN);
+            mFontLenChecked = cache.getValue(slot, MEASURE_FONT_LEN_CHECKED);
+            mShowTextEnd = cache.getValue(slot, MEASURE_SHOW_TEXT_END);
+            mShowTextWidth = Float.intBitsToFloat(cache.getValue(slot, MEASURE_SHOW_TEXT_WIDTH));
+            mIconSize = cache.getValue(slot, MEASURE_ICON_SIZE);
+            mIconLeft = cache.getValue(slot, MEASURE_ICON_LEFT);
+            mIconTop = cache.getValue(slot, MEASURE_ICON_TOP);
+            mShowText = (mIsChecked && !TextUtils.isEmpty(mTextChecked)) ? mTextChecked : mText;
+        } else {
+            _computeContent(widthMeasureSpec, heightMeasureSpec);
+            slot = cache.put(widthMeasureSpec, heightMeasureSpec, mContentVersion);
+            cache.setValue(slot, MEASURE_WIDTH, mContentWidth);
+            cache.setValue(slot, MEASURE_HEIGHT, mContentHeight);
+            cache.setValue(slot, MEASURE_FONT_LEN, mFontLen);
+            cache.setValue(slot, MEASURE_FONT_LEN_CHECKED, mFontLenChecked);
+            cache.setValue(slot, MEASURE_SHOW_TEXT_END, mShowTextEnd);
+            cache.setValue(slot, MEASURE_SHOW_TEXT_WIDTH, Float.floatToIntBits(mShowTextWidth));
+            cache.setValue(slot, MEASURE_ICON_SIZE, mIconSize);
+            cache.setValue(slot, MEASURE_ICON_LEFT, mIconLeft);
+            cache.setValue(slot, MEASURE_ICON_TOP, mIconTop);
+        }
+        // 设置图标位置
+        if (mDecorateIcon != null || mDecorateIconChange != null) {
+            final int left = mIconLeft;
+            final int top = mIconTop;
+            if (mTagMode == MODE_ICON_CHECK_CHANGE && mIsChecked && mDecorateIconChange != null) {
+                mDecorateIconChange.setBounds(left, top, mIconSize + left, mIconSize + top);
+            } else if (mDecorateIcon != null) {
+                mDecorateIcon.setBounds(left, top, mIconSize + left, mIconSize + top);
+            }
+            if (mIsIconPaused || mIsIconChangePaused) {
+                _updateIconAnimation();
             }
         }
+    }
 
+    /**
+     * 计算测量结果，不使用缓存
+     */
+    private void _computeContent(int widthMeasureSpec, int heightMeasureSpec) {
         int allPadding = _adjustText(MeasureSpec.getSize(widthMeasureSpec));
         int fontLen = mIsChecked ? mFontLenChecked : mFontLen;
         // 如果为精确测量 MeasureSpec.EXACTLY，则直接使用测量的大小，否则让控件实现自适应
-        // 如果你用了精确测量则 mHorizontalPadding 和 mVerticalPadding 会对最终大小判定无效
+        // 如果你用了精确测量则 horizontalPadding 和 verticalPadding 会对最终大小判定无效
         int width = (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY) ?
                 MeasureSpec.getSize(widthMeasureSpec) : allPadding + fontLen;
         int height = (MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY) ?
-                MeasureSpec.getSize(heightMeasureSpec) : mVerticalPadding * 2 + mFontH;
-        setMeasuredDimension(width, height);
+                MeasureSpec.getSize(heightMeasureSpec) : mStyle.getVerticalPadding() * 2 + mPaints.getFontHeight();
+        mContentWidth = width;
+        mContentHeight = height;
         // 计算图标放置位置
         if (mDecorateIcon != null || mDecorateIconChange != null) {
-            int top = (height - mIconSize) / 2;
-            int left;
+            final int iconPadding = mStyle.getIconPadding();
+            mIconTop = (height - mIconSize) / 2;
             if (mIconGravity == Gravity.RIGHT) {
-                int padding = (width - mIconSize - fontLen - mIconPadding) / 2;
-                left = width - padding - mIconSize;
+                int padding = (width - mIconSize - fontLen - iconPadding) / 2;
+                mIconLeft = width - padding - mIconSize;
             } else {
-                left = (width - mIconSize - fontLen - mIconPadding) / 2;
-            }
-            if (mTagMode == MODE_ICON_CHECK_CHANGE && mIsChecked && mDecorateIconChange != null) {
-                mDecorateIconChange.setBounds(left, top, mIconSize + left, mIconSize + top);
-            } else if (mDecorateIcon != null) {
-                mDecorateIcon.setBounds(left, top, mIconSize + left, mIconSize + top);
+                mIconLeft = (width - mIconSize - fontLen - iconPadding) / 2;
             }
         }
     }
 
+    /**
+     * 影响测量结果的内容发生变化，之前缓存的测量结果失效
+     */
+    private void _invalidateMeasureCache() {
+        mContentVersion++;
+    }
+
+    int getMeasureHitCount() {
+        return mMeasureCache.getHitCount();
+    }
+
+    int getMeasureMissCount() {
+        return mMeasureCache.getMissCount();
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         // 设置矩形边框
-        mRect.set(mBorderWidth, mBorderWidth, w - mBorderWidth, h - mBorderWidth);
+        final float borderWidth = mStyle.getBorderWidth();
+        mRect.set(borderWidth, borderWidth, w - borderWidth, h - borderWidth);
+        mShapeRadius = getShapeRadius(mStyle.getTagShape(), mStyle.getRadius(), mRect);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        final TagStyle style = mStyle;
         // 圆角
-        float radius = mRadius;
-        if (mTagShape == SHAPE_ARC) {
-            radius = mRect.height() / 2;
-        } else if (mTagShape == SHAPE_RECT) {
-            radius = 0;
-        }
+        final float radius = mShapeRadius;
         // 判断按压反馈和选中状态
         final boolean isChecked = (mIsPressed && mIsPressFeedback) || mIsChecked;
+        final TagPaintPool.TagPaints paints = mPaints;
         // 绘制背景
-        mPaint.setStyle(Paint.Style.FILL);
-        if (isChecked) {
-            mPaint.setColor(mBgColorChecked);
-        } else {
-            mPaint.setColor(mBgColor);
-        }
-        canvas.drawRoundRect(mRect, radius, radius, mPaint);
+        canvas.drawRoundRect(mRect, radius, radius, paints.getFillPaint(isChecked));
         // 绘制边框
-        mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setStrokeWidth(mBorderWidth);
-        if (isChecked) {
-            mPaint.setColor(mBorderColorChecked);
-        } else {
-            mPaint.setColor(mBorderColor);
-        }
-        canvas.drawRoundRect(mRect, radius, radius, mPaint);
+        canvas.drawRoundRect(mRect, radius, radius, paints.getStrokePaint(isChecked));
         // 绘制文字
-        mPaint.setStyle(Paint.Style.FILL);
+        final Paint textPaint = paints.getTextPaint(isChecked);
+        final float baseLineDistance = paints.getBaseLineDistance();
         if (isChecked) {
-            mPaint.setColor(mTextColorChecked);
-            int padding = (mTagMode == MODE_ICON_CHECK_INVISIBLE && mIsChecked) ? 0 : mIconSize + mIconPadding;
+            int padding = (mTagMode == MODE_ICON_CHECK_INVISIBLE && mIsChecked) ? 0 : mIconSize + style.getIconPadding();
             int fontLen = mIsChecked ? mFontLenChecked : mFontLen;
-            canvas.drawText(mShowText,
-                    mIconGravity == Gravity.RIGHT ? (getWidth() - fontLen - padding) / 2
+            _drawShowText(canvas, mIconGravity == Gravity.RIGHT ? (getWidth() - fontLen - padding) / 2
                             : (getWidth() - fontLen - padding) / 2 + padding,
-                    getHeight() / 2 + mBaseLineDistance, mPaint);
+                    getHeight() / 2 + baseLineDistance, textPaint);
         } else {
-            mPaint.setColor(mTextColor);
-            int padding = mDecorateIcon == null ? 0 : mIconSize + mIconPadding;
-            canvas.drawText(mShowText,
-                    mIconGravity == Gravity.RIGHT ? (getWidth() - mFontLen - padding) / 2
+            int padding = mDecorateIcon == null ? 0 : mIconSize + style.getIconPadding();
+            _drawShowText(canvas, mIconGravity == Gravity.RIGHT ? (getWidth() - mFontLen - padding) / 2
                             : (getWidth() - mFontLen - padding) / 2 + padding,
-                    getHeight() / 2 + mBaseLineDistance, mPaint);
+                    getHeight() / 2 + baseLineDistance, textPaint);
         }
         // 绘制Icon
         if (mTagMode == MODE_ICON_CHECK_CHANGE && mIsChecked && mDecorateIconChange != null) {
@@ -386,40 +497,226 @@ public class TagView extends View {
         } else if (mTagMode == MODE_ICON_CHECK_INVISIBLE && mIsChecked) {
             // Don't need to draw
         } else if (mDecorateIcon != null) {
-            mDecorateIcon.setColorFilter(mPaint.getColor(), PorterDuff.Mode.SRC_IN);
+            // 颜色过滤器是共享的，只在切换颜色时设置，避免每帧创建对象
+            final ColorFilter colorFilter = paints.getTextColorFilter(isChecked);
+            if (mIconColorFilter != colorFilter) {
+                mIconColorFilter = colorFilter;
+                mDecorateIcon.setColorFilter(colorFilter);
+            }
             mDecorateIcon.draw(canvas);
         }
         // 绘制半透明遮罩
         if (mIsPressed && (mIsChecked || !mIsPressFeedback)) {
-            mPaint.setColor(mScrimColor);
-            canvas.drawRoundRect(mRect, radius, radius, mPaint);
+            canvas.drawRoundRect(mRect, radius, radius, paints.getScrimPaint());
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mIsAttached = true;
+        // 移出窗口期间暂停的图标不计数，重新添加后计入，恢复时再减去
+        sPausedIconCount += _getPausedCount();
+        // 从复用池重新添加时恢复回调和动画
+        if (mDecorateIcon != null) {
+            mDecorateIcon.setCallback(this);
+        }
+        if (mDecorateIconChange != null) {
+            mDecorateIconChange.setCallback(this);
         }
+        _updateIconAnimation();
     }
 
     @Override
     protected void onDetachedFromWindow() {
+        // 移出窗口的TagView可能不会再使用，暂停的图标不再计数，避免计数只增不减
+        sPausedIconCount -= _getPausedCount();
+        mIsAttached = false;
+        _updateIconAnimation();
         if (mDecorateIcon != null && mDecorateIcon instanceof Animatable) {
-            ((Animatable)mDecorateIcon).stop();
             mDecorateIcon.setCallback(null);
         }
         if (mDecorateIconChange != null && mDecorateIconChange instanceof Animatable) {
-            ((Animatable)mDecorateIconChange).stop();
             mDecorateIconChange.setCallback(null);
         }
         super.onDetachedFromWindow();
     }
 
     @Override
-    public void invalidateDrawable(Drawable drawable) {
-        if ((mDecorateIcon != null && mDecorateIcon instanceof Animatable) ||
-                (mDecorateIconChange != null && mDecorateIconChange instanceof Animatable)) {
-            postInvalidate();
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        _updateIconAnimation();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        _updateIconAnimation();
+    }
+
+    /**
+     * 根据可见状态暂停或恢复动画图标，不可见包括：没有添加到窗口、窗口不可见、自身或父视图不可见、滚动到屏幕外
+     */
+    private void _updateIconAnimation() {
+        final boolean isVisible = mIsAttached && mIsOnScreen && getWindowVisibility() == VISIBLE && isShown();
+        if (isVisible) {
+            if (mIsIconPaused) {
+                _setIconPaused(false, false);
+                ((Animatable) mDecorateIcon).start();
+            }
+            if (mIsIconChangePaused) {
+                _setIconPaused(true, false);
+                ((Animatable) mDecorateIconChange).start();
+            }
         } else {
+            // 暂停后图标可能在大小变化时自己重新启动，需要再次停止
+            if (_isIconRunning(mDecorateIcon)) {
+                _setIconPaused(false, true);
+                ((Animatable) mDecorateIcon).stop();
+            }
+            if (_isIconRunning(mDecorateIconChange)) {
+                _setIconPaused(true, true);
+                ((Animatable) mDecorateIconChange).stop();
+            }
+        }
+    }
+
+    /**
+     * 设置图标的暂停状态，只有添加在窗口中时计数
+     */
+    private void _setIconPaused(boolean isIconChange, boolean isPaused) {
+        if ((isIconChange ? mIsIconChangePaused : mIsIconPaused) == isPaused) {
+            return;
+        }
+        if (isIconChange) {
+            mIsIconChangePaused = isPaused;
+        } else {
+            mIsIconPaused = isPaused;
+        }
+        if (mIsAttached) {
+            sPausedIconCount += isPaused ? 1 : -1;
+        }
+    }
+
+    private int _getPausedCount() {
+        return (mIsIconPaused ? 1 : 0) + (mIsIconChangePaused ? 1 : 0);
+    }
+
+    private static boolean _isIconRunning(Drawable icon) {
+        return icon instanceof Animatable && ((Animatable) icon).isRunning();
+    }
+
+    /**
+     * 替换图标前调用，旧图标保持停止状态
+     */
+    private void _clearIconPaused(boolean isIconChange) {
+        _setIconPaused(isIconChange, false);
+    }
+
+    /**
+     * 是否有动画图标
+     *
+     * @return
+     */
+    boolean hasAnimatedIcon() {
+        return mDecorateIcon instanceof Animatable || mDecorateIconChange instanceof Animatable;
+    }
+
+    /**
+     * 设置是否和屏幕可见区域相交，不相交时暂停动画图标
+     *
+     * @param isOnScreen
+     */
+    void setIconOnScreen(boolean isOnScreen) {
+        if (mIsOnScreen != isOnScreen) {
+            mIsOnScreen = isOnScreen;
+            _updateIconAnimation();
+        }
+    }
+
+    /**
+     * 获取测量后实际显示的文字，裁剪时不包括省略号
+     *
+     * @return
+     */
+    String getShowText() {
+        if (mShowText == null || mShowTextEnd == INVALID_VALUE) {
+            return mShowText;
+        }
+        return mShowText.substring(0, mShowTextEnd);
+    }
+
+    int getLayoutPosition() {
+        return mLayoutPosition;
+    }
+
+    void setLayoutPosition(int layoutPosition) {
+        mLayoutPosition = layoutPosition;
+    }
+
+    TagItem getTagItem() {
+        return mTagItem;
+    }
+
+    void setTagItem(TagItem tagItem) {
+        mTagItem = tagItem;
+    }
+
+    /**
+     * 添加在窗口中、因为不可见而暂停的动画图标数量，移出窗口的不计入，正在运行的数量见 {@link com.dl7.tag.drawable.TagAnimationClock#getCallbackCount()}
+     *
+     * @return
+     */
+    public static int getPausedIconCount() {
+        return sPausedIconCount;
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mDecorateIcon || who == mDecorateIconChange || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable drawable) {
+        if (drawable != mDecorateIcon && drawable != mDecorateIconChange) {
             super.invalidateDrawable(drawable);
+            return;
+        }
+        // 动画运行中才限制帧率，停止时的最后一帧要正常刷新
+        if (mIconMaxFps > 0 && drawable instanceof Animatable && ((Animatable) drawable).isRunning()) {
+            long now = AnimationUtils.currentAnimationTimeMillis();
+            if (now - mLastIconFrameTime < 1000 / mIconMaxFps - ICON_FRAME_SLOP) {
+                return;
+            }
+            mLastIconFrameTime = now;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            // 只刷新图标区域，不需要 post
+            super.invalidateDrawable(drawable);
+        } else {
+            final Rect dirty = drawable.getBounds();
+            postInvalidate(dirty.left, dirty.top, dirty.right, dirty.bottom);
         }
     }
 
 
+    /**
+     * 根据外形计算圆角半径
+     *
+     * @param tagShape 外形
+     * @param radius   设置的圆角半径
+     * @param rect     边框矩形
+     * @return
+     */
+    static float getShapeRadius(int tagShape, float radius, RectF rect) {
+        if (tagShape == SHAPE_ARC) {
+            return rect.height() / 2;
+        } else if (tagShape == SHAPE_RECT) {
+            return 0;
+        }
+        return radius;
+    }
+
     /**
      * ==================================== 触摸点击控制 ====================================
      */
@@ -484,7 +781,19 @@ public class TagView extends View {
     public void setChecked(boolean checked) {
         _setTagCheckStatus(checked);
         if (mTagCheckListener != null) {
-            mTagCheckListener.onTagCheck(getTag() == null ? 0 : (int) getTag(), mText, mIsChecked);
+            mTagCheckListener.onTagCheck(_getPosition(), mText, mIsChecked);
+        }
+    }
+
+    /**
+     * 设置选中状态，不回调监听器也不刷新界面
+     *
+     * @param checked
+     */
+    public void setCheckedLazy(boolean checked) {
+        if (mIsChecked != checked) {
+            mIsChecked = checked;
+            _invalidateMeasureCache();
         }
     }
 
@@ -500,37 +809,37 @@ public class TagView extends View {
             return;
         }
         mIsChecked = isChecked;
-        // 注意，这里用 requestLayout() 而不是只用 invalidate()，因为 invalidate() 没法回调 onMeasure() 进行测量，
-        // 如果控件自适应大小的话是有可能改变大小的，所以加上 requestLayout()
-//        requestLayout();
-//        invalidate();
-        updateView();
+        _invalidateMeasureCache();
+        // 选中状态会改变显示的文字和图标，自适应大小时可能改变大小，在刷新时判断是否需要 requestLayout()
+        _markDirty(DIRTY_MEASURE);
     }
 
     /**
-     * 裁剪Text
+     * 裁剪Text，只记录显示的结束位置，不创建新的字符串
      *
      * @param oriText
-     * @param paint
-     * @param maxTextWidth
-     * @return
+     * @param maxWidth 文字能占用的最大宽度，包括省略号
+     * @return 裁剪后的文字宽度
      */
-    private String _clipShowText(String oriText, Paint paint, float maxTextWidth) {
-        float tmpWidth = 0;
-        StringBuilder strBuilder = new StringBuilder();
-        for (int i = 0; i < oriText.length(); i++) {
-            char c = oriText.charAt(i);
-            float cWidth = paint.measureText(String.valueOf(c));
-            // 计算每个字符的宽度之和，如果超过能显示的长度则退出
-            if (tmpWidth + cWidth > maxTextWidth) {
-                break;
-            }
-            strBuilder.append(c);
-            tmpWidth += cWidth;
+    private int _clipShowText(String oriText, float maxWidth) {
+        final Paint textPaint = mPaints.getTextPaint(false);
+        float ellipsisWidth = TextWidthCache.measureText(textPaint, ELLIPSIS);
+        mTextWidths = TextEllipsizer.obtainBuffer(mTextWidths, oriText.length());
+        mShowTextEnd = TextEllipsizer.ellipsize(textPaint, oriText, maxWidth - ellipsisWidth, mTextWidths);
+        mShowTextWidth = mTextWidths[mShowTextEnd];
+        return (int) (mShowTextWidth + ellipsisWidth);
+    }
+
+    /**
+     * 绘制显示的文字
+     */
+    private void _drawShowText(Canvas canvas, float x, float y, Paint paint) {
+        if (mShowTextEnd == INVALID_VALUE) {
+            canvas.drawText(mShowText, x, y, paint);
+        } else {
+            canvas.drawText(mShowText, 0, mShowTextEnd, x, y, paint);
+            canvas.drawText(ELLIPSIS, x + mShowTextWidth, y, paint);
         }
-        // 末尾添加3个.并设置为显示字符
-        strBuilder.append("...");
-        return strBuilder.toString();
     }
 
     /**
@@ -538,17 +847,66 @@ public class TagView extends View {
      * 带有Lazy的后缀统一不调用 requestLayout() 和 invalidate()，避免多次绘制
      */
 
+    public TagStyle getTagStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 设置样式，只影响绘制的属性变化时只重绘
+     *
+     * @param style 共享的样式
+     */
+    public void setTagStyle(TagStyle style) {
+        TagStyle oldStyle = mStyle;
+        if (_swapStyle(style)) {
+            _markDirty(oldStyle.hasSameMetrics(style) ? DIRTY_DRAW : DIRTY_MEASURE);
+        }
+    }
+
+    public void setTagStyleLazy(TagStyle style) {
+        _swapStyle(style);
+    }
+
+    /**
+     * 替换样式引用
+     *
+     * @param style
+     * @return 样式是否变化
+     */
+    private boolean _swapStyle(TagStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("TagStyle can not be null");
+        }
+        final TagStyle oldStyle = mStyle;
+        if (oldStyle == style) {
+            return false;
+        }
+        mStyle = style;
+        mPaints = TagPaintPool.obtain(style);
+        if (!oldStyle.hasSameMetrics(style)) {
+            _invalidateMeasureCache();
+        }
+        if (oldStyle.getBorderWidth() != style.getBorderWidth()) {
+            final float borderWidth = style.getBorderWidth();
+            mRect.set(borderWidth, borderWidth, getWidth() - borderWidth, getHeight() - borderWidth);
+        }
+        mShapeRadius = getShapeRadius(style.getTagShape(), style.getRadius(), mRect);
+        if (mDecorateIconChange != null) {
+            mDecorateIconChange.setColorFilter(mPaints.getTextColorFilter(true));
+        }
+        return true;
+    }
+
     public int getTagShape() {
-        return mTagShape;
+        return mStyle.getTagShape();
     }
 
     public void setTagShape(int tagShape) {
-        mTagShape = tagShape;
-        updateView();
+        setTagStyle(new TagStyle.Builder(mStyle).setTagShape(tagShape).build());
     }
 
     public void setTagShapeLazy(int tagShape) {
-        mTagShape = tagShape;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setTagShape(tagShape).build());
     }
 
     public int getTagMode() {
@@ -557,161 +915,150 @@ public class TagView extends View {
 
     public void setTagMode(int tagMode) {
         mTagMode = tagMode;
+        _invalidateMeasureCache();
         if (mTagMode == MODE_CHANGE) {
-            Bitmap bitmap = BitmapFactory.decodeResource(getResources(), R.drawable.ic_change);
+            Bitmap bitmap = BitmapUtils.decodeResource(getResources(), R.drawable.ic_change);
+            _clearIconPaused(false);
             mDecorateIcon = new RotateDrawable(bitmap);
             mDecorateIcon.setCallback(this);
+            mIconColorFilter = null;
         }
         updateView();
     }
 
     public void setTagModeLazy(int tagMode) {
         mTagMode = tagMode;
+        _invalidateMeasureCache();
         if (mTagMode == MODE_SINGLE_CHOICE || mTagMode == MODE_MULTI_CHOICE) {
             setPressFeedback(true);
             mIsAutoToggleCheck = true;
         } else if (mTagMode == MODE_CHANGE) {
-            Bitmap bitmap = BitmapFactory.decodeResource(getResources(), R.drawable.ic_change);
+            Bitmap bitmap = BitmapUtils.decodeResource(getResources(), R.drawable.ic_change);
+            _clearIconPaused(false);
             mDecorateIcon = new RotateDrawable(bitmap);
             mDecorateIcon.setCallback(this);
+            mIconColorFilter = null;
         }
     }
 
     public int getBgColor() {
-        return mBgColor;
+        return mStyle.getBgColor();
     }
 
     public void setBgColor(int bgColor) {
-        mBgColor = bgColor;
-        // 设置颜色调用这个就行，回调onDraw()
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setBgColor(bgColor).build());
     }
 
     public void setBgColorLazy(int bgColor) {
-        mBgColor = bgColor;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setBgColor(bgColor).build());
     }
 
     public int getBorderColor() {
-        return mBorderColor;
+        return mStyle.getBorderColor();
     }
 
     public void setBorderColor(int borderColor) {
-        mBorderColor = borderColor;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setBorderColor(borderColor).build());
     }
 
     public void setBorderColorLazy(int borderColor) {
-        mBorderColor = borderColor;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setBorderColor(borderColor).build());
     }
 
     public int getTextColor() {
-        return mTextColor;
+        return mStyle.getTextColor();
     }
 
     public void setTextColor(int textColor) {
-        mTextColor = textColor;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setTextColor(textColor).build());
     }
 
     public void setTextColorLazy(int textColor) {
-        mTextColor = textColor;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setTextColor(textColor).build());
     }
 
     public int getBgColorChecked() {
-        return mBgColorChecked;
+        return mStyle.getBgColorChecked();
     }
 
     public void setBgColorChecked(int bgColorChecked) {
-        mBgColorChecked = bgColorChecked;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setBgColorChecked(bgColorChecked).build());
     }
 
     public void setBgColorCheckedLazy(int bgColorChecked) {
-        mBgColorChecked = bgColorChecked;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setBgColorChecked(bgColorChecked).build());
     }
 
     public int getBorderColorChecked() {
-        return mBorderColorChecked;
+        return mStyle.getBorderColorChecked();
     }
 
     public void setBorderColorChecked(int borderColorChecked) {
-        mBorderColorChecked = borderColorChecked;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setBorderColorChecked(borderColorChecked).build());
     }
 
     public void setBorderColorCheckedLazy(int borderColorChecked) {
-        mBorderColorChecked = borderColorChecked;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setBorderColorChecked(borderColorChecked).build());
     }
 
     public int getTextColorChecked() {
-        return mTextColorChecked;
+        return mStyle.getTextColorChecked();
     }
 
     public void setTextColorChecked(int textColorChecked) {
-        mTextColorChecked = textColorChecked;
-        if (mDecorateIconChange != null) {
-            mDecorateIconChange.setColorFilter(mTextColorChecked, PorterDuff.Mode.SRC_IN);
-        }
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setTextColorChecked(textColorChecked).build());
     }
 
     public void setTextColorCheckedLazy(int textColorChecked) {
-        mTextColorChecked = textColorChecked;
-        if (mDecorateIconChange != null) {
-            mDecorateIconChange.setColorFilter(mTextColorChecked, PorterDuff.Mode.SRC_IN);
-        }
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setTextColorChecked(textColorChecked).build());
     }
 
     public int getScrimColor() {
-        return mScrimColor;
+        return mStyle.getScrimColor();
     }
 
     public void setScrimColor(int scrimColor) {
-        mScrimColor = scrimColor;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setScrimColor(scrimColor).build());
     }
 
     public void setScrimColorLazy(int scrimColor) {
-        mScrimColor = scrimColor;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setScrimColor(scrimColor).build());
     }
 
     public float getTextSize() {
-        return mTextSize;
+        return mStyle.getTextSize();
     }
 
     public void setTextSize(float textSize) {
-        mTextSize = textSize;
-        updateView();
+        setTagStyle(new TagStyle.Builder(mStyle).setTextSize(textSize).build());
     }
 
     public void setTextSizeLazy(float textSize) {
-        mTextSize = textSize;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setTextSize(textSize).build());
     }
 
     public float getBorderWidth() {
-        return mBorderWidth;
+        return mStyle.getBorderWidth();
     }
 
     public void setBorderWidth(float borderWidth) {
-        mBorderWidth = borderWidth;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setBorderWidth(borderWidth).build());
     }
 
     public void setBorderWidthLazy(float borderWidth) {
-        mBorderWidth = borderWidth;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setBorderWidth(borderWidth).build());
     }
 
     public float getRadius() {
-        return mRadius;
+        return mStyle.getRadius();
     }
 
     public void setRadius(float radius) {
-        mRadius = radius;
-        invalidate();
+        setTagStyle(new TagStyle.Builder(mStyle).setRadius(radius).build());
     }
 
     public void setRadiusLazy(float radius) {
-        mRadius = radius;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setRadius(radius).build());
     }
 
     public String getText() {
@@ -720,11 +1067,13 @@ public class TagView extends View {
 
     public void setText(String text) {
         mText = text;
+        _invalidateMeasureCache();
         updateView();
     }
 
     public void setTextLazy(String text) {
         mText = text;
+        _invalidateMeasureCache();
     }
 
     public String getTextChecked() {
@@ -733,37 +1082,37 @@ public class TagView extends View {
 
     public void setTextChecked(String textChecked) {
         mTextChecked = textChecked;
+        _invalidateMeasureCache();
         updateView();
     }
 
     public void setTextCheckedLazy(String textChecked) {
         mTextChecked = textChecked;
+        _invalidateMeasureCache();
     }
 
     public int getHorizontalPadding() {
-        return mHorizontalPadding;
+        return mStyle.getHorizontalPadding();
     }
 
     public void setHorizontalPaddingLazy(int horizontalPadding) {
-        mHorizontalPadding = horizontalPadding;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setHorizontalPadding(horizontalPadding).build());
     }
 
     public void setHorizontalPadding(int horizontalPadding) {
-        mHorizontalPadding = horizontalPadding;
-        updateView();
+        setTagStyle(new TagStyle.Builder(mStyle).setHorizontalPadding(horizontalPadding).build());
     }
 
     public int getVerticalPadding() {
-        return mVerticalPadding;
+        return mStyle.getVerticalPadding();
     }
 
     public void setVerticalPaddingLazy(int verticalPadding) {
-        mVerticalPadding = verticalPadding;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setVerticalPadding(verticalPadding).build());
     }
 
     public void setVerticalPadding(int verticalPadding) {
-        mVerticalPadding = verticalPadding;
-        updateView();
+        setTagStyle(new TagStyle.Builder(mStyle).setVerticalPadding(verticalPadding).build());
     }
 
     public Drawable getDecorateIcon() {
@@ -771,44 +1120,92 @@ public class TagView extends View {
     }
 
     public void setDecorateIconLazy(Drawable decorateIcon) {
+        _clearIconPaused(false);
+        if ((mDecorateIcon == null) != (decorateIcon == null)) {
+            _invalidateMeasureCache();
+        }
         mDecorateIcon = decorateIcon;
-        mDecorateIcon.setCallback(this);
+        mIconColorFilter = null;
+        if (mDecorateIcon != null) {
+            mDecorateIcon.setCallback(this);
+        }
     }
 
     public void setDecorateIcon(Drawable decorateIcon) {
+        _clearIconPaused(false);
+        if ((mDecorateIcon == null) != (decorateIcon == null)) {
+            _invalidateMeasureCache();
+        }
         mDecorateIcon = decorateIcon;
+        mIconColorFilter = null;
         mDecorateIcon.setCallback(this);
         updateView();
     }
 
+    /**
+     * 替换已有的图标，不重新布局，图标大小由文字高度决定，替换前后不变
+     *
+     * @param decorateIcon
+     */
+    void swapDecorateIcon(Drawable decorateIcon) {
+        final Drawable oldIcon = mDecorateIcon;
+        setDecorateIconLazy(decorateIcon);
+        if (oldIcon == null || decorateIcon == null) {
+            updateView();
+            return;
+        }
+        decorateIcon.setBounds(oldIcon.getBounds());
+        _markDirty(DIRTY_DRAW);
+    }
+
     public Drawable getDecorateIconChange() {
         return mDecorateIconChange;
     }
 
     public void setDecorateIconChange(Drawable decorateIconChange) {
+        _clearIconPaused(true);
+        if (mDecorateIconChange == null) {
+            _invalidateMeasureCache();
+        }
         mDecorateIconChange = decorateIconChange;
-        mDecorateIconChange.setColorFilter(mTextColorChecked, PorterDuff.Mode.SRC_IN);
+        mDecorateIconChange.setColorFilter(mPaints.getTextColorFilter(true));
         mDecorateIconChange.setCallback(this);
         updateView();
     }
 
     public void setDecorateIconChangeLazy(Drawable decorateIconChange) {
+        _clearIconPaused(true);
+        if (mDecorateIconChange == null) {
+            _invalidateMeasureCache();
+        }
         mDecorateIconChange = decorateIconChange;
-        mDecorateIconChange.setColorFilter(mTextColorChecked, PorterDuff.Mode.SRC_IN);
+        mDecorateIconChange.setColorFilter(mPaints.getTextColorFilter(true));
         mDecorateIconChange.setCallback(this);
     }
 
     public int getIconPadding() {
-        return mIconPadding;
+        return mStyle.getIconPadding();
     }
 
     public void setIconPadding(int iconPadding) {
-        mIconPadding = iconPadding;
-        updateView();
+        setTagStyle(new TagStyle.Builder(mStyle).setIconPadding(iconPadding).build());
     }
 
     public void setIconPaddingLazy(int iconPadding) {
-        mIconPadding = iconPadding;
+        setTagStyleLazy(new TagStyle.Builder(mStyle).setIconPadding(iconPadding).build());
+    }
+
+    public int getIconMaxFps() {
+        return mIconMaxFps;
+    }
+
+    /**
+     * 设置动画图标的最大帧率，超过时跳过部分重绘，用于不需要流畅显示的装饰动画
+     *
+     * @param iconMaxFps 最大帧率，0 表示不限制
+     */
+    public void setIconMaxFps(int iconMaxFps) {
+        mIconMaxFps = Math.max(iconMaxFps, 0);
     }
 
 
@@ -831,9 +1228,56 @@ public class TagView extends View {
     /**
      * 调用这些接口进行属性设置如果最后可能会改变按钮的大小的话最后调用一下这个接口，以刷新界面，建议属性直接在布局里设置
      * 只需要回调onDraw()的话调用invalidate()就可以了
+     * 刷新在下一帧统一处理，大小没有变化时只重绘，不会调用 requestLayout()
      */
     public void updateView() {
-        requestLayout();
+        _markDirty(DIRTY_MEASURE);
+    }
+
+    /**
+     * 记录属性变化，同一帧内的多次变化只刷新一次
+     *
+     * @param flags {@link #DIRTY_DRAW} 或 {@link #DIRTY_MEASURE}
+     */
+    private void _markDirty(int flags) {
+        mDirtyFlags |= flags;
+        if (!mIsFlushScheduled) {
+            mIsFlushScheduled = true;
+            ViewCompat.postOnAnimation(this, mFlushDirtyRunnable);
+        }
+    }
+
+    /**
+     * 立即刷新等待中的属性变化，不等到下一帧
+     */
+    void flushPendingUpdates() {
+        if (mIsFlushScheduled) {
+            removeCallbacks(mFlushDirtyRunnable);
+            _flushDirty();
+        }
+    }
+
+    /**
+     * 刷新属性变化，大小改变时才重新布局
+     */
+    private void _flushDirty() {
+        final int flags = mDirtyFlags;
+        mDirtyFlags = 0;
+        mIsFlushScheduled = false;
+        if (flags == 0) {
+            return;
+        }
+        if ((flags & DIRTY_MEASURE) != 0) {
+            if (!mIsMeasured || isLayoutRequested()) {
+                requestLayout();
+            } else {
+                // 用上次的 MeasureSpec 重新计算，大小不变时文字和图标位置直接更新
+                _measureContent(mLastWidthMeasureSpec, mLastHeightMeasureSpec);
+                if (mContentWidth != getMeasuredWidth() || mContentHeight != getMeasuredHeight()) {
+                    requestLayout();
+                }
+            }
+        }
         invalidate();
     }
 
@@ -886,6 +1330,7 @@ public class TagView extends View {
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
         mIsChecked = ss.isChecked;
+        _invalidateMeasureCache();
     }
 
     public static class SavedState extends BaseSavedState {
@@ -0,0 +1,732 @@
+package com.dl7.tag;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.OverScroller;
+
+import com.dl7.tag.layout.FlowLayoutEngine;
+import com.dl7.tag.layout.TagSelection;
+import com.dl7.tag.utils.MeasureUtils;
+import com.dl7.tag.utils.TextWidthCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 可滚动的虚拟化标签布局，用于数量非常多的标签
+ * 布局只根据缓存的文字宽度计算，只有在可见区域(加上预加载距离)内的标签才会创建 TagView，
+ * 滚出可见区域的 TagView 会放回复用池，绑定新的标签后重新使用
+ * 属性和 TagLayout 一致，但不支持编辑、换一换模式和随机颜色
+ */
+public class VirtualTagLayout extends ViewGroup {
+
+    // 复用池的最大数量
+    private static final int MAX_RECYCLE_SIZE = 50;
+
+    private Paint mPaint;
+    // 用来测量文字宽度
+    private Paint mTextPaint;
+    // 背景色
+    private int mBgColor;
+    // 边框颜色
+    private int mBorderColor;
+    // 边框大小
+    private float mBorderWidth;
+    // 边框角半径
+    private float mRadius;
+    // Tag之间的垂直间隙
+    private int mVerticalInterval;
+    // Tag之间的水平间隙
+    private int mHorizontalInterval;
+    // 边框矩形
+    private RectF mRect;
+
+    // TagView 共享的样式
+    private TagStyle mTagStyle;
+    private int mFitTagNum;
+    private boolean mIsPressFeedback;
+    private int mTagMode;
+    private boolean mIsHorizontalReverse;
+    private boolean mIsBalancedLines;
+    private TagView.OnTagClickListener mTagClickListener;
+    private TagView.OnTagLongClickListener mTagLongClickListener;
+    private TagView.OnTagCheckListener mTagCheckListener;
+    private TagView.OnTagCheckListener mInsideTagCheckListener;
+
+    // 标签数据
+    private List<String> mTags = new ArrayList<>();
+    // 缓存的文字宽度，前 mMeasuredTextCount 个有效
+    private int[] mTextWidths = new int[0];
+    private int mMeasuredTextCount;
+    // 标签宽高
+    private int[] mTagWidths = new int[0];
+    private int[] mTagHeights = new int[0];
+    private int mTagHeight;
+    // 上次计算布局的可用宽度，数据变化时置为无效值
+    private int mLayoutAvailableWidth = TagView.INVALID_VALUE;
+    // 布局结果发生了变化，显示的TagView需要重新绑定
+    private boolean mIsGeometryChanged;
+    // 换行计算引擎
+    private FlowLayoutEngine mLayoutEngine = new FlowLayoutEngine();
+    // 当前显示的TagView，key为标签位置
+    private SparseArray<TagView> mAttachedViews = new SparseArray<>();
+    // 复用池
+    private List<TagView> mRecyclePool = new ArrayList<>();
+    // 可见区域上下的预加载距离
+    private int mPrefetchDistance;
+    // 选中状态
+    private TagSelection mTagSelection = new TagSelection();
+
+    // 滚动控制
+    private OverScroller mScroller;
+    private VelocityTracker mVelocityTracker;
+    private int mTouchSlop;
+    private int mMinimumVelocity;
+    private int mMaximumVelocity;
+    private float mLastMotionY;
+    private boolean mIsBeingDragged;
+
+
+    public VirtualTagLayout(Context context) {
+        this(context, null);
+    }
+
+    public VirtualTagLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, -1);
+    }
+
+    public VirtualTagLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        _init(context, attrs);
+    }
+
+    private void _init(Context context, AttributeSet attrs) {
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mRect = new RectF();
+
+        final TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.TagLayout);
+        try {
+            mTagMode = a.getInteger(R.styleable.TagLayout_tag_layout_mode, TagView.MODE_NORMAL);
+            int tagShape = a.getInteger(R.styleable.TagLayout_tag_layout_shape, TagView.SHAPE_ROUND_RECT);
+            mIsPressFeedback = a.getBoolean(R.styleable.TagLayout_tag_layout_press_feedback, false);
+            mFitTagNum = a.getInteger(R.styleable.TagLayout_tag_layout_fit_num, TagView.INVALID_VALUE);
+            mBgColor = a.getColor(R.styleable.TagLayout_tag_layout_bg_color, Color.WHITE);
+            mBorderColor = a.getColor(R.styleable.TagLayout_tag_layout_border_color, Color.WHITE);
+            mBorderWidth = a.getDimension(R.styleable.TagLayout_tag_layout_border_width, MeasureUtils.dp2px(context, 0.5f));
+            mRadius = a.getDimension(R.styleable.TagLayout_tag_layout_border_radius, MeasureUtils.dp2px(context, 5f));
+            mHorizontalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_horizontal_interval, MeasureUtils.dp2px(context, 5f));
+            mVerticalInterval = (int) a.getDimension(R.styleable.TagLayout_tag_layout_vertical_interval, MeasureUtils.dp2px(context, 5f));
+
+            int tagBgColor = a.getColor(R.styleable.TagLayout_tag_view_bg_color, Color.WHITE);
+            int tagBorderColor = a.getColor(R.styleable.TagLayout_tag_view_border_color, Color.parseColor("#ff333333"));
+            int tagTextColor = a.getColor(R.styleable.TagLayout_tag_view_text_color, Color.parseColor("#ff666666"));
+            int tagBgColorCheck, tagBorderColorCheck, tagTextColorCheck;
+            if (mIsPressFeedback || mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagTextColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagTextColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, Color.WHITE);
+            } else {
+                tagBgColorCheck = a.getColor(R.styleable.TagLayout_tag_view_bg_color_check, tagBgColor);
+                tagBorderColorCheck = a.getColor(R.styleable.TagLayout_tag_view_border_color_check, tagBorderColor);
+                tagTextColorCheck = a.getColor(R.styleable.TagLayout_tag_view_text_color_check, tagTextColor);
+            }
+            mTagStyle = new TagStyle.Builder()
+                    .setTagShape(tagShape)
+                    .setBgColor(tagBgColor)
+                    .setBorderColor(tagBorderColor)
+                    .setTextColor(tagTextColor)
+                    .setBgColorChecked(tagBgColorCheck)
+                    .setBorderColorChecked(tagBorderColorCheck)
+                    .setTextColorChecked(tagTextColorCheck)
+                    .setBorderWidth(a.getDimension(R.styleable.TagLayout_tag_view_border_width, MeasureUtils.dp2px(context, 0.5f)))
+                    .setTextSize(a.getDimension(R.styleable.TagLayout_tag_view_text_size, MeasureUtils.sp2px(context, 13.0f)))
+                    .setRadius(a.getDimension(R.styleable.TagLayout_tag_view_border_radius, MeasureUtils.dp2px(context, 5f)))
+                    .setHorizontalPadding((int) a.getDimension(R.styleable.TagLayout_tag_view_horizontal_padding, MeasureUtils.dp2px(context, 5f)))
+                    .setVerticalPadding((int) a.getDimension(R.styleable.TagLayout_tag_view_vertical_padding, MeasureUtils.dp2px(context, 5f)))
+                    .setIconPadding((int) MeasureUtils.dp2px(context, 3f))
+                    .build();
+            mIsHorizontalReverse = a.getBoolean(R.styleable.TagLayout_tag_layout_horizontal_reverse, false);
+            mIsBalancedLines = a.getBoolean(R.styleable.TagLayout_tag_layout_balanced_lines, false);
+        } finally {
+            a.recycle();
+        }
+        mTagSelection.setSingleChoice(mTagMode == TagView.MODE_SINGLE_CHOICE);
+        setWillNotDraw(false);
+        setPadding(mHorizontalInterval, mVerticalInterval, mHorizontalInterval, mVerticalInterval);
+        _updateTextMetrics();
+        mPrefetchDistance = mTagHeight * 2;
+
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mScroller = new OverScroller(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+
+        if (mTagMode == TagView.MODE_SINGLE_CHOICE || mTagMode == TagView.MODE_MULTI_CHOICE) {
+            mIsPressFeedback = true;
+            mInsideTagCheckListener = new TagView.OnTagCheckListener() {
+                @Override
+                public void onTagCheck(int position, String text, boolean isChecked) {
+                    _updateCheckStatus(position, isChecked);
+                    if (mTagCheckListener != null) {
+                        mTagCheckListener.onTagCheck(position, text, isChecked);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * 根据字体大小计算标签高度
+     */
+    private void _updateTextMetrics() {
+        mTextPaint.setTextSize(mTagStyle.getTextSize());
+        final Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        // 和 TagView 的计算方式保持一致
+        mTagHeight = (int) (fontMetrics.descent - fontMetrics.ascent) + mTagStyle.getVerticalPadding() * 2;
+    }
+
+    /**
+     * ==================================== 测量和布局 ====================================
+     */
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthSpecSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightSpecSize = MeasureSpec.getSize(heightMeasureSpec);
+        int heightSpecMode = MeasureSpec.getMode(heightMeasureSpec);
+        int availableWidth = widthSpecSize - getPaddingLeft() - getPaddingRight();
+        _computeGeometry(availableWidth);
+        // 内容高度，建议使用固定高度或match_parent，否则所有标签都会显示出来
+        int contentHeight = mLayoutEngine.getContentHeight() + getPaddingTop() + getPaddingBottom();
+        int height;
+        if (heightSpecMode == MeasureSpec.EXACTLY) {
+            height = heightSpecSize;
+        } else if (heightSpecMode == MeasureSpec.AT_MOST) {
+            height = Math.min(contentHeight, heightSpecSize);
+        } else {
+            height = contentHeight;
+        }
+        setMeasuredDimension(widthSpecSize, height);
+    }
+
+    /**
+     * 根据缓存的文字宽度计算所有标签的大小和位置
+     *
+     * @param availableWidth 可用宽度
+     */
+    private void _computeGeometry(int availableWidth) {
+        final int count = mTags.size();
+        if (availableWidth == mLayoutAvailableWidth && mMeasuredTextCount == count
+                && mLayoutEngine.getChildCount() == count) {
+            return;
+        }
+        // 只测量还没有缓存宽度的文字
+        if (mTextWidths.length < count) {
+            mTextWidths = Arrays.copyOf(mTextWidths, Math.max(count, mTextWidths.length * 2));
+            mTagWidths = new int[mTextWidths.length];
+            mTagHeights = new int[mTextWidths.length];
+        }
+        for (int i = mMeasuredTextCount; i < count; i++) {
+            mTextWidths[i] = (int) TextWidthCache.measureText(mTextPaint, mTags.get(i));
+        }
+        mMeasuredTextCount = count;
+        for (int i = 0; i < count; i++) {
+            if (mFitTagNum > 0) {
+                // 和 TagLayout 一致，除不尽的像素分给前面的列
+                mTagWidths[i] = FlowLayoutEngine.getFitColumnWidth(availableWidth, mFitTagNum, mHorizontalInterval, i % mFitTagNum);
+            } else {
+                // 超过可用宽度由 TagView 裁剪文字
+                mTagWidths[i] = Math.min(mTextWidths[i] + mTagStyle.getHorizontalPadding() * 2, availableWidth);
+            }
+            mTagHeights[i] = mTagHeight;
+        }
+        mLayoutEngine.setHorizontalInterval(mHorizontalInterval);
+        mLayoutEngine.setVerticalInterval(mVerticalInterval);
+        mLayoutEngine.setHorizontalReverse(mIsHorizontalReverse);
+        // 固定列数时每行的标签数已经确定，不做均衡换行
+        mLayoutEngine.setBalancedLines(mIsBalancedLines && mFitTagNum <= 0);
+        mLayoutEngine.compute(mTagWidths, mTagHeights, count, availableWidth);
+        mLayoutAvailableWidth = availableWidth;
+        // 位置发生了变化，显示的TagView全部重新绑定
+        mIsGeometryChanged = true;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        _computeGeometry(getMeasuredWidth() - getPaddingLeft() - getPaddingRight());
+        // 尺寸变化后滚动位置可能越界
+        if (getScrollY() > _getScrollRange()) {
+            scrollTo(0, _getScrollRange());
+        }
+        _fillViewport();
+    }
+
+    /**
+     * 回收可见区域外的TagView，并为可见区域内的标签绑定TagView
+     */
+    private void _fillViewport() {
+        final int count = mTags.size();
+        if (mIsGeometryChanged) {
+            mIsGeometryChanged = false;
+            _recycleAllViews();
+        }
+        if (count == 0 || mLayoutEngine.getChildCount() != count || getHeight() == 0) {
+            _recycleAllViews();
+            return;
+        }
+        final int offset = getScrollY() - getPaddingTop();
+        int firstLine = Math.max(mLayoutEngine.findLineAt(offset - mPrefetchDistance), 0);
+        int lastLine = mLayoutEngine.findLineAt(offset + getHeight() + mPrefetchDistance);
+        int first = mLayoutEngine.getLineStart(firstLine);
+        int last = mLayoutEngine.getLineEnd(lastLine) - 1;
+        // 回收可见区域外的TagView
+        for (int i = mAttachedViews.size() - 1; i >= 0; i--) {
+            int position = mAttachedViews.keyAt(i);
+            if (position < first || position > last) {
+                TagView tagView = mAttachedViews.valueAt(i);
+                mAttachedViews.removeAt(i);
+                _recycleView(tagView);
+            }
+        }
+        // 绑定新进入可见区域的标签
+        boolean isAdded = false;
+        for (int position = first; position <= last; position++) {
+            if (mAttachedViews.get(position) == null) {
+                TagView tagView = _obtainView(position);
+                addViewInLayout(tagView, -1, generateDefaultLayoutParams(), true);
+                tagView.measure(MeasureSpec.makeMeasureSpec(mTagWidths[position], MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(mTagHeights[position], MeasureSpec.EXACTLY));
+                int left = getPaddingLeft() + mLayoutEngine.getChildLeft(position);
+                int top = getPaddingTop() + mLayoutEngine.getChildTop(position);
+                tagView.layout(left, top, left + mTagWidths[position], top + mTagHeights[position]);
+                mAttachedViews.put(position, tagView);
+                isAdded = true;
+            }
+        }
+        if (isAdded) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 从复用池获取TagView并绑定数据
+     *
+     * @param position 标签位置
+     * @return
+     */
+    private TagView _obtainView(int position) {
+        TagView tagView;
+        if (mRecyclePool.isEmpty()) {
+            tagView = _createTagView();
+        } else {
+            tagView = mRecyclePool.remove(mRecyclePool.size() - 1);
+        }
+        tagView.setTextLazy(mTags.get(position));
+        tagView.setCheckedLazy(mTagSelection.isChecked(position));
+        tagView.setLayoutPosition(position);
+        // 复用的TagView宽高通常和之前一致，MeasureSpec 相同时 measure() 会跳过 onMeasure()，需要强制重新测量
+        tagView.forceLayout();
+        return tagView;
+    }
+
+    private TagView _createTagView() {
+        TagView tagView = new TagView(getContext());
+        tagView.setTagStyleLazy(mTagStyle);
+        tagView.setPressFeedback(mIsPressFeedback);
+        tagView.setTagModeLazy(mTagMode);
+        tagView.setTagClickListener(mTagClickListener);
+        tagView.setTagLongClickListener(mTagLongClickListener);
+        tagView.setTagCheckListener(mInsideTagCheckListener);
+        return tagView;
+    }
+
+    private void _recycleView(TagView tagView) {
+        removeViewInLayout(tagView);
+        if (mRecyclePool.size() < MAX_RECYCLE_SIZE) {
+            mRecyclePool.add(tagView);
+        }
+    }
+
+    private void _recycleAllViews() {
+        for (int i = mAttachedViews.size() - 1; i >= 0; i--) {
+            _recycleView(mAttachedViews.valueAt(i));
+        }
+        mAttachedViews.clear();
+    }
+
+    /**
+     * 样式发生变化，丢弃所有TagView重新创建
+     */
+    private void _resetViews() {
+        _recycleAllViews();
+        mRecyclePool.clear();
+        mLayoutAvailableWidth = TagView.INVALID_VALUE;
+        requestLayout();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mRect.set(mBorderWidth, mBorderWidth, w - mBorderWidth, h - mBorderWidth);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        // 背景不跟随内容滚动
+        canvas.save();
+        canvas.translate(0, getScrollY());
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(mBgColor);
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mPaint);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(mBorderWidth);
+        mPaint.setColor(mBorderColor);
+        canvas.drawRoundRect(mRect, mRadius, mRadius, mPaint);
+        canvas.restore();
+    }
+
+    /**
+     * ==================================== 滚动控制 ====================================
+     */
+
+    private int _getScrollRange() {
+        int contentHeight = mLayoutEngine.getContentHeight() + getPaddingTop() + getPaddingBottom();
+        return Math.max(0, contentHeight - getHeight());
+    }
+
+    @Override
+    public void scrollTo(int x, int y) {
+        super.scrollTo(0, Math.max(0, Math.min(y, _getScrollRange())));
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        _fillViewport();
+    }
+
+    @Override
+    public void computeScroll() {
+        if (mScroller.computeScrollOffset()) {
+            scrollTo(0, mScroller.getCurrY());
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
+    @Override
+    protected int computeVerticalScrollRange() {
+        return mLayoutEngine.getContentHeight() + getPaddingTop() + getPaddingBottom();
+    }
+
+    @Override
+    protected int computeVerticalScrollOffset() {
+        return Math.max(0, getScrollY());
+    }
+
+    @Override
+    protected int computeVerticalScrollExtent() {
+        return getHeight();
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        _addMovement(ev);
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mLastMotionY = ev.getY();
+                // 正在惯性滚动时按下直接拦截，停止滚动
+                mIsBeingDragged = !mScroller.isFinished();
+                if (mIsBeingDragged) {
+                    mScroller.abortAnimation();
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (Math.abs(ev.getY() - mLastMotionY) > mTouchSlop) {
+                    _startDrag(ev.getY());
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mIsBeingDragged = false;
+                _recycleVelocityTracker();
+                break;
+        }
+        return mIsBeingDragged;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        _addMovement(event);
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (!mScroller.isFinished()) {
+                    mScroller.abortAnimation();
+                }
+                mLastMotionY = event.getY();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (!mIsBeingDragged && Math.abs(event.getY() - mLastMotionY) > mTouchSlop) {
+                    _startDrag(event.getY());
+                }
+                if (mIsBeingDragged) {
+                    int deltaY = (int) (mLastMotionY - event.getY());
+                    mLastMotionY -= deltaY;
+                    scrollBy(0, deltaY);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mIsBeingDragged) {
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+                    int velocityY = (int) mVelocityTracker.getYVelocity();
+                    if (Math.abs(velocityY) > mMinimumVelocity) {
+                        fling(-velocityY);
+                    }
+                }
+                mIsBeingDragged = false;
+                _recycleVelocityTracker();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                mIsBeingDragged = false;
+                _recycleVelocityTracker();
+                break;
+        }
+        return true;
+    }
+
+    private void _startDrag(float y) {
+        mIsBeingDragged = true;
+        mLastMotionY = y;
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(true);
+        }
+    }
+
+    private void _addMovement(MotionEvent event) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        mVelocityTracker.addMovement(event);
+    }
+
+    private void _recycleVelocityTracker() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * 惯性滚动
+     *
+     * @param velocityY 纵向速度，正值向下滚动
+     */
+    public void fling(int velocityY) {
+        mScroller.fling(0, getScrollY(), 0, velocityY, 0, 0, 0, _getScrollRange());
+        ViewCompat.postInvalidateOnAnimation(this);
+    }
+
+    /**
+     * 滚动到指定标签所在的行
+     *
+     * @param position 标签位置
+     */
+    public void scrollToTag(int position) {
+        if (position < 0 || position >= mLayoutEngine.getChildCount()) {
+            return;
+        }
+        mScroller.abortAnimation();
+        scrollTo(0, mLayoutEngine.getChildTop(position));
+    }
+
+    /**
+     * ==================================== 选中状态 ====================================
+     */
+
+    private void _updateCheckStatus(int position, boolean isChecked) {
+        int unchecked = mTagSelection.setChecked(position, isChecked);
+        if (unchecked != TagSelection.INVALID_POSITION) {
+            TagView lastView = mAttachedViews.get(unchecked);
+            if (lastView != null) {
+                lastView.cleanTagCheckStatus();
+            }
+        }
+    }
+
+    /**
+     * get checked tags
+     *
+     * @return
+     */
+    public List<String> getCheckedTags() {
+        List<String> checkTags = new ArrayList<>();
+        for (int i = mTagSelection.nextChecked(0); i != TagSelection.INVALID_POSITION;
+             i = mTagSelection.nextChecked(i + 1)) {
+            checkTags.add(mTags.get(i));
+        }
+        return checkTags;
+    }
+
+    /**
+     * ==================================== 添加/删除Tag ====================================
+     */
+
+    /**
+     * set Tags
+     *
+     * @param textList tag list
+     */
+    public void setTags(List<String> textList) {
+        mTags.clear();
+        mTags.addAll(textList);
+        mMeasuredTextCount = 0;
+        mTagSelection.clear();
+        mLayoutAvailableWidth = TagView.INVALID_VALUE;
+        mScroller.abortAnimation();
+        scrollTo(0, 0);
+        requestLayout();
+    }
+
+    /**
+     * set Tags
+     *
+     * @param textList tag list
+     */
+    public void setTags(String... textList) {
+        setTags(Arrays.asList(textList));
+    }
+
+    /**
+     * add Tags，已有标签的文字宽度不会重新测量
+     *
+     * @param textList tag list
+     */
+    public void addTags(List<String> textList) {
+        mTags.addAll(textList);
+        mLayoutAvailableWidth = TagView.INVALID_VALUE;
+        requestLayout();
+    }
+
+    /**
+     * add Tags
+     *
+     * @param textList tag list
+     */
+    public void addTags(String... textList) {
+        addTags(Arrays.asList(textList));
+    }
+
+    /**
+     * clean Tags
+     */
+    public void cleanTags() {
+        setTags(new ArrayList<String>());
+    }
+
+    public int getTagCount() {
+        return mTags.size();
+    }
+
+    public String getTagText(int position) {
+        return mTags.get(position);
+    }
+
+    /**
+     * ==================================== 设置属性 ====================================
+     */
+
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    public void setPrefetchDistance(int prefetchDistance) {
+        mPrefetchDistance = prefetchDistance;
+        _fillViewport();
+    }
+
+    public TagStyle getTagStyle() {
+        return mTagStyle;
+    }
+
+    public void setTagStyle(TagStyle tagStyle) {
+        if (tagStyle == null) {
+            throw new IllegalArgumentException("TagStyle can not be null");
+        }
+        mTagStyle = tagStyle;
+        _updateTextMetrics();
+        mMeasuredTextCount = 0;
+        _resetViews();
+    }
+
+    public void setTagTextSize(float tagTextSize) {
+        mTagStyle = new TagStyle.Builder(mTagStyle).setTextSize(tagTextSize).build();
+        _updateTextMetrics();
+        mMeasuredTextCount = 0;
+        _resetViews();
+    }
+
+    public void setTagHorizontalPadding(int tagHorizontalPadding) {
+        mTagStyle = new TagStyle.Builder(mTagStyle).setHorizontalPadding(tagHorizontalPadding).build();
+        _resetViews();
+    }
+
+    public void setTagVerticalPadding(int tagVerticalPadding) {
+        mTagStyle = new TagStyle.Builder(mTagStyle).setVerticalPadding(tagVerticalPadding).build();
+        _updateTextMetrics();
+        _resetViews();
+    }
+
+    public void setHorizontalInterval(int horizontalInterval) {
+        mHorizontalInterval = horizontalInterval;
+        _resetViews();
+    }
+
+    public void setVerticalInterval(int verticalInterval) {
+        mVerticalInterval = verticalInterval;
+        _resetViews();
+    }
+
+    public void setFitTagNum(int fitTagNum) {
+        mFitTagNum = fitTagNum;
+        _resetViews();
+    }
+
+    public void setTagClickListener(TagView.OnTagClickListener tagClickListener) {
+        mTagClickListener = tagClickListener;
+        for (int i = 0; i < mAttachedViews.size(); i++) {
+            mAttachedViews.valueAt(i).setTagClickListener(tagClickListener);
+        }
+        for (TagView tagView : mRecyclePool) {
+            tagView.setTagClickListener(tagClickListener);
+        }
+    }
+
+    public void setTagLongClickListener(TagView.OnTagLongClickListener tagLongClickListener) {
+        mTagLongClickListener = tagLongClickListener;
+        for (int i = 0; i < mAttachedViews.size(); i++) {
+            mAttachedViews.valueAt(i).setTagLongClickListener(tagLongClickListener);
+        }
+        for (TagView tagView : mRecyclePool) {
+            tagView.setTagLongClickListener(tagLongClickListener);
+        }
+    }
+
+    public void setTagCheckListener(TagView.OnTagCheckListener tagCheckListener) {
+        mTagCheckListener = tagCheckListener;
+    }
+}
@@ -1,10 +1,10 @@
 package com.dl7.tag.drawable;
 
-import android.animation.ValueAnimator;
 import android.graphics.Bitmap;
 import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
@@ -13,24 +13,36 @@ import android.graphics.Shader;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 import android.view.animation.AccelerateDecelerateInterpolator;
-
-import com.dl7.tag.utils.BitmapUtils;
+import android.view.animation.Interpolator;
 
 /**
  * Created by Rukey7 on 2016/12/5.
  * 旋转动画 Drawable
+ * Bitmap 可以在多个 Drawable 之间共享，缩放通过 Shader 的矩阵实现，不会创建新的 Bitmap
+ * 动画由 {@link TagAnimationClock} 统一驱动，不单独创建属性动画
  */
-public class RotateDrawable extends Drawable implements Animatable {
+public class RotateDrawable extends Drawable implements Animatable, TagAnimationClock.FrameCallback {
+
+    // 一轮动画的时长和旋转角度
+    private static final int DURATION = 2000;
+    private static final float MAX_ROTATE = 2880;
+    private static final Interpolator sInterpolator = new AccelerateDecelerateInterpolator();
 
     private Paint mPaint;
     // 绘制的矩形框
     private RectF mRect = new RectF();
-    // 动画控制
-    private ValueAnimator mValueAnimator;
+    // 以左上角为原点的绘制区域
+    private RectF mDrawRect = new RectF();
+    // 动画开始的时间，-1 表示等待第一帧
+    private long mStartTime = -1;
+    private boolean mIsRunning;
     // 旋转角度
     private float mRotate;
     // icon
     private Bitmap mBitmap;
+    // 把 Bitmap 缩放到绘制区域大小
+    private BitmapShader mShader;
+    private Matrix mShaderMatrix = new Matrix();
     // 偏移
     private int mTranslationX;
     private int mTranslationY;
@@ -38,15 +50,20 @@ public class RotateDrawable extends Drawable implements Animatable {
 
     public RotateDrawable(Bitmap bitmap) {
         mBitmap = bitmap;
+        mShader = new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
+        mPaint.setFilterBitmap(true);
+        mPaint.setShader(mShader);
     }
 
     @Override
     public void draw(Canvas canvas) {
+        final int saveCount = canvas.save();
         canvas.translate(mTranslationX, mTranslationY);
         canvas.rotate(mRotate, mRect.width() / 2, mRect.height() / 2);
-        canvas.drawPaint(mPaint);
+        canvas.drawRect(mDrawRect, mPaint);
+        canvas.restoreToCount(saveCount);
     }
 
     @Override
@@ -67,53 +84,32 @@ public class RotateDrawable extends Drawable implements Animatable {
     @Override
     protected void onBoundsChange(Rect bounds) {
         super.onBoundsChange(bounds);
-        mRect.set(_clipSquare(bounds));
+        _clipSquare(bounds, mRect);
         mTranslationX = (int) mRect.left;
         mTranslationY = (int) mRect.top;
+        mDrawRect.set(0, 0, mRect.width(), mRect.height());
         // 缩放 Bitmap
-        Bitmap zoom = BitmapUtils.zoom(mBitmap, bounds.width(), bounds.height());
-        BitmapShader bitmapShader = new BitmapShader(zoom, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
-        mPaint.setShader(bitmapShader);
-        if (isRunning()) {
-            stop();
+        mShaderMatrix.setScale(mRect.width() / mBitmap.getWidth(), mRect.height() / mBitmap.getHeight());
+        mShader.setLocalMatrix(mShaderMatrix);
+        // 大小变化时动画继续执行，不重新创建
+        if (!isRunning()) {
+            start();
         }
-        // 设置动画
-        mValueAnimator = ValueAnimator.ofFloat(0, 2880).setDuration(2000);
-        mValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            boolean isOver = false;
-
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                mRotate = (float) animation.getAnimatedValue();
-                if (mRotate <= 2160) {
-                    isOver = false;
-                } else if (!isOver) {
-                    isOver = true;
-                    mRotate = 2160;
-                }
-                invalidateSelf();
-            }
-        });
-        // 设置动画无限循环
-        mValueAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        mValueAnimator.setRepeatMode(ValueAnimator.RESTART);
-        mValueAnimator.setRepeatCount(ValueAnimator.INFINITE);
-        start();
     }
 
     /**
      * 裁剪Rect为正方形
      * @param rect
-     * @return
+     * @param outRect 保存结果
      */
-    private Rect _clipSquare(Rect rect) {
+    private void _clipSquare(Rect rect, RectF outRect) {
         int w = rect.width();
         int h = rect.height();
         int min = Math.min(w, h);
         int cx = rect.centerX();
         int cy = rect.centerY();
         int r = min / 2;
-        return new Rect(
+        outRect.set(
                 cx - r,
                 cy - r,
                 cx + r,
@@ -121,23 +117,46 @@ public class RotateDrawable extends Drawable implements Animatable {
         );
     }
 
+    @Override
+    public void onAnimationFrame(long frameTimeMillis) {
+        if (mStartTime < 0) {
+            mStartTime = frameTimeMillis;
+        }
+        // 无限循环，每轮从0开始
+        float fraction = (float) ((frameTimeMillis - mStartTime) % DURATION) / DURATION;
+        mRotate = sInterpolator.getInterpolation(fraction) * MAX_ROTATE;
+        invalidateSelf();
+    }
+
     /**
      * ==================================== 显示模式 ====================================
      */
 
     @Override
     public void start() {
-        mValueAnimator.start();
+        if (mIsRunning) {
+            return;
+        }
+        mIsRunning = true;
+        mStartTime = -1;
+        TagAnimationClock.getInstance().addCallback(this);
     }
 
     @Override
     public void stop() {
-        mValueAnimator.end();
+        if (!mIsRunning) {
+            return;
+        }
+        mIsRunning = false;
+        TagAnimationClock.getInstance().removeCallback(this);
+        // 停止时回到初始角度
+        mRotate = 0;
+        invalidateSelf();
     }
 
     @Override
     public boolean isRunning() {
-        return mValueAnimator != null && mValueAnimator.isRunning();
+        return mIsRunning;
     }
 
 }
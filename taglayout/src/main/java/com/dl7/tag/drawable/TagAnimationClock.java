@@ -0,0 +1,194 @@
+package com.dl7.tag.drawable;
+
+import android.animation.ValueAnimator;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.animation.AnimationUtils;
+
+import java.util.ArrayList;
+
+/**
+ * 所有动画图标共享的时钟，只在主线程使用
+ * 由 Choreographer 的帧回调驱动(API 16 以下用 Handler 按帧间隔发送)，每一帧统一回调所有注册的图标，没有图标时自动停止
+ * 不使用 ValueAnimator，系统动画时长缩放为 0 (开发者选项或省电模式)时 ValueAnimator 一帧就结束，图标会停止转动
+ */
+public final class TagAnimationClock {
+
+    private static TagAnimationClock sInstance;
+
+    private final ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+    // 是否有注册的回调，时钟在运行
+    private boolean mIsRunning;
+    // 是否已经请求了下一帧，回调中先移除再添加时避免重复请求
+    private boolean mIsFramePosted;
+    // API 16 及以上为 Choreographer.FrameCallback
+    private Object mChoreographerCallback;
+    private Handler mHandler;
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            _onFrame();
+        }
+    };
+    // 回调过程中移除的位置先置为 null，回调结束后再清理
+    private boolean mIsDispatching;
+    private boolean mHasRemoved;
+    private int mCallbackCount;
+    // 已经分发的帧数
+    private long mFrameCount;
+
+    private TagAnimationClock() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mChoreographerCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    _onFrame();
+                }
+            };
+        } else {
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
+    public static TagAnimationClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new TagAnimationClock();
+        }
+        return sInstance;
+    }
+
+    /**
+     * 注册帧回调，第一个回调注册时启动时钟
+     *
+     * @param callback
+     */
+    public void addCallback(FrameCallback callback) {
+        if (mCallbacks.contains(callback)) {
+            return;
+        }
+        mCallbacks.add(callback);
+        mCallbackCount++;
+        if (!mIsRunning) {
+            mIsRunning = true;
+            _postFrame();
+        }
+    }
+
+    /**
+     * 移除帧回调，没有回调时停止时钟
+     *
+     * @param callback
+     */
+    public void removeCallback(FrameCallback callback) {
+        int index = mCallbacks.indexOf(callback);
+        if (index < 0) {
+            return;
+        }
+        if (mIsDispatching) {
+            mCallbacks.set(index, null);
+            mHasRemoved = true;
+        } else {
+            mCallbacks.remove(index);
+        }
+        mCallbackCount--;
+        if (mCallbackCount == 0) {
+            mIsRunning = false;
+            _removeFrame();
+        }
+    }
+
+    public boolean isRegistered(FrameCallback callback) {
+        return mCallbacks.contains(callback);
+    }
+
+    /**
+     * 当前注册的回调数量
+     *
+     * @return
+     */
+    public int getCallbackCount() {
+        return mCallbackCount;
+    }
+
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 时钟是否在运行
+     *
+     * @return
+     */
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    private void _postFrame() {
+        if (mIsFramePosted) {
+            return;
+        }
+        mIsFramePosted = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+        } else {
+            mHandler.postDelayed(mFrameRunnable, ValueAnimator.getFrameDelay());
+        }
+    }
+
+    private void _removeFrame() {
+        mIsFramePosted = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+        } else {
+            mHandler.removeCallbacks(mFrameRunnable);
+        }
+    }
+
+    private void _onFrame() {
+        mIsFramePosted = false;
+        if (!mIsRunning) {
+            return;
+        }
+        _doFrame(AnimationUtils.currentAnimationTimeMillis());
+        // 回调中可能移除了所有回调
+        if (mIsRunning) {
+            _postFrame();
+        }
+    }
+
+    private void _doFrame(long frameTimeMillis) {
+        mFrameCount++;
+        mIsDispatching = true;
+        // 回调过程中添加的在下一帧开始回调
+        final int size = mCallbacks.size();
+        for (int i = 0; i < size; i++) {
+            FrameCallback callback = mCallbacks.get(i);
+            if (callback != null) {
+                callback.onAnimationFrame(frameTimeMillis);
+            }
+        }
+        mIsDispatching = false;
+        if (mHasRemoved) {
+            mHasRemoved = false;
+            for (int i = mCallbacks.size() - 1; i >= 0; i--) {
+                if (mCallbacks.get(i) == null) {
+                    mCallbacks.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * 帧回调
+     */
+    public interface FrameCallback {
+        /**
+         * 每一帧回调一次
+         *
+         * @param frameTimeMillis 当前帧的时间，和 {@link AnimationUtils#currentAnimationTimeMillis()} 一致
+         */
+        void onAnimationFrame(long frameTimeMillis);
+    }
+}
@@ -0,0 +1,474 @@
+package com.dl7.tag.layout;
+
+/**
+ * 流式布局计算引擎，不依赖任何 View，只根据子视图的宽高计算换行结果
+ * 计算结果以行表的形式保存在基本类型数组中，数组在多次计算之间复用
+ * 坐标都是相对于内容区域(去掉padding后)的左上角
+ * 支持增量计算：只从发生变化的行开始重新换行，行起始位置和旧行表对齐后直接复用旧结果
+ * 支持均衡换行：不改变子视图顺序，在行数最少的前提下使每行剩余宽度的平方和最小
+ */
+public class FlowLayoutEngine {
+
+    // 水平间隙
+    private int mHorizontalInterval;
+    // 垂直间隙
+    private int mVerticalInterval;
+    // 是否反转水平布局
+    private boolean mIsHorizontalReverse;
+    // 是否均衡换行
+    private boolean mIsBalancedLines;
+    // 上次计算使用的可用宽度
+    private int mAvailableWidth;
+    // 子视图数量
+    private int mChildCount;
+    // 行数
+    private int mLineCount;
+    // 内容总高度
+    private int mContentHeight;
+    // 每行的起始索引
+    private int[] mLineStarts = new int[8];
+    // 每行的高度
+    private int[] mLineHeights = new int[8];
+    // 每行的top坐标
+    private int[] mLineTops = new int[8];
+    // 每行占用的宽度
+    private int[] mLineWidths = new int[8];
+    // 子视图的left坐标
+    private int[] mChildLefts = new int[16];
+    // 子视图的top坐标
+    private int[] mChildTops = new int[16];
+    // 上次计算的结果是否可以用于增量计算
+    private boolean mIsValid;
+    // 增量计算时暂存的旧行表尾部
+    private int[] mOldLineStarts = new int[8];
+    private int[] mOldLineHeights = new int[8];
+    private int[] mOldLineTops = new int[8];
+    private int[] mOldLineWidths = new int[8];
+    private int mOldLineCount;
+    // 均衡换行时以每个子视图结束的最优换行：行数、代价和最后一行的起始位置
+    private int[] mBreakLines = new int[16];
+    private long[] mBreakCosts = new long[16];
+    private int[] mBreakStarts = new int[16];
+
+
+    public int getHorizontalInterval() {
+        return mHorizontalInterval;
+    }
+
+    public void setHorizontalInterval(int horizontalInterval) {
+        if (mHorizontalInterval != horizontalInterval) {
+            mHorizontalInterval = horizontalInterval;
+            mIsValid = false;
+        }
+    }
+
+    public int getVerticalInterval() {
+        return mVerticalInterval;
+    }
+
+    public void setVerticalInterval(int verticalInterval) {
+        if (mVerticalInterval != verticalInterval) {
+            mVerticalInterval = verticalInterval;
+            mIsValid = false;
+        }
+    }
+
+    public boolean isHorizontalReverse() {
+        return mIsHorizontalReverse;
+    }
+
+    public void setHorizontalReverse(boolean horizontalReverse) {
+        if (mIsHorizontalReverse != horizontalReverse) {
+            mIsHorizontalReverse = horizontalReverse;
+            mIsValid = false;
+        }
+    }
+
+    public boolean isBalancedLines() {
+        return mIsBalancedLines;
+    }
+
+    public void setBalancedLines(boolean balancedLines) {
+        if (mIsBalancedLines != balancedLines) {
+            mIsBalancedLines = balancedLines;
+            mIsValid = false;
+        }
+    }
+
+    /**
+     * 计算每行固定数量时某一列的宽度，除不尽的像素依次分给前面的列，
+     * 所有列的宽度加上间隙正好等于可用宽度，每行的同一列宽度一致
+     *
+     * @param availableWidth     可用宽度
+     * @param columnCount        每行的数量
+     * @param horizontalInterval 水平间隙
+     * @param column             列索引
+     * @return 列宽度
+     */
+    public static int getFitColumnWidth(int availableWidth, int columnCount, int horizontalInterval, int column) {
+        final int totalWidth = Math.max(0, availableWidth - (columnCount - 1) * horizontalInterval);
+        return totalWidth / columnCount + (column < totalWidth % columnCount ? 1 : 0);
+    }
+
+    /**
+     * 使上次的计算结果失效，下次计算会完整地重新换行
+     */
+    public void invalidate() {
+        mIsValid = false;
+    }
+
+    /**
+     * 计算换行
+     *
+     * @param widths         子视图宽度
+     * @param heights        子视图高度
+     * @param count          子视图数量
+     * @param availableWidth 可用宽度
+     */
+    public void compute(int[] widths, int[] heights, int count, int availableWidth) {
+        mAvailableWidth = availableWidth;
+        mChildCount = count;
+        mLineCount = 0;
+        mChildLefts = _ensureCapacity(mChildLefts, count);
+        mChildTops = _ensureCapacity(mChildTops, count);
+        mOldLineCount = 0;
+        mIsValid = true;
+        if (count == 0) {
+            mContentHeight = 0;
+            return;
+        }
+        if (mIsBalancedLines) {
+            _computeBalancedLines(widths, heights, count);
+        } else {
+            _computeLines(widths, heights, 0, count, 0, count, 0);
+        }
+    }
+
+    /**
+     * 增量计算换行，[0, dirtyStart) 和末尾 unchangedTail 个子视图的宽高和上次计算时一致，
+     * 只有中间部分发生了变化(增加、删除或大小改变)
+     *
+     * @param widths         子视图宽度
+     * @param heights        子视图高度
+     * @param count          子视图数量
+     * @param availableWidth 可用宽度
+     * @param dirtyStart     第一个发生变化的子视图索引
+     * @param unchangedTail  末尾未发生变化的子视图数量
+     */
+    public void compute(int[] widths, int[] heights, int count, int availableWidth,
+                        int dirtyStart, int unchangedTail) {
+        final int oldCount = mChildCount;
+        if (!mIsValid || mIsBalancedLines || mLineCount == 0 || count == 0 || availableWidth != mAvailableWidth) {
+            // 均衡换行是全局最优的，任何变化都可能影响前面的行，只能完整计算
+            compute(widths, heights, count, availableWidth);
+            return;
+        }
+        dirtyStart = Math.max(0, Math.min(dirtyStart, Math.min(count, oldCount)));
+        unchangedTail = Math.max(0, Math.min(unchangedTail, Math.min(count, oldCount) - dirtyStart));
+        final int delta = count - oldCount;
+        if (delta == 0 && dirtyStart + unchangedTail == count) {
+            // 没有变化
+            return;
+        }
+        // 从脏区前一个子视图所在的行开始计算，因为脏区第一个子视图可能会缩小而移到上一行
+        final int restartLine = dirtyStart == 0 ? 0 : findLine(dirtyStart - 1);
+        // 暂存旧行表的尾部
+        final int oldTailLine = restartLine + 1;
+        final int oldTailLineCount = mLineCount - oldTailLine;
+        mOldLineCount = oldTailLineCount;
+        mOldLineStarts = _ensureCapacity(mOldLineStarts, oldTailLineCount);
+        mOldLineHeights = _ensureCapacity(mOldLineHeights, oldTailLineCount);
+        mOldLineTops = _ensureCapacity(mOldLineTops, oldTailLineCount);
+        mOldLineWidths = _ensureCapacity(mOldLineWidths, oldTailLineCount);
+        System.arraycopy(mLineStarts, oldTailLine, mOldLineStarts, 0, oldTailLineCount);
+        System.arraycopy(mLineHeights, oldTailLine, mOldLineHeights, 0, oldTailLineCount);
+        System.arraycopy(mLineTops, oldTailLine, mOldLineTops, 0, oldTailLineCount);
+        System.arraycopy(mLineWidths, oldTailLine, mOldLineWidths, 0, oldTailLineCount);
+        // 末尾未变化的子视图坐标整体平移到新的索引位置
+        mChildLefts = _ensureCapacity(mChildLefts, count);
+        mChildTops = _ensureCapacity(mChildTops, count);
+        if (delta != 0 && unchangedTail > 0) {
+            System.arraycopy(mChildLefts, oldCount - unchangedTail, mChildLefts, count - unchangedTail, unchangedTail);
+            System.arraycopy(mChildTops, oldCount - unchangedTail, mChildTops, count - unchangedTail, unchangedTail);
+        }
+        final int start = mLineStarts[restartLine];
+        final int top = mLineTops[restartLine];
+        final int oldContentHeight = mContentHeight;
+        mChildCount = count;
+        mLineCount = restartLine;
+        int oldLine = _computeLines(widths, heights, start, count, top, count - unchangedTail, delta);
+        if (oldLine >= 0) {
+            // 行起始位置和旧行表对齐，后面的行直接复用
+            final int stopIndex = mOldLineStarts[oldLine] + delta;
+            final int topDelta = mContentHeight - mOldLineTops[oldLine];
+            for (int i = oldLine; i < oldTailLineCount; i++) {
+                int line = mLineCount++;
+                _ensureLineCapacity(mLineCount);
+                mLineStarts[line] = mOldLineStarts[i] + delta;
+                mLineHeights[line] = mOldLineHeights[i];
+                mLineTops[line] = mOldLineTops[i] + topDelta;
+                mLineWidths[line] = mOldLineWidths[i];
+            }
+            if (topDelta != 0) {
+                for (int i = stopIndex; i < count; i++) {
+                    mChildTops[i] += topDelta;
+                }
+            }
+            mContentHeight = oldContentHeight + topDelta;
+        }
+    }
+
+    /**
+     * 从 start 开始逐行计算，如果 alignIndex 之后某一行的起始位置和暂存的旧行表对齐则提前结束
+     *
+     * @param widths     子视图宽度
+     * @param heights    子视图高度
+     * @param start      起始索引，必须为行的起始位置
+     * @param count      子视图数量
+     * @param top        起始行的top坐标
+     * @param alignIndex 从这个索引开始检测是否和旧行表对齐
+     * @param delta      子视图数量的变化值，用来把新索引转换为旧索引
+     * @return 提前结束时返回对齐的旧行索引，同时 mContentHeight 为该行新的top坐标；否则返回 -1
+     */
+    private int _computeLines(int[] widths, int[] heights, int start, int count, int top,
+                              int alignIndex, int delta) {
+        int lineStart = start;
+        int lineWidth = 0;
+        int lineHeight = 0;
+        int oldLine = 0;
+        for (int i = start; i < count; i++) {
+            int width = widths[i];
+            // 超过可用宽度则换行，每行至少放置一个子视图
+            if (i > lineStart && lineWidth + mHorizontalInterval + width > mAvailableWidth) {
+                _closeLine(widths, lineStart, i, lineWidth, lineHeight, top);
+                top += lineHeight + mVerticalInterval;
+                lineStart = i;
+                lineWidth = 0;
+                lineHeight = 0;
+                if (i >= alignIndex) {
+                    // 旧行表的起始位置是递增的，顺序查找即可
+                    int oldStart = i - delta;
+                    while (oldLine < mOldLineCount && mOldLineStarts[oldLine] < oldStart) {
+                        oldLine++;
+                    }
+                    if (oldLine < mOldLineCount && mOldLineStarts[oldLine] == oldStart) {
+                        mContentHeight = top;
+                        return oldLine;
+                    }
+                }
+            }
+            lineWidth = (i == lineStart) ? width : lineWidth + mHorizontalInterval + width;
+            lineHeight = Math.max(lineHeight, heights[i]);
+        }
+        _closeLine(widths, lineStart, count, lineWidth, lineHeight, top);
+        mContentHeight = top + lineHeight;
+        return -1;
+    }
+
+    /**
+     * 均衡换行，动态规划计算每个子视图作为行尾时的最优换行，代价先比较行数再比较每行剩余宽度的平方和，
+     * 因此行数和贪心换行一致，只是把子视图更均匀地分配到各行
+     * 一行从行尾往前扩展到放不下时停止，每个子视图只需要考虑一行能放下的数量，复杂度为 O(子视图数量 * 每行数量)
+     *
+     * @param widths  子视图宽度
+     * @param heights 子视图高度
+     * @param count   子视图数量
+     */
+    private void _computeBalancedLines(int[] widths, int[] heights, int count) {
+        final int size = count + 1;
+        mBreakLines = _ensureCapacity(mBreakLines, size);
+        mBreakStarts = _ensureCapacity(mBreakStarts, size);
+        if (mBreakCosts.length < size) {
+            mBreakCosts = new long[Math.max(size, mBreakCosts.length * 2)];
+        }
+        mBreakLines[0] = 0;
+        mBreakCosts[0] = 0;
+        for (int end = 1; end <= count; end++) {
+            int bestLines = Integer.MAX_VALUE;
+            long bestCost = Long.MAX_VALUE;
+            int bestStart = end - 1;
+            int lineWidth = -mHorizontalInterval;
+            for (int start = end - 1; start >= 0; start--) {
+                lineWidth += mHorizontalInterval + widths[start];
+                // 每行至少放置一个子视图，放不下的单个子视图剩余宽度按0计算
+                if (start < end - 1 && lineWidth > mAvailableWidth) {
+                    break;
+                }
+                long slack = Math.max(mAvailableWidth - lineWidth, 0);
+                int lines = mBreakLines[start] + 1;
+                long cost = mBreakCosts[start] + slack * slack;
+                if (lines < bestLines || (lines == bestLines && cost < bestCost)) {
+                    bestLines = lines;
+                    bestCost = cost;
+                    bestStart = start;
+                }
+            }
+            mBreakLines[end] = bestLines;
+            mBreakCosts[end] = bestCost;
+            mBreakStarts[end] = bestStart;
+        }
+        // 从最后一个子视图往前回溯，得到每行的起始位置，复用 mBreakLines 保存
+        final int lineCount = mBreakLines[count];
+        for (int line = lineCount - 1, end = count; line >= 0; line--) {
+            end = mBreakStarts[end];
+            mBreakLines[line] = end;
+        }
+        int top = 0;
+        for (int line = 0; line < lineCount; line++) {
+            final int start = mBreakLines[line];
+            final int end = line + 1 < lineCount ? mBreakLines[line + 1] : count;
+            int lineWidth = 0;
+            int lineHeight = 0;
+            for (int i = start; i < end; i++) {
+                lineWidth = (i == start) ? widths[i] : lineWidth + mHorizontalInterval + widths[i];
+                lineHeight = Math.max(lineHeight, heights[i]);
+            }
+            if (line > 0) {
+                top += mVerticalInterval;
+            }
+            _closeLine(widths, start, end, lineWidth, lineHeight, top);
+            top += lineHeight;
+        }
+        mContentHeight = top;
+    }
+
+    /**
+     * 查找子视图所在的行
+     *
+     * @param index 子视图索引
+     * @return 行索引
+     */
+    public int findLine(int index) {
+        int low = 0;
+        int high = mLineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mLineStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 查找纵坐标所在的行，纵坐标在两行间隙中时返回上面一行
+     *
+     * @param y 相对于内容区域的纵坐标
+     * @return 行索引，没有行时返回 -1
+     */
+    public int findLineAt(int y) {
+        if (mLineCount == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = mLineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mLineTops[mid] <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 记录一行并计算该行子视图的坐标
+     *
+     * @param widths     子视图宽度
+     * @param start      行起始索引
+     * @param end        行结束索引(不包含)
+     * @param lineWidth  行宽度
+     * @param lineHeight 行高度
+     * @param top        行top坐标
+     */
+    private void _closeLine(int[] widths, int start, int end, int lineWidth, int lineHeight, int top) {
+        int line = mLineCount++;
+        _ensureLineCapacity(mLineCount);
+        mLineStarts[line] = start;
+        mLineHeights[line] = lineHeight;
+        mLineTops[line] = top;
+        mLineWidths[line] = lineWidth;
+        int offset = 0;
+        for (int i = start; i < end; i++) {
+            if (mIsHorizontalReverse) {
+                // 反转时从右往左排列，放不下的单个子视图靠左对齐
+                mChildLefts[i] = Math.max(mAvailableWidth - offset - widths[i], 0);
+            } else {
+                mChildLefts[i] = offset;
+            }
+            mChildTops[i] = top;
+            offset += widths[i] + mHorizontalInterval;
+        }
+    }
+
+    private void _ensureLineCapacity(int lineCount) {
+        mLineStarts = _ensureCapacity(mLineStarts, lineCount);
+        mLineHeights = _ensureCapacity(mLineHeights, lineCount);
+        mLineTops = _ensureCapacity(mLineTops, lineCount);
+        mLineWidths = _ensureCapacity(mLineWidths, lineCount);
+    }
+
+    private static int[] _ensureCapacity(int[] array, int size) {
+        if (array.length >= size) {
+            return array;
+        }
+        int[] newArray = new int[Math.max(size, array.length * 2)];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    /**
+     * ==================================== 计算结果 ====================================
+     */
+
+    public int getChildCount() {
+        return mChildCount;
+    }
+
+    public int getAvailableWidth() {
+        return mAvailableWidth;
+    }
+
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    public int getContentHeight() {
+        return mContentHeight;
+    }
+
+    public int getLineStart(int line) {
+        return mLineStarts[line];
+    }
+
+    /**
+     * 获取行结束索引(不包含)
+     */
+    public int getLineEnd(int line) {
+        return line + 1 < mLineCount ? mLineStarts[line + 1] : mChildCount;
+    }
+
+    public int getLineHeight(int line) {
+        return mLineHeights[line];
+    }
+
+    public int getLineTop(int line) {
+        return mLineTops[line];
+    }
+
+    public int getLineWidth(int line) {
+        return mLineWidths[line];
+    }
+
+    public int getChildLeft(int index) {
+        return mChildLefts[index];
+    }
+
+    public int getChildTop(int index) {
+        return mChildTops[index];
+    }
+}
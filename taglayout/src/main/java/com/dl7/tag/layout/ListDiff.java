@@ -0,0 +1,382 @@
+package com.dl7.tag.layout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 列表差异计算，用 Myers 算法(线性空间版本)求新旧列表的最长公共子序列，
+ * 再把不在公共子序列中但内容相同的项识别为移动，同一位置先删后插的项识别为修改。
+ * 结果按顺序回调给 {@link Callback}，回调中的位置都是应用了之前操作后的当前位置，可以直接作用到 View 列表上
+ */
+public final class ListDiff {
+
+    private ListDiff() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 差异操作回调
+     */
+    public interface Callback {
+        /**
+         * 插入新项
+         *
+         * @param position 当前列表中的位置
+         * @param newIndex 新列表中的位置
+         */
+        void onInserted(int position, int newIndex);
+
+        /**
+         * 删除旧项
+         *
+         * @param position 当前列表中的位置
+         */
+        void onRemoved(int position);
+
+        /**
+         * 移动旧项，先从 fromPosition 删除再插入到 toPosition
+         *
+         * @param fromPosition 当前列表中的位置
+         * @param toPosition   移动后的位置
+         */
+        void onMoved(int fromPosition, int toPosition);
+
+        /**
+         * 旧项被新项替换
+         *
+         * @param position 当前列表中的位置
+         * @param newIndex 新列表中的位置
+         */
+        void onChanged(int position, int newIndex);
+    }
+
+    /**
+     * 计算差异并回调操作
+     *
+     * @param oldList  旧列表
+     * @param newList  新列表
+     * @param callback 操作回调
+     */
+    public static <T> void dispatch(List<T> oldList, List<T> newList, Callback callback) {
+        final int oldSize = oldList.size();
+        final int newSize = newList.size();
+        final int[] oldToNew = new int[oldSize];
+        final int[] newToOld = new int[newSize];
+        _fill(oldToNew, -1);
+        _fill(newToOld, -1);
+        _matchCommon(oldList, newList, oldToNew, newToOld);
+        // 不在公共子序列中但内容相同、需要移动的旧项
+        final boolean[] isMoved = new boolean[oldSize];
+        _matchMoves(oldList, newList, oldToNew, newToOld, isMoved);
+
+        // 当前列表由三部分组成：已经确定的新项、跳过的等待移动的旧项(两者交错，位于 cursor 之前)，
+        // 以及还没有处理的旧项(cursor 之后，保持旧列表中的顺序)。
+        // 公共子序列中的项不移动，遇到还没轮到的移动项直接跳过，轮到时再移动到 cursor 处，
+        // 用树状数组统计某一项之前剩余的项数得到它的当前位置，每次操作 O(log n)
+        final boolean[] consumed = new boolean[oldSize];
+        final int[] remainTree = _buildCountTree(oldSize);
+        int remainCount = oldSize;
+        // 跳过的旧项按跳过顺序编号，记录跳过时它之前已经确定的新项数量
+        final int[] skipOrders = new int[oldSize];
+        final int[] placedBeforeSkip = new int[oldSize];
+        final int[] skipTree = new int[oldSize + 1];
+        int skipCount = 0;
+        int pendingCount = 0;
+        // cursor 之后的第一个旧项
+        int head = 0;
+        for (int j = 0; j < newSize; j++) {
+            final int target = newToOld[j];
+            // 删除不再需要的旧项，如果新项也没有对应的旧项则直接替换，还没轮到的移动项跳过
+            boolean changed = false;
+            while (true) {
+                while (head < oldSize && consumed[head]) {
+                    head++;
+                }
+                if (head == oldSize || head == target || (oldToNew[head] != -1 && !isMoved[head])) {
+                    break;
+                }
+                consumed[head] = true;
+                _add(remainTree, head, -1);
+                remainCount--;
+                if (oldToNew[head] != -1) {
+                    skipOrders[head] = skipCount;
+                    placedBeforeSkip[head] = j;
+                    _add(skipTree, skipCount++, 1);
+                    pendingCount++;
+                    continue;
+                }
+                if (target == -1) {
+                    callback.onChanged(j + pendingCount, j);
+                    changed = true;
+                    break;
+                }
+                callback.onRemoved(j + pendingCount);
+            }
+            if (changed) {
+                continue;
+            }
+            final int position = j + pendingCount;
+            if (target == -1) {
+                callback.onInserted(position, j);
+            } else if (target == head) {
+                // 正好在 cursor 处，不需要移动
+                consumed[target] = true;
+                _add(remainTree, target, -1);
+                remainCount--;
+            } else if (consumed[target]) {
+                // 之前跳过的项，移动到 cursor 处
+                int order = skipOrders[target];
+                int from = placedBeforeSkip[target] + _countBefore(skipTree, order);
+                _add(skipTree, order, -1);
+                pendingCount--;
+                callback.onMoved(from, position - 1);
+            } else {
+                int from = position + _countBefore(remainTree, target);
+                consumed[target] = true;
+                _add(remainTree, target, -1);
+                remainCount--;
+                callback.onMoved(from, position);
+            }
+        }
+        // 剩余的都是要删除的旧项，从后往前删除
+        for (int i = newSize + remainCount - 1; i >= newSize; i--) {
+            callback.onRemoved(i);
+        }
+    }
+
+    /**
+     * 创建每项计数都为 1 的树状数组，下标从 1 开始
+     */
+    private static int[] _buildCountTree(int size) {
+        final int[] tree = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += 1;
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * 把第 index 项的计数加上 delta
+     */
+    private static void _add(int[] tree, int index, int delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 统计第 index 项之前的计数和
+     */
+    private static int _countBefore(int[] tree, int index) {
+        int count = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private static void _fill(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = value;
+        }
+    }
+
+    /**
+     * 把不在公共子序列中但内容相同的项匹配为移动
+     */
+    private static <T> void _matchMoves(List<T> oldList, List<T> newList, int[] oldToNew, int[] newToOld,
+                                        boolean[] isMoved) {
+        HashMap<T, ArrayDeque<Integer>> removed = null;
+        for (int i = 0; i < oldToNew.length; i++) {
+            if (oldToNew[i] == -1) {
+                if (removed == null) {
+                    removed = new HashMap<>();
+                }
+                T item = oldList.get(i);
+                ArrayDeque<Integer> indexes = removed.get(item);
+                if (indexes == null) {
+                    indexes = new ArrayDeque<>();
+                    removed.put(item, indexes);
+                }
+                indexes.add(i);
+            }
+        }
+        if (removed == null) {
+            return;
+        }
+        for (int j = 0; j < newToOld.length; j++) {
+            if (newToOld[j] == -1) {
+                ArrayDeque<Integer> indexes = removed.get(newList.get(j));
+                if (indexes != null && !indexes.isEmpty()) {
+                    int i = indexes.poll();
+                    oldToNew[i] = j;
+                    newToOld[j] = i;
+                    isMoved[i] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * ==================================== Myers 算法 ====================================
+     */
+
+    /**
+     * 求最长公共子序列，先去掉相同的首尾，中间部分用分治的 Myers 算法计算
+     */
+    private static <T> void _matchCommon(List<T> oldList, List<T> newList, int[] oldToNew, int[] newToOld) {
+        int oldStart = 0;
+        int newStart = 0;
+        int oldEnd = oldList.size();
+        int newEnd = newList.size();
+        while (oldStart < oldEnd && newStart < newEnd && _equals(oldList.get(oldStart), newList.get(newStart))) {
+            oldToNew[oldStart] = newStart;
+            newToOld[newStart] = oldStart;
+            oldStart++;
+            newStart++;
+        }
+        while (oldEnd > oldStart && newEnd > newStart && _equals(oldList.get(oldEnd - 1), newList.get(newEnd - 1))) {
+            oldEnd--;
+            newEnd--;
+            oldToNew[oldEnd] = newEnd;
+            newToOld[newEnd] = oldEnd;
+        }
+        if (oldStart == oldEnd || newStart == newEnd) {
+            return;
+        }
+        final int max = (oldEnd - oldStart + newEnd - newStart + 1) / 2;
+        final int[] forward = new int[max * 2 + 3];
+        final int[] backward = new int[max * 2 + 3];
+        final int[] snake = new int[5];
+        final ArrayList<int[]> stack = new ArrayList<>();
+        stack.add(new int[]{oldStart, oldEnd, newStart, newEnd});
+        while (!stack.isEmpty()) {
+            int[] range = stack.remove(stack.size() - 1);
+            if (!_midSnake(oldList, newList, range, forward, backward, max + 1, snake)) {
+                continue;
+            }
+            // snake: [startX, startY, endX, endY, reverse]，其中的对角线部分为匹配项
+            int diagonalSize = Math.min(snake[2] - snake[0], snake[3] - snake[1]);
+            int x = snake[0];
+            int y = snake[1];
+            // 正向 snake 的非对角线部分在开头
+            if (snake[4] == 0 && snake[2] - snake[0] != snake[3] - snake[1]) {
+                if (snake[3] - snake[1] > snake[2] - snake[0]) {
+                    y++;
+                } else {
+                    x++;
+                }
+            }
+            for (int k = 0; k < diagonalSize; k++) {
+                oldToNew[x + k] = y + k;
+                newToOld[y + k] = x + k;
+            }
+            if (snake[0] > range[0] && snake[1] > range[2]) {
+                stack.add(new int[]{range[0], snake[0], range[2], snake[1]});
+            }
+            if (range[1] > snake[2] && range[3] > snake[3]) {
+                stack.add(new int[]{snake[2], range[1], snake[3], range[3]});
+            }
+        }
+    }
+
+    /**
+     * 查找中间 snake，从两端同时搜索
+     *
+     * @param range    [oldStart, oldEnd, newStart, newEnd]
+     * @param offset   数组中 k = 0 对应的下标
+     * @param snake    输出 [startX, startY, endX, endY, reverse]
+     * @return 是否找到
+     */
+    private static <T> boolean _midSnake(List<T> oldList, List<T> newList, int[] range,
+                                         int[] forward, int[] backward, int offset, int[] snake) {
+        final int oldStart = range[0];
+        final int oldEnd = range[1];
+        final int newStart = range[2];
+        final int newEnd = range[3];
+        final int oldSize = oldEnd - oldStart;
+        final int newSize = newEnd - newStart;
+        if (oldSize < 1 || newSize < 1) {
+            return false;
+        }
+        final int max = (oldSize + newSize + 1) / 2;
+        final int delta = oldSize - newSize;
+        final boolean checkForward = (Math.abs(delta) & 1) == 1;
+        forward[offset + 1] = oldStart;
+        backward[offset + 1] = oldEnd;
+        for (int d = 0; d <= max; d++) {
+            // 正向搜索
+            for (int k = -d; k <= d; k += 2) {
+                int startX;
+                int x;
+                if (k == -d || (k != d && forward[offset + k + 1] > forward[offset + k - 1])) {
+                    startX = forward[offset + k + 1];
+                    x = startX;
+                } else {
+                    startX = forward[offset + k - 1];
+                    x = startX + 1;
+                }
+                int y = newStart + (x - oldStart) - k;
+                int startY = (d == 0 || x != startX) ? y : y - 1;
+                while (x < oldEnd && y < newEnd && _equals(oldList.get(x), newList.get(y))) {
+                    x++;
+                    y++;
+                }
+                forward[offset + k] = x;
+                if (checkForward) {
+                    int backwardK = delta - k;
+                    if (backwardK >= -d + 1 && backwardK <= d - 1 && backward[offset + backwardK] <= x) {
+                        snake[0] = startX;
+                        snake[1] = startY;
+                        snake[2] = x;
+                        snake[3] = y;
+                        snake[4] = 0;
+                        return true;
+                    }
+                }
+            }
+            // 反向搜索
+            for (int k = -d; k <= d; k += 2) {
+                int startX;
+                int x;
+                if (k == -d || (k != d && backward[offset + k + 1] < backward[offset + k - 1])) {
+                    startX = backward[offset + k + 1];
+                    x = startX;
+                } else {
+                    startX = backward[offset + k - 1];
+                    x = startX - 1;
+                }
+                int y = newEnd - ((oldEnd - x) - k);
+                int startY = (d == 0 || x != startX) ? y : y + 1;
+                while (x > oldStart && y > newStart && _equals(oldList.get(x - 1), newList.get(y - 1))) {
+                    x--;
+                    y--;
+                }
+                backward[offset + k] = x;
+                if (!checkForward) {
+                    int forwardK = delta - k;
+                    if (forwardK >= -d && forwardK <= d && forward[offset + forwardK] >= x) {
+                        // 反向 snake 的非对角线部分在末尾
+                        snake[0] = x;
+                        snake[1] = y;
+                        snake[2] = startX;
+                        snake[3] = startY;
+                        snake[4] = 1;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean _equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,95 @@
+package com.dl7.tag.layout;
+
+/**
+ * 测量结果缓存，按(宽度 MeasureSpec、高度 MeasureSpec、内容版本)保存固定数量的测量结果
+ * 每个结果由若干个 int 组成，容量满时按先进先出替换，内容版本变化后旧的结果不会再命中
+ */
+public class MeasureCache {
+
+    private final int mCapacity;
+    private final int mValueCount;
+    private final int[] mWidthSpecs;
+    private final int[] mHeightSpecs;
+    private final int[] mVersions;
+    private final int[] mValues;
+    // 有效的结果数量
+    private int mSize;
+    // 下一个替换的位置
+    private int mNext;
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * @param capacity   缓存的结果数量
+     * @param valueCount 每个结果的 int 数量
+     */
+    public MeasureCache(int capacity, int valueCount) {
+        if (capacity <= 0 || valueCount <= 0) {
+            throw new IllegalArgumentException("capacity and valueCount must be > 0");
+        }
+        mCapacity = capacity;
+        mValueCount = valueCount;
+        mWidthSpecs = new int[capacity];
+        mHeightSpecs = new int[capacity];
+        mVersions = new int[capacity];
+        mValues = new int[capacity * valueCount];
+    }
+
+    /**
+     * 查找测量结果
+     *
+     * @return 结果位置，没有时返回 -1
+     */
+    public int find(int widthSpec, int heightSpec, int version) {
+        for (int i = 0; i < mSize; i++) {
+            if (mWidthSpecs[i] == widthSpec && mHeightSpecs[i] == heightSpec && mVersions[i] == version) {
+                mHitCount++;
+                return i;
+            }
+        }
+        mMissCount++;
+        return -1;
+    }
+
+    /**
+     * 添加测量结果，之后通过 {@link #setValue(int, int, int)} 保存结果
+     *
+     * @return 结果位置
+     */
+    public int put(int widthSpec, int heightSpec, int version) {
+        final int slot = mNext;
+        mNext = (mNext + 1) % mCapacity;
+        if (mSize < mCapacity) {
+            mSize++;
+        }
+        mWidthSpecs[slot] = widthSpec;
+        mHeightSpecs[slot] = heightSpec;
+        mVersions[slot] = version;
+        return slot;
+    }
+
+    public int getValue(int slot, int index) {
+        return mValues[slot * mValueCount + index];
+    }
+
+    public void setValue(int slot, int index, int value) {
+        mValues[slot * mValueCount + index] = value;
+    }
+
+    public void clear() {
+        mSize = 0;
+        mNext = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+}
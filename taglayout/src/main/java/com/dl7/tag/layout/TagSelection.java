@@ -0,0 +1,259 @@
+package com.dl7.tag.layout;
+
+import java.util.Arrays;
+
+/**
+ * 标签选中状态，按位置保存在 long 数组实现的位集合中
+ * 单选模式直接记录当前选中的位置，选中和取消都是 O(1)，全选和清空按 64 位整字操作
+ */
+public class TagSelection {
+
+    // 无效位置
+    public static final int INVALID_POSITION = -1;
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    private long[] mWords = new long[1];
+    // 选中的数量
+    private int mCheckedCount;
+    // 是否单选
+    private boolean mIsSingleChoice;
+    // 单选时选中的位置
+    private int mCheckedPosition = INVALID_POSITION;
+
+    public boolean isSingleChoice() {
+        return mIsSingleChoice;
+    }
+
+    /**
+     * 设置是否单选，切换到单选时清空选中状态
+     *
+     * @param singleChoice
+     */
+    public void setSingleChoice(boolean singleChoice) {
+        if (singleChoice && !mIsSingleChoice) {
+            clear();
+        }
+        mIsSingleChoice = singleChoice;
+    }
+
+    public boolean isChecked(int position) {
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        return wordIndex < mWords.length && (mWords[wordIndex] & (1L << position)) != 0;
+    }
+
+    /**
+     * 设置选中状态
+     *
+     * @param position 位置
+     * @param checked  是否选中
+     * @return 单选模式下因此被取消选中的位置，没有则返回 {@link #INVALID_POSITION}
+     */
+    public int setChecked(int position, boolean checked) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("position < 0: " + position);
+        }
+        int unchecked = INVALID_POSITION;
+        if (checked) {
+            if (mIsSingleChoice && mCheckedPosition != INVALID_POSITION && mCheckedPosition != position) {
+                unchecked = mCheckedPosition;
+                _clearBit(unchecked);
+            }
+            _setBit(position);
+            if (mIsSingleChoice) {
+                mCheckedPosition = position;
+            }
+        } else {
+            _clearBit(position);
+            if (mCheckedPosition == position) {
+                mCheckedPosition = INVALID_POSITION;
+            }
+        }
+        return unchecked;
+    }
+
+    /**
+     * 获取单选时选中的位置
+     *
+     * @return 没有选中时返回 {@link #INVALID_POSITION}
+     */
+    public int getCheckedPosition() {
+        return mIsSingleChoice ? mCheckedPosition : nextChecked(0);
+    }
+
+    public int getCheckedCount() {
+        return mCheckedCount;
+    }
+
+    /**
+     * 获取 fromPosition 及之后第一个选中的位置
+     *
+     * @param fromPosition
+     * @return 没有则返回 {@link #INVALID_POSITION}
+     */
+    public int nextChecked(int fromPosition) {
+        int wordIndex = fromPosition >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= mWords.length) {
+            return INVALID_POSITION;
+        }
+        long word = mWords[wordIndex] & (WORD_MASK << fromPosition);
+        while (true) {
+            if (word != 0) {
+                return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == mWords.length) {
+                return INVALID_POSITION;
+            }
+            word = mWords[wordIndex];
+        }
+    }
+
+    /**
+     * 获取 fromPosition 及之前最后一个选中的位置
+     *
+     * @param fromPosition
+     * @return 没有则返回 {@link #INVALID_POSITION}
+     */
+    public int previousChecked(int fromPosition) {
+        if (fromPosition < 0) {
+            return INVALID_POSITION;
+        }
+        int wordIndex = fromPosition >> ADDRESS_BITS_PER_WORD;
+        if (wordIndex >= mWords.length) {
+            wordIndex = mWords.length - 1;
+            fromPosition = mWords.length * BITS_PER_WORD - 1;
+        }
+        long word = mWords[wordIndex] & (WORD_MASK >>> -(fromPosition + 1));
+        while (true) {
+            if (word != 0) {
+                return (wordIndex + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+            }
+            if (wordIndex-- == 0) {
+                return INVALID_POSITION;
+            }
+            word = mWords[wordIndex];
+        }
+    }
+
+    /**
+     * 全选 [0, count)，单选模式下无效
+     *
+     * @param count 数量
+     */
+    public void checkAll(int count) {
+        if (mIsSingleChoice || count <= 0) {
+            return;
+        }
+        _ensureCapacity(count - 1);
+        int fullWords = count >> ADDRESS_BITS_PER_WORD;
+        Arrays.fill(mWords, 0, fullWords, WORD_MASK);
+        if ((count & (BITS_PER_WORD - 1)) != 0) {
+            mWords[fullWords] |= WORD_MASK >>> -count;
+        }
+        mCheckedCount = _cardinality();
+    }
+
+    /**
+     * 清空选中状态
+     */
+    public void clear() {
+        Arrays.fill(mWords, 0);
+        mCheckedCount = 0;
+        mCheckedPosition = INVALID_POSITION;
+    }
+
+    /**
+     * ==================================== 位置变化 ====================================
+     * 只移动选中的位，和选中数量成正比
+     */
+
+    /**
+     * 在 position 处插入了 count 项
+     */
+    public void onInserted(int position, int count) {
+        for (int i = previousChecked(Integer.MAX_VALUE - 1); i >= position; i = previousChecked(i - 1)) {
+            _clearBit(i);
+            _setBit(i + count);
+        }
+        if (mCheckedPosition >= position) {
+            mCheckedPosition += count;
+        }
+    }
+
+    /**
+     * 从 position 处删除了 count 项
+     */
+    public void onRemoved(int position, int count) {
+        for (int i = nextChecked(position); i != INVALID_POSITION && i < position + count; i = nextChecked(i + 1)) {
+            _clearBit(i);
+        }
+        for (int i = nextChecked(position + count); i != INVALID_POSITION; i = nextChecked(i + 1)) {
+            _clearBit(i);
+            _setBit(i - count);
+        }
+        if (mCheckedPosition >= position + count) {
+            mCheckedPosition -= count;
+        } else if (mCheckedPosition >= position) {
+            mCheckedPosition = INVALID_POSITION;
+        }
+    }
+
+    /**
+     * 一项从 fromPosition 移动到 toPosition
+     */
+    public void onMoved(int fromPosition, int toPosition) {
+        if (fromPosition == toPosition) {
+            return;
+        }
+        boolean checked = isChecked(fromPosition);
+        boolean isSingleChecked = mCheckedPosition == fromPosition;
+        onRemoved(fromPosition, 1);
+        onInserted(toPosition, 1);
+        if (checked) {
+            _setBit(toPosition);
+        }
+        if (isSingleChecked) {
+            mCheckedPosition = toPosition;
+        }
+    }
+
+    /**
+     * ==================================== 位操作 ====================================
+     */
+
+    private void _setBit(int position) {
+        _ensureCapacity(position);
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << position;
+        if ((mWords[wordIndex] & mask) == 0) {
+            mWords[wordIndex] |= mask;
+            mCheckedCount++;
+        }
+    }
+
+    private void _clearBit(int position) {
+        int wordIndex = position >> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << position;
+        if (wordIndex < mWords.length && (mWords[wordIndex] & mask) != 0) {
+            mWords[wordIndex] &= ~mask;
+            mCheckedCount--;
+        }
+    }
+
+    private void _ensureCapacity(int position) {
+        int wordsRequired = (position >> ADDRESS_BITS_PER_WORD) + 1;
+        if (mWords.length < wordsRequired) {
+            mWords = Arrays.copyOf(mWords, Math.max(mWords.length * 2, wordsRequired));
+        }
+    }
+
+    private int _cardinality() {
+        int count = 0;
+        for (long word : mWords) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -1,7 +1,12 @@
 package com.dl7.tag.utils;
 
+import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
+import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
 
 /**
  * Created by Rukey7 on 2016/12/5.
@@ -9,6 +14,9 @@ import android.graphics.Matrix;
 
 public final class BitmapUtils {
 
+    // 解码过的资源图片，使用同一个资源的控件共享一个 Bitmap
+    private static final SparseArray<WeakReference<Bitmap>> sResourceBitmaps = new SparseArray<>();
+
     private BitmapUtils() {
         throw new AssertionError();
     }
@@ -32,4 +40,23 @@ public final class BitmapUtils {
                 matrix, true);
         return newBitmap;
     }
+
+    /**
+     * 解码资源图片，相同资源返回同一个 Bitmap，调用者不能修改或回收
+     *
+     * @param res   资源
+     * @param resId 图片资源id
+     * @return 共享的Bitmap
+     */
+    public static Bitmap decodeResource(Resources res, int resId) {
+        synchronized (sResourceBitmaps) {
+            WeakReference<Bitmap> ref = sResourceBitmaps.get(resId);
+            Bitmap bitmap = ref == null ? null : ref.get();
+            if (bitmap == null || bitmap.isRecycled()) {
+                bitmap = BitmapFactory.decodeResource(res, resId);
+                sResourceBitmaps.put(resId, new WeakReference<>(bitmap));
+            }
+            return bitmap;
+        }
+    }
 }
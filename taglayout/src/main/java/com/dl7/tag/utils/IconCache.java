@@ -0,0 +1,396 @@
+package com.dl7.tag.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 进程内共享的图标缓存，按(资源id、图标大小)缓存解码结果
+ * 解码时通过采样和密度缩放直接得到图标大小的 Bitmap，不会先解码原图
+ * 缓存按字节数使用 LRU 策略限制大小，移除且不再使用的 Bitmap 放入复用池，解码新图标时复用其内存(4.4及以上)
+ */
+public final class IconCache {
+
+    // 默认最大缓存字节数
+    private static final int DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+    // 默认复用池最大字节数
+    private static final int DEFAULT_MAX_POOL_SIZE = 512 * 1024;
+
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+    private static int sMaxPoolSize = DEFAULT_MAX_POOL_SIZE;
+    private static final LinkedHashMap<Long, Bitmap> sCache = new LinkedHashMap<>(16, 0.75f, true);
+    // 图标的使用计数，使用中的 Bitmap 被移出缓存后不能放入复用池
+    private static final WeakHashMap<Bitmap, Entry> sEntries = new WeakHashMap<>();
+    // 复用池，按放入顺序保存
+    private static final ArrayList<Bitmap> sPool = new ArrayList<>();
+    private static int sSize;
+    private static int sPoolSize;
+    private static int sHitCount;
+    private static int sMissCount;
+    private static int sReuseCount;
+
+    private IconCache() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 获取图标，优先从缓存中获取，使用结束后需要调用 {@link #release(Bitmap)}
+     * 返回的 Bitmap 是共享的，调用者不能修改或回收
+     *
+     * @param res   资源
+     * @param resId 图片资源id
+     * @param size  图标大小，解码后的长边不超过这个大小
+     * @return 图标，不是图片资源(如 xml 资源)时返回 null
+     */
+    public static Bitmap obtain(Resources res, int resId, int size) {
+        final Long key = getKey(resId, size);
+        synchronized (sCache) {
+            Bitmap bitmap = sCache.get(key);
+            if (bitmap != null) {
+                sHitCount++;
+                _retainCached(bitmap);
+                return bitmap;
+            }
+            sMissCount++;
+        }
+        // 解码不加锁，避免阻塞其它线程的缓存查询
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(res, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        final int srcSize = Math.max(options.outWidth, options.outHeight);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(srcSize, size);
+        final int sampledSize = srcSize / options.inSampleSize;
+        float scale = 1;
+        if (sampledSize > size) {
+            // 采样后仍大于图标大小，解码时再按密度缩放到图标大小
+            options.inScaled = true;
+            options.inDensity = sampledSize;
+            options.inTargetDensity = size;
+            scale = (float) size / sampledSize;
+        }
+        Bitmap inBitmap = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            options.inMutable = true;
+            int width = Math.round(options.outWidth / options.inSampleSize * scale);
+            int height = Math.round(options.outHeight / options.inSampleSize * scale);
+            synchronized (sCache) {
+                inBitmap = _takeFromPool(width * height * 4);
+            }
+            options.inBitmap = inBitmap;
+        }
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeResource(res, resId, options);
+        } catch (IllegalArgumentException e) {
+            // 复用的内存不满足要求，重新分配
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeResource(res, resId, options);
+        }
+        synchronized (sCache) {
+            if (bitmap == null) {
+                if (inBitmap != null) {
+                    _putToPool(inBitmap);
+                }
+                return null;
+            }
+            if (bitmap == inBitmap) {
+                sReuseCount++;
+            } else if (inBitmap != null) {
+                _putToPool(inBitmap);
+            }
+            Bitmap cached = sCache.get(key);
+            if (cached != null) {
+                // 其它线程已经解码了同一个图标
+                _putToPool(bitmap);
+                _retainCached(cached);
+                return cached;
+            }
+            Entry entry = new Entry();
+            entry.refCount = 1;
+            entry.isCached = true;
+            sEntries.put(bitmap, entry);
+            sCache.put(key, bitmap);
+            sSize += _sizeOf(bitmap);
+            _trimToSize();
+            return bitmap;
+        }
+    }
+
+    /**
+     * 只从缓存中获取图标，不解码，获取到时同样需要调用 {@link #release(Bitmap)}
+     *
+     * @param resId 图片资源id
+     * @param size  图标大小
+     * @return 没有缓存时返回 null
+     */
+    public static Bitmap get(int resId, int size) {
+        synchronized (sCache) {
+            Bitmap bitmap = sCache.get(getKey(resId, size));
+            if (bitmap != null) {
+                sHitCount++;
+                _retainCached(bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 增加图标的使用计数，同一个图标分给多个使用者时调用
+     *
+     * @param bitmap 通过 {@link #obtain(Resources, int, int)} 获取的图标
+     * @return bitmap
+     */
+    static Bitmap retain(Bitmap bitmap) {
+        synchronized (sCache) {
+            Entry entry = sEntries.get(bitmap);
+            if (entry != null) {
+                entry.refCount++;
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 增加缓存中图标的使用计数，没有计数记录时重新创建
+     */
+    private static void _retainCached(Bitmap bitmap) {
+        Entry entry = sEntries.get(bitmap);
+        if (entry == null) {
+            entry = new Entry();
+            entry.isCached = true;
+            sEntries.put(bitmap, entry);
+        }
+        entry.refCount++;
+    }
+
+    /**
+     * 缓存的键
+     */
+    static Long getKey(int resId, int size) {
+        return ((long) resId << 32) | (size & 0xffffffffL);
+    }
+
+    /**
+     * 释放通过 {@link #obtain(Resources, int, int)} 获取的图标，不是从缓存获取的 Bitmap 会被忽略
+     *
+     * @param bitmap 图标
+     */
+    public static void release(Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        synchronized (sCache) {
+            Entry entry = sEntries.get(bitmap);
+            if (entry == null || entry.refCount == 0) {
+                return;
+            }
+            entry.refCount--;
+            if (entry.refCount == 0 && !entry.isCached) {
+                sEntries.remove(bitmap);
+                _putToPool(bitmap);
+            }
+        }
+    }
+
+    /**
+     * 计算采样率，采样后的大小不小于目标大小
+     *
+     * @param srcSize 原图大小
+     * @param dstSize 目标大小
+     * @return 2的幂
+     */
+    public static int calculateInSampleSize(int srcSize, int dstSize) {
+        int inSampleSize = 1;
+        if (dstSize <= 0) {
+            return inSampleSize;
+        }
+        while (srcSize / (inSampleSize * 2) >= dstSize) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private static int _sizeOf(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    private static void _trimToSize() {
+        Iterator<Map.Entry<Long, Bitmap>> iterator = sCache.entrySet().iterator();
+        while (sSize > sMaxSize && iterator.hasNext()) {
+            Bitmap eldest = iterator.next().getValue();
+            iterator.remove();
+            sSize -= _sizeOf(eldest);
+            Entry entry = sEntries.get(eldest);
+            if (entry.refCount == 0) {
+                sEntries.remove(eldest);
+                _putToPool(eldest);
+            } else {
+                entry.isCached = false;
+            }
+        }
+    }
+
+    /**
+     * 放入复用池，4.4以下不能复用不同大小的 Bitmap，直接丢弃
+     */
+    private static void _putToPool(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT || !bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+        sPool.add(bitmap);
+        sPoolSize += _sizeOf(bitmap);
+        while (sPoolSize > sMaxPoolSize && !sPool.isEmpty()) {
+            sPoolSize -= _sizeOf(sPool.remove(0));
+        }
+    }
+
+    /**
+     * 从复用池取出能容纳 byteCount 的最小 Bitmap
+     */
+    private static Bitmap _takeFromPool(int byteCount) {
+        int index = -1;
+        int minSize = Integer.MAX_VALUE;
+        for (int i = 0; i < sPool.size(); i++) {
+            int size = _sizeOf(sPool.get(i));
+            if (size >= byteCount && size < minSize) {
+                index = i;
+                minSize = size;
+            }
+        }
+        if (index < 0) {
+            return null;
+        }
+        sPoolSize -= minSize;
+        return sPool.remove(index);
+    }
+
+    /**
+     * ==================================== 统计和配置 ====================================
+     */
+
+    public static int getHitCount() {
+        synchronized (sCache) {
+            return sHitCount;
+        }
+    }
+
+    public static int getMissCount() {
+        synchronized (sCache) {
+            return sMissCount;
+        }
+    }
+
+    /**
+     * 解码时复用了池中内存的次数
+     *
+     * @return
+     */
+    public static int getReuseCount() {
+        synchronized (sCache) {
+            return sReuseCount;
+        }
+    }
+
+    public static int size() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    /**
+     * 缓存占用的字节数
+     *
+     * @return
+     */
+    public static int getMemorySize() {
+        synchronized (sCache) {
+            return sSize;
+        }
+    }
+
+    /**
+     * 复用池占用的字节数
+     *
+     * @return
+     */
+    public static int getPoolMemorySize() {
+        synchronized (sCache) {
+            return sPoolSize;
+        }
+    }
+
+    public static int getMaxSize() {
+        synchronized (sCache) {
+            return sMaxSize;
+        }
+    }
+
+    /**
+     * 设置最大缓存字节数，超出的部分按 LRU 策略移除
+     *
+     * @param maxSize     最大缓存字节数
+     * @param maxPoolSize 复用池最大字节数，0 表示不复用
+     */
+    public static void setMaxSize(int maxSize, int maxPoolSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (maxPoolSize < 0) {
+            throw new IllegalArgumentException("maxPoolSize < 0");
+        }
+        synchronized (sCache) {
+            sMaxSize = maxSize;
+            sMaxPoolSize = maxPoolSize;
+            _trimToSize();
+            while (sPoolSize > sMaxPoolSize && !sPool.isEmpty()) {
+                sPoolSize -= _sizeOf(sPool.remove(0));
+            }
+        }
+    }
+
+    /**
+     * 清空缓存、复用池和统计，使用中的图标保留使用计数，释放后放入复用池
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.clear();
+            Iterator<Entry> iterator = sEntries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.refCount > 0) {
+                    entry.isCached = false;
+                } else {
+                    iterator.remove();
+                }
+            }
+            sPool.clear();
+            sSize = 0;
+            sPoolSize = 0;
+            sHitCount = 0;
+            sMissCount = 0;
+            sReuseCount = 0;
+        }
+    }
+
+    private static final class Entry {
+        // 使用计数
+        int refCount;
+        // 是否还在缓存中
+        boolean isCached;
+    }
+}
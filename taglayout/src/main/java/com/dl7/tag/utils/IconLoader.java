@@ -0,0 +1,123 @@
+package com.dl7.tag.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 异步加载图标，在后台线程通过 {@link IconCache} 解码，结果回调到主线程
+ * 同一个图标正在加载时不会重复解码，所有请求共享一次解码结果
+ * 只能在主线程调用
+ */
+public final class IconLoader {
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    // 正在加载的图标和等待结果的回调
+    private static final HashMap<Long, ArrayList<Callback>> sInFlight = new HashMap<>();
+    private static int sRequestCount;
+    private static int sDecodeCount;
+
+    private IconLoader() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 加载图标，已经缓存时直接回调，否则在后台解码
+     *
+     * @param res      资源
+     * @param resId    图片资源id
+     * @param size     图标大小
+     * @param callback 在主线程回调，获取到的图标使用结束后需要调用 {@link IconCache#release(Bitmap)}
+     */
+    public static void load(final Resources res, final int resId, final int size, Callback callback) {
+        sRequestCount++;
+        Bitmap cached = IconCache.get(resId, size);
+        if (cached != null) {
+            callback.onIconLoaded(cached);
+            return;
+        }
+        final Long key = IconCache.getKey(resId, size);
+        ArrayList<Callback> callbacks = sInFlight.get(key);
+        if (callbacks != null) {
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        sInFlight.put(key, callbacks);
+        sDecodeCount++;
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = IconCache.obtain(res, resId, size);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        _deliver(key, bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void _deliver(Long key, Bitmap bitmap) {
+        ArrayList<Callback> callbacks = sInFlight.remove(key);
+        if (bitmap != null) {
+            // 先为每个回调增加计数，避免前面的回调释放后图标被复用
+            for (int i = 1; i < callbacks.size(); i++) {
+                IconCache.retain(bitmap);
+            }
+        }
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).onIconLoaded(bitmap);
+        }
+    }
+
+    /**
+     * ==================================== 统计 ====================================
+     */
+
+    /**
+     * 正在加载的图标数量
+     *
+     * @return
+     */
+    public static int getInFlightCount() {
+        return sInFlight.size();
+    }
+
+    /**
+     * 累计请求次数
+     *
+     * @return
+     */
+    public static int getRequestCount() {
+        return sRequestCount;
+    }
+
+    /**
+     * 累计在后台解码的次数，和请求次数的差值为缓存命中和合并的请求
+     *
+     * @return
+     */
+    public static int getDecodeCount() {
+        return sDecodeCount;
+    }
+
+    /**
+     * 图标加载回调
+     */
+    public interface Callback {
+        /**
+         * 加载完成
+         *
+         * @param bitmap 图标，不是图片资源(如 xml 资源)时为 null
+         */
+        void onIconLoaded(Bitmap bitmap);
+    }
+}
@@ -0,0 +1,155 @@
+package com.dl7.tag.utils;
+
+import android.graphics.Paint;
+
+/**
+ * 文字裁剪帮助类
+ * 一次获取所有字符的宽度并计算前缀和，二分查找能显示的最大长度，
+ * 裁剪位置会调整到字素边界，不会拆开代理对、组合字符和 emoji 序列
+ */
+public final class TextEllipsizer {
+
+    // 零宽连接符
+    private static final int ZERO_WIDTH_JOINER = 0x200D;
+
+    private TextEllipsizer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 获取足够大小的缓冲区
+     *
+     * @param buffer 原缓冲区，可以为null
+     * @param length 文字长度
+     * @return 长度至少为 length + 1 的缓冲区
+     */
+    public static float[] obtainBuffer(float[] buffer, int length) {
+        if (buffer == null || buffer.length < length + 1) {
+            return new float[Math.max(length + 1, buffer == null ? 16 : buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    /**
+     * 计算文字在最大宽度内能显示的字符数
+     *
+     * @param paint    画笔
+     * @param text     文字
+     * @param maxWidth 最大宽度
+     * @param widths   缓冲区，长度至少为 text.length() + 1，返回时保存字符宽度的前缀和
+     * @return 能显示的字符数，位于字素边界
+     */
+    public static int ellipsize(Paint paint, String text, float maxWidth, float[] widths) {
+        final int length = text.length();
+        paint.getTextWidths(text, 0, length, widths);
+        toPrefixWidths(widths, length);
+        return findCutOffset(text, widths, length, maxWidth);
+    }
+
+    /**
+     * 把字符宽度原地转换为前缀和，转换后 widths[i] 为前 i 个字符的宽度
+     *
+     * @param widths 字符宽度，长度至少为 length + 1
+     * @param length 字符数
+     */
+    public static void toPrefixWidths(float[] widths, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float advance = widths[i];
+            widths[i] = sum;
+            sum += advance;
+        }
+        widths[length] = sum;
+    }
+
+    /**
+     * 二分查找能显示的字符数，并向前调整到字素边界
+     *
+     * @param text         文字
+     * @param prefixWidths 字符宽度前缀和
+     * @param length       字符数
+     * @param maxWidth     最大宽度
+     * @return 能显示的字符数
+     */
+    public static int findCutOffset(CharSequence text, float[] prefixWidths, int length, float maxWidth) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (prefixWidths[mid] <= maxWidth) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        while (low > 0 && !isGraphemeBoundary(text, low)) {
+            low--;
+        }
+        return low;
+    }
+
+    /**
+     * 判断是否为字素边界，是 Unicode 扩展字素簇规则的简化版本
+     *
+     * @param text   文字
+     * @param offset 位置
+     * @return
+     */
+    public static boolean isGraphemeBoundary(CharSequence text, int offset) {
+        if (offset <= 0 || offset >= text.length()) {
+            return true;
+        }
+        char prev = text.charAt(offset - 1);
+        char cur = text.charAt(offset);
+        // 不拆开代理对和 CR LF
+        if (Character.isHighSurrogate(prev) && Character.isLowSurrogate(cur)) {
+            return false;
+        }
+        if (prev == '\r' && cur == '\n') {
+            return false;
+        }
+        int codePoint = Character.codePointAt(text, offset);
+        int prevCodePoint = Character.codePointBefore(text, offset);
+        // 组合字符、变体选择符、肤色修饰符等附加在前一个字符上
+        if (_isExtend(codePoint) || codePoint == ZERO_WIDTH_JOINER) {
+            return false;
+        }
+        // 零宽连接符连接的 emoji 序列
+        if (prevCodePoint == ZERO_WIDTH_JOINER) {
+            return false;
+        }
+        // 国旗由两个区域指示符组成
+        if (_isRegionalIndicator(codePoint) && _isRegionalIndicator(prevCodePoint)) {
+            int count = 0;
+            int index = offset;
+            while (index > 0) {
+                int cp = Character.codePointBefore(text, index);
+                if (!_isRegionalIndicator(cp)) {
+                    break;
+                }
+                count++;
+                index -= Character.charCount(cp);
+            }
+            return count % 2 == 0;
+        }
+        return true;
+    }
+
+    private static boolean _isExtend(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.ENCLOSING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                // 变体选择符
+                || (codePoint >= 0xFE00 && codePoint <= 0xFE0F)
+                || (codePoint >= 0xE0100 && codePoint <= 0xE01EF)
+                // emoji 肤色修饰符
+                || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF)
+                // emoji 标签字符
+                || (codePoint >= 0xE0020 && codePoint <= 0xE007F);
+    }
+
+    private static boolean _isRegionalIndicator(int codePoint) {
+        return codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF;
+    }
+}
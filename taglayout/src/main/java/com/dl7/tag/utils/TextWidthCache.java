@@ -0,0 +1,179 @@
+package com.dl7.tag.utils;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内共享的文字宽度缓存，按(文字、字体大小、字体、字间距、水平缩放、影响宽度的标志位)缓存 measureText() 的结果
+ * 使用 LRU 策略限制缓存数量
+ */
+public final class TextWidthCache {
+
+    // 默认最大缓存数量
+    private static final int DEFAULT_MAX_SIZE = 1024;
+    // 会影响文字宽度的画笔标志位
+    private static final int WIDTH_FLAGS = Paint.FAKE_BOLD_TEXT_FLAG | Paint.LINEAR_TEXT_FLAG
+            | Paint.SUBPIXEL_TEXT_FLAG;
+
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+    private static final LinkedHashMap<Key, Float> sCache = new LinkedHashMap<Key, Float>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Float> eldest) {
+            return size() > sMaxSize;
+        }
+    };
+    // 查询时复用的Key，避免每次查询都创建对象
+    private static final Key sLookupKey = new Key();
+    private static int sHitCount;
+    private static int sMissCount;
+
+    private TextWidthCache() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 测量文字宽度，优先从缓存中获取
+     *
+     * @param paint 画笔，使用其字体大小、字体、字间距、水平缩放和标志位
+     * @param text  文字
+     * @return 文字宽度
+     */
+    public static float measureText(Paint paint, String text) {
+        if (text == null || text.length() == 0) {
+            return 0;
+        }
+        synchronized (sCache) {
+            sLookupKey.set(text, paint.getTextSize(), paint.getTypeface(), _getLetterSpacing(paint),
+                    paint.getTextScaleX(), paint.getFlags() & WIDTH_FLAGS);
+            Float width = sCache.get(sLookupKey);
+            if (width != null) {
+                sHitCount++;
+                return width;
+            }
+            sMissCount++;
+            float measureWidth = paint.measureText(text);
+            Key key = new Key();
+            key.set(text, sLookupKey.textSize, sLookupKey.typeface, sLookupKey.letterSpacing,
+                    sLookupKey.textScaleX, sLookupKey.flags);
+            sCache.put(key, measureWidth);
+            return measureWidth;
+        }
+    }
+
+    private static float _getLetterSpacing(Paint paint) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return paint.getLetterSpacing();
+        }
+        return 0;
+    }
+
+    /**
+     * ==================================== 统计和配置 ====================================
+     */
+
+    public static int getHitCount() {
+        synchronized (sCache) {
+            return sHitCount;
+        }
+    }
+
+    public static int getMissCount() {
+        synchronized (sCache) {
+            return sMissCount;
+        }
+    }
+
+    public static int size() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    public static int getMaxSize() {
+        synchronized (sCache) {
+            return sMaxSize;
+        }
+    }
+
+    /**
+     * 设置最大缓存数量，超出的部分按 LRU 策略移除
+     *
+     * @param maxSize 最大缓存数量
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        synchronized (sCache) {
+            sMaxSize = maxSize;
+            _trimToSize();
+        }
+    }
+
+    private static void _trimToSize() {
+        while (sCache.size() > sMaxSize) {
+            Key eldest = sCache.keySet().iterator().next();
+            sCache.remove(eldest);
+        }
+    }
+
+    /**
+     * 清空缓存和统计
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.clear();
+            sHitCount = 0;
+            sMissCount = 0;
+        }
+    }
+
+    private static final class Key {
+        String text;
+        float textSize;
+        Typeface typeface;
+        float letterSpacing;
+        float textScaleX;
+        int flags;
+        int hashCode;
+
+        void set(String text, float textSize, Typeface typeface, float letterSpacing, float textScaleX, int flags) {
+            this.text = text;
+            this.textSize = textSize;
+            this.typeface = typeface;
+            this.letterSpacing = letterSpacing;
+            this.textScaleX = textScaleX;
+            this.flags = flags;
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + flags;
+            hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return textSize == key.textSize && letterSpacing == key.letterSpacing
+                    && textScaleX == key.textScaleX && flags == key.flags
+                    && typeface == key.typeface && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
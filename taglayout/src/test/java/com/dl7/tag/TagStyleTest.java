@@ -0,0 +1,48 @@
+package com.dl7.tag;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagStyle 共享和迁移测试
+ */
+public class TagStyleTest {
+
+    @Test
+    public void equalStylesAreShared() throws Exception {
+        TagStyle style = new TagStyle.Builder().setTextSize(30).setBgColor(0xff123456).build();
+        TagStyle same = new TagStyle.Builder().setBgColor(0xff123456).setTextSize(30).build();
+        TagStyle other = new TagStyle.Builder(style).setRadius(4).build();
+
+        assertSame(style, same);
+        assertNotSame(style, other);
+        assertSame(style, new TagStyle.Builder(other).setRadius(0).build());
+    }
+
+    @Test
+    public void rebaseKeepsOverrides() throws Exception {
+        TagStyle oldBase = new TagStyle.Builder().setTextSize(30).setRadius(5).build();
+        TagStyle override = new TagStyle.Builder(oldBase).setBgColor(0xffff0000).build();
+        TagStyle newBase = new TagStyle.Builder(oldBase).setBgColor(0xff000000).setRadius(8).build();
+
+        assertSame(newBase, oldBase.rebase(oldBase, newBase));
+        TagStyle rebased = override.rebase(oldBase, newBase);
+        assertEquals(0xffff0000, rebased.getBgColor());
+        assertEquals(8, rebased.getRadius(), 0);
+        assertSame(rebased, new TagStyle.Builder(newBase).setBgColor(0xffff0000).build());
+    }
+
+    @Test
+    public void onlyMetricsChangeNeedsLayout() throws Exception {
+        TagStyle style = new TagStyle.Builder().setTextSize(30).build();
+
+        assertTrue(style.hasSameMetrics(new TagStyle.Builder(style).setTextColor(0xff000000)
+                .setTagShape(TagView.SHAPE_ARC).build()));
+        assertFalse(style.hasSameMetrics(new TagStyle.Builder(style).setHorizontalPadding(12).build()));
+    }
+}
@@ -0,0 +1,223 @@
+package com.dl7.tag.layout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FlowLayoutEngine 换行计算测试
+ */
+public class FlowLayoutEngineTest {
+
+    private FlowLayoutEngine mEngine;
+
+    @Before
+    public void setUp() throws Exception {
+        mEngine = new FlowLayoutEngine();
+        mEngine.setHorizontalInterval(10);
+        mEngine.setVerticalInterval(5);
+    }
+
+    @Test
+    public void wrapsWhenLineIsFull() throws Exception {
+        int[] widths = {40, 40, 40, 40};
+        int[] heights = {20, 30, 20, 20};
+        mEngine.compute(widths, heights, 4, 100);
+
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(0, mEngine.getLineStart(0));
+        assertEquals(2, mEngine.getLineStart(1));
+        assertEquals(30, mEngine.getLineHeight(0));
+        assertEquals(20, mEngine.getLineHeight(1));
+        assertEquals(90, mEngine.getLineWidth(0));
+        assertEquals(0, mEngine.getChildLeft(0));
+        assertEquals(50, mEngine.getChildLeft(1));
+        assertEquals(0, mEngine.getChildLeft(2));
+        assertEquals(35, mEngine.getChildTop(2));
+        assertEquals(55, mEngine.getContentHeight());
+    }
+
+    @Test
+    public void reverseLayoutStartsFromRight() throws Exception {
+        mEngine.setHorizontalReverse(true);
+        int[] widths = {40, 30, 60};
+        int[] heights = {20, 20, 20};
+        mEngine.compute(widths, heights, 3, 100);
+
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(60, mEngine.getChildLeft(0));
+        assertEquals(20, mEngine.getChildLeft(1));
+        assertEquals(40, mEngine.getChildLeft(2));
+    }
+
+    @Test
+    public void oversizedChildTakesItsOwnLine() throws Exception {
+        int[] widths = {150, 40};
+        int[] heights = {20, 20};
+        mEngine.compute(widths, heights, 2, 100);
+
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(0, mEngine.getChildTop(0));
+        assertEquals(25, mEngine.getChildTop(1));
+        assertEquals(2, mEngine.getLineEnd(1));
+    }
+
+    @Test
+    public void emptyInputHasNoLines() throws Exception {
+        mEngine.compute(new int[0], new int[0], 0, 100);
+
+        assertEquals(0, mEngine.getLineCount());
+        assertEquals(0, mEngine.getContentHeight());
+    }
+
+    @Test
+    public void fitColumnsFillLineAndAlign() throws Exception {
+        // (105 - 2 * 10) / 3 = 28 余 1，多出的像素分给第一列
+        assertEquals(29, FlowLayoutEngine.getFitColumnWidth(105, 3, 10, 0));
+        assertEquals(28, FlowLayoutEngine.getFitColumnWidth(105, 3, 10, 1));
+        assertEquals(28, FlowLayoutEngine.getFitColumnWidth(105, 3, 10, 2));
+        assertEquals(0, FlowLayoutEngine.getFitColumnWidth(10, 3, 10, 0));
+
+        int[] widths = new int[6];
+        int[] heights = new int[6];
+        for (int i = 0; i < 6; i++) {
+            widths[i] = FlowLayoutEngine.getFitColumnWidth(105, 3, 10, i % 3);
+            heights[i] = 20;
+        }
+        mEngine.compute(widths, heights, 6, 105);
+
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(105, mEngine.getLineWidth(0));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(mEngine.getChildLeft(i), mEngine.getChildLeft(i + 3));
+        }
+    }
+
+    @Test
+    public void balancedLinesKeepLineCount() throws Exception {
+        int[] widths = {20, 20, 20, 20, 20, 20, 20};
+        int[] heights = {20, 20, 20, 20, 20, 20, 20};
+        mEngine.setHorizontalInterval(0);
+        mEngine.compute(widths, heights, 7, 100);
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(5, mEngine.getLineStart(1));
+
+        mEngine.setBalancedLines(true);
+        mEngine.compute(widths, heights, 7, 100);
+        assertEquals(2, mEngine.getLineCount());
+        assertEquals(4, mEngine.getLineStart(1));
+        assertEquals(80, mEngine.getLineWidth(0));
+        assertEquals(60, mEngine.getLineWidth(1));
+        assertEquals(0, mEngine.getChildLeft(4));
+        assertEquals(25, mEngine.getChildTop(4));
+        assertEquals(45, mEngine.getContentHeight());
+    }
+
+    @Test
+    public void balancedLinesMatchGreedyLineCount() throws Exception {
+        Random random = new Random(7);
+        int count = 5000;
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = 20 + random.nextInt(200);
+            heights[i] = 20;
+        }
+        // 包含一个超过可用宽度的子视图
+        widths[100] = 400;
+        mEngine.compute(widths, heights, count, 360);
+        int greedyLineCount = mEngine.getLineCount();
+
+        mEngine.setBalancedLines(true);
+        mEngine.compute(widths, heights, count, 360);
+        assertEquals(greedyLineCount, mEngine.getLineCount());
+        for (int line = 0; line < mEngine.getLineCount(); line++) {
+            int start = mEngine.getLineStart(line);
+            int end = mEngine.getLineEnd(line);
+            assertTrue(end > start);
+            assertTrue(end - start == 1 || mEngine.getLineWidth(line) <= 360);
+        }
+    }
+
+    @Test
+    public void appendOnlyTouchesLastLine() throws Exception {
+        int[] widths = {40, 40, 40, 40, 20, 0};
+        int[] heights = {20, 20, 20, 20, 20, 0};
+        mEngine.compute(widths, heights, 5, 100);
+        widths[5] = 30;
+        heights[5] = 20;
+        mEngine.compute(widths, heights, 6, 100, 5, 0);
+
+        assertEquals(3, mEngine.getLineCount());
+        assertEquals(4, mEngine.getLineStart(2));
+        assertEquals(30, mEngine.getChildLeft(5));
+        assertEquals(50, mEngine.getChildTop(5));
+    }
+
+    @Test
+    public void incrementalMatchesFullCompute() throws Exception {
+        Random random = new Random(7);
+        FlowLayoutEngine full = new FlowLayoutEngine();
+        full.setHorizontalInterval(10);
+        full.setVerticalInterval(5);
+        int count = 50;
+        int[] widths = new int[200];
+        int[] heights = new int[200];
+        for (int i = 0; i < count; i++) {
+            widths[i] = 10 + random.nextInt(90);
+            heights[i] = 10 + random.nextInt(20);
+        }
+        mEngine.compute(widths, heights, count, 200);
+        for (int round = 0; round < 500; round++) {
+            int pos = random.nextInt(count + 1);
+            int dirtyEnd;
+            int op = random.nextInt(3);
+            if (op == 0 && count < 150) {
+                // 插入
+                int num = 1 + random.nextInt(3);
+                System.arraycopy(widths, pos, widths, pos + num, count - pos);
+                System.arraycopy(heights, pos, heights, pos + num, count - pos);
+                for (int i = pos; i < pos + num; i++) {
+                    widths[i] = 10 + random.nextInt(90);
+                    heights[i] = 10 + random.nextInt(20);
+                }
+                count += num;
+                dirtyEnd = pos + num;
+            } else if (op == 1 && pos < count && count > 1) {
+                // 删除
+                System.arraycopy(widths, pos + 1, widths, pos, count - pos - 1);
+                System.arraycopy(heights, pos + 1, heights, pos, count - pos - 1);
+                count--;
+                dirtyEnd = pos;
+            } else if (pos < count) {
+                // 改变大小
+                widths[pos] = 10 + random.nextInt(90);
+                dirtyEnd = pos + 1;
+            } else {
+                continue;
+            }
+            mEngine.compute(widths, heights, count, 200, pos, count - dirtyEnd);
+            full.compute(widths, heights, count, 200);
+            _assertSameResult(full, mEngine);
+        }
+    }
+
+    private static void _assertSameResult(FlowLayoutEngine expected, FlowLayoutEngine actual) {
+        assertEquals(expected.getLineCount(), actual.getLineCount());
+        assertEquals(expected.getContentHeight(), actual.getContentHeight());
+        for (int line = 0; line < expected.getLineCount(); line++) {
+            assertEquals(expected.getLineStart(line), actual.getLineStart(line));
+            assertEquals(expected.getLineHeight(line), actual.getLineHeight(line));
+            assertEquals(expected.getLineTop(line), actual.getLineTop(line));
+            assertEquals(expected.getLineWidth(line), actual.getLineWidth(line));
+        }
+        for (int i = 0; i < expected.getChildCount(); i++) {
+            assertEquals(expected.getChildLeft(i), actual.getChildLeft(i));
+            assertEquals(expected.getChildTop(i), actual.getChildTop(i));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.dl7.tag.layout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ListDiff 差异计算测试
+ */
+public class ListDiffTest {
+
+    @Test
+    public void singleInsertEmitsOneOperation() throws Exception {
+        List<String> oldList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            oldList.add("tag" + i);
+        }
+        List<String> newList = new ArrayList<>(oldList);
+        newList.add(500, "new");
+        Recorder recorder = _apply(oldList, newList);
+
+        assertEquals(1, recorder.inserted);
+        assertEquals(0, recorder.removed + recorder.moved + recorder.changed);
+    }
+
+    @Test
+    public void replacedItemIsChanged() throws Exception {
+        Recorder recorder = _apply(Arrays.asList("a", "b", "c"), Arrays.asList("a", "x", "c"));
+
+        assertEquals(1, recorder.changed);
+        assertEquals(0, recorder.inserted + recorder.removed + recorder.moved);
+    }
+
+    @Test
+    public void swappedItemIsMoved() throws Exception {
+        Recorder recorder = _apply(Arrays.asList("a", "b", "c", "d"), Arrays.asList("d", "a", "b", "c"));
+
+        assertEquals(1, recorder.moved);
+        assertEquals(0, recorder.inserted + recorder.removed + recorder.changed);
+    }
+
+    @Test
+    public void farSwapMovesOnlySwappedItems() throws Exception {
+        List<String> oldList = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            oldList.add("tag" + i);
+        }
+        List<String> newList = new ArrayList<>(oldList);
+        newList.set(1, oldList.get(998));
+        newList.set(998, oldList.get(1));
+        Recorder recorder = _apply(oldList, newList);
+
+        assertEquals(2, recorder.moved);
+        assertEquals(0, recorder.inserted + recorder.removed + recorder.changed);
+    }
+
+    @Test
+    public void removeAndClear() throws Exception {
+        Recorder recorder = _apply(Arrays.asList("a", "b", "c"), Arrays.asList("a", "c"));
+        assertEquals(1, recorder.removed);
+
+        recorder = _apply(Arrays.asList("a", "b", "c"), new ArrayList<String>());
+        assertEquals(3, recorder.removed);
+    }
+
+    @Test
+    public void randomListsAreTransformed() throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 500; round++) {
+            List<String> oldList = _randomList(random);
+            List<String> newList = _randomList(random);
+            _apply(oldList, newList);
+        }
+    }
+
+    @Test
+    public void largeShuffleIsTransformed() throws Exception {
+        Random random = new Random(7);
+        List<String> oldList = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            oldList.add("tag" + i);
+        }
+        List<String> newList = new ArrayList<>(oldList);
+        // 随机交换、删除和插入，移动的位置需要跳过已经处理的项
+        for (int i = 0; i < 100; i++) {
+            int a = random.nextInt(newList.size());
+            int b = random.nextInt(newList.size());
+            newList.set(a, newList.set(b, newList.get(a)));
+            newList.remove(random.nextInt(newList.size()));
+            newList.add(random.nextInt(newList.size()), "new" + i);
+        }
+        Recorder recorder = _apply(oldList, newList);
+
+        // 每轮最多产生交换的两次移动和一次删除、一次插入，公共子序列中的项不会移动
+        assertTrue(recorder.moved <= 200);
+        assertTrue(recorder.inserted + recorder.removed + recorder.changed <= 200);
+    }
+
+    private static List<String> _randomList(Random random) {
+        int size = random.nextInt(40);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(String.valueOf((char) ('a' + random.nextInt(12))));
+        }
+        return list;
+    }
+
+    /**
+     * 把操作作用到旧列表上，检查结果和新列表一致
+     */
+    private static Recorder _apply(List<String> oldList, List<String> newList) {
+        Recorder recorder = new Recorder(new ArrayList<>(oldList), newList);
+        ListDiff.dispatch(oldList, newList, recorder);
+        assertEquals(newList, recorder.current);
+        return recorder;
+    }
+
+    private static class Recorder implements ListDiff.Callback {
+        final List<String> current;
+        final List<String> newList;
+        int inserted;
+        int removed;
+        int moved;
+        int changed;
+
+        Recorder(List<String> current, List<String> newList) {
+            this.current = current;
+            this.newList = newList;
+        }
+
+        @Override
+        public void onInserted(int position, int newIndex) {
+            inserted++;
+            current.add(position, newList.get(newIndex));
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            removed++;
+            current.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            moved++;
+            current.add(toPosition, current.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int newIndex) {
+            changed++;
+            current.set(position, newList.get(newIndex));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.dl7.tag.layout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MeasureCache 命中和替换测试
+ */
+public class MeasureCacheTest {
+
+    @Test
+    public void hitsOnlyWithSameSpecsAndVersion() throws Exception {
+        MeasureCache cache = new MeasureCache(2, 2);
+        assertEquals(-1, cache.find(100, 50, 0));
+        int slot = cache.put(100, 50, 0);
+        cache.setValue(slot, 0, 80);
+        cache.setValue(slot, 1, 40);
+
+        int hit = cache.find(100, 50, 0);
+        assertEquals(slot, hit);
+        assertEquals(80, cache.getValue(hit, 0));
+        assertEquals(40, cache.getValue(hit, 1));
+        assertEquals(-1, cache.find(100, 50, 1));
+        assertEquals(-1, cache.find(120, 50, 0));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void replacesOldestWhenFull() throws Exception {
+        MeasureCache cache = new MeasureCache(2, 1);
+        cache.setValue(cache.put(1, 1, 0), 0, 10);
+        cache.setValue(cache.put(2, 2, 0), 0, 20);
+        cache.setValue(cache.put(3, 3, 0), 0, 30);
+
+        assertEquals(2, cache.size());
+        assertEquals(-1, cache.find(1, 1, 0));
+        assertEquals(20, cache.getValue(cache.find(2, 2, 0), 0));
+        assertEquals(30, cache.getValue(cache.find(3, 3, 0), 0));
+
+        cache.clear();
+        assertEquals(-1, cache.find(3, 3, 0));
+    }
+}
@@ -0,0 +1,107 @@
+package com.dl7.tag.layout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagSelection 选中状态测试
+ */
+public class TagSelectionTest {
+
+    private TagSelection mSelection;
+
+    @Before
+    public void setUp() throws Exception {
+        mSelection = new TagSelection();
+    }
+
+    @Test
+    public void singleChoiceReturnsPreviousPosition() throws Exception {
+        mSelection.setSingleChoice(true);
+
+        assertEquals(TagSelection.INVALID_POSITION, mSelection.setChecked(3, true));
+        assertEquals(3, mSelection.setChecked(100, true));
+        assertFalse(mSelection.isChecked(3));
+        assertEquals(100, mSelection.getCheckedPosition());
+        assertEquals(1, mSelection.getCheckedCount());
+
+        mSelection.setChecked(100, false);
+        assertEquals(TagSelection.INVALID_POSITION, mSelection.getCheckedPosition());
+    }
+
+    @Test
+    public void iteratesSetBitsBothWays() throws Exception {
+        mSelection.setChecked(1, true);
+        mSelection.setChecked(64, true);
+        mSelection.setChecked(200, true);
+
+        assertEquals(1, mSelection.nextChecked(0));
+        assertEquals(64, mSelection.nextChecked(2));
+        assertEquals(200, mSelection.nextChecked(65));
+        assertEquals(TagSelection.INVALID_POSITION, mSelection.nextChecked(201));
+        assertEquals(200, mSelection.previousChecked(1000));
+        assertEquals(64, mSelection.previousChecked(199));
+        assertEquals(1, mSelection.previousChecked(63));
+        assertEquals(TagSelection.INVALID_POSITION, mSelection.previousChecked(0));
+    }
+
+    @Test
+    public void checkAllAndClear() throws Exception {
+        mSelection.checkAll(130);
+
+        assertEquals(130, mSelection.getCheckedCount());
+        assertTrue(mSelection.isChecked(129));
+        assertFalse(mSelection.isChecked(130));
+
+        mSelection.clear();
+        assertEquals(0, mSelection.getCheckedCount());
+        assertEquals(TagSelection.INVALID_POSITION, mSelection.nextChecked(0));
+    }
+
+    @Test
+    public void shiftsWithInsertRemoveAndMove() throws Exception {
+        Random random = new Random(5);
+        List<Boolean> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            boolean checked = random.nextBoolean();
+            expected.add(checked);
+            mSelection.setChecked(i, checked);
+        }
+        for (int round = 0; round < 300; round++) {
+            int op = random.nextInt(3);
+            int position = random.nextInt(expected.size());
+            if (op == 0) {
+                int count = 1 + random.nextInt(70);
+                for (int i = 0; i < count; i++) {
+                    expected.add(position, false);
+                }
+                mSelection.onInserted(position, count);
+            } else if (op == 1 && expected.size() > 10) {
+                int count = 1 + random.nextInt(Math.min(70, expected.size() - position));
+                for (int i = 0; i < count; i++) {
+                    expected.remove(position);
+                }
+                mSelection.onRemoved(position, count);
+            } else {
+                int to = random.nextInt(expected.size());
+                expected.add(to, expected.remove(position));
+                mSelection.onMoved(position, to);
+            }
+            int count = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), mSelection.isChecked(i));
+                count += expected.get(i) ? 1 : 0;
+            }
+            assertEquals(count, mSelection.getCheckedCount());
+            assertEquals(TagSelection.INVALID_POSITION, mSelection.nextChecked(expected.size()));
+        }
+    }
+}
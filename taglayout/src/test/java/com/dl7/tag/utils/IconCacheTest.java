@@ -0,0 +1,26 @@
+package com.dl7.tag.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * IconCache 采样率测试
+ */
+public class IconCacheTest {
+
+    @Test
+    public void sampledSizeNeverSmallerThanTarget() throws Exception {
+        assertEquals(1, IconCache.calculateInSampleSize(40, 40));
+        assertEquals(1, IconCache.calculateInSampleSize(79, 40));
+        assertEquals(2, IconCache.calculateInSampleSize(80, 40));
+        assertEquals(8, IconCache.calculateInSampleSize(512, 48));
+        assertEquals(16, IconCache.calculateInSampleSize(512, 32));
+    }
+
+    @Test
+    public void smallSourceIsNotSampled() throws Exception {
+        assertEquals(1, IconCache.calculateInSampleSize(24, 48));
+        assertEquals(1, IconCache.calculateInSampleSize(512, 0));
+    }
+}
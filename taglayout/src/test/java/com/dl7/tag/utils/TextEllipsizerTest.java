@@ -0,0 +1,70 @@
+package com.dl7.tag.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TextEllipsizer 裁剪位置测试
+ */
+public class TextEllipsizerTest {
+
+    @Test
+    public void findsLongestPrefixThatFits() throws Exception {
+        String text = "abcdef";
+        float[] widths = _prefixWidths(text, 10);
+
+        assertEquals(3, TextEllipsizer.findCutOffset(text, widths, text.length(), 35));
+        assertEquals(6, TextEllipsizer.findCutOffset(text, widths, text.length(), 60));
+        assertEquals(0, TextEllipsizer.findCutOffset(text, widths, text.length(), 5));
+    }
+
+    @Test
+    public void neverSplitsSurrogatePair() throws Exception {
+        // "a" + U+1F600 + "b"
+        String text = "a😀b";
+        float[] widths = new float[text.length() + 1];
+        widths[0] = 10;
+        widths[1] = 20;
+        widths[2] = 0;
+        widths[3] = 10;
+        TextEllipsizer.toPrefixWidths(widths, text.length());
+
+        assertFalse(TextEllipsizer.isGraphemeBoundary(text, 2));
+        assertEquals(1, TextEllipsizer.findCutOffset(text, widths, text.length(), 25));
+        assertEquals(3, TextEllipsizer.findCutOffset(text, widths, text.length(), 30));
+    }
+
+    @Test
+    public void keepsCombiningMarkAndEmojiSequence() throws Exception {
+        // "e" + 组合重音符
+        assertFalse(TextEllipsizer.isGraphemeBoundary("éx", 1));
+        assertTrue(TextEllipsizer.isGraphemeBoundary("éx", 2));
+        // 男人 + ZWJ + 电脑
+        String sequence = "👨‍💻";
+        assertFalse(TextEllipsizer.isGraphemeBoundary(sequence, 2));
+        assertFalse(TextEllipsizer.isGraphemeBoundary(sequence, 3));
+        // 肤色修饰符
+        assertFalse(TextEllipsizer.isGraphemeBoundary("👍🏻", 2));
+    }
+
+    @Test
+    public void pairsRegionalIndicators() throws Exception {
+        // 两面国旗 CN + US
+        String flags = "🇨🇳🇺🇸";
+        assertFalse(TextEllipsizer.isGraphemeBoundary(flags, 2));
+        assertTrue(TextEllipsizer.isGraphemeBoundary(flags, 4));
+        assertFalse(TextEllipsizer.isGraphemeBoundary(flags, 6));
+    }
+
+    private static float[] _prefixWidths(String text, float charWidth) {
+        float[] widths = new float[text.length() + 1];
+        for (int i = 0; i < text.length(); i++) {
+            widths[i] = charWidth;
+        }
+        TextEllipsizer.toPrefixWidths(widths, text.length());
+        return widths;
+    }
+}